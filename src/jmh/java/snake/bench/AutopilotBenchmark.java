@@ -0,0 +1,120 @@
+package snake.bench;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import snake.ai.Autopilot;
+import snake.sim.Snake;
+import snake.sim.SnakeSimulation;
+
+/**
+ * One autopilot decision against grid size and snake length, as decisions per
+ * second and as sampled latency, whose maximum is the worst case.
+ * <p>
+ * The body fills the top rows back and forth, tail end first, with the food
+ * half a board away. Two otherwise identical states with the food one cell
+ * apart are alternated, so every call works out a fresh decision.
+ * {@code pathfinding} never joins the Hamiltonian cycle and so always
+ * searches for the food and checks the tail; {@code autopilot} uses the
+ * default settings, which follow the cycle on fuller boards.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g", "-Dtinylog.level=info" })
+public class AutopilotBenchmark {
+
+    @Param({ "40x30", "256x256", "1024x1024" })
+    public String grid;
+
+    /** Percentage of the board covered by the body. */
+    @Param({ "1", "25", "50" })
+    public int fill;
+
+    private final SnakeSimulation[] states = new SnakeSimulation[2];
+    private Autopilot pathfinding;
+    private Autopilot autopilot;
+    private int next;
+
+    @Setup
+    public void setup() {
+        final int[] size = Grids.parse(this.grid);
+        final int cols = size[0];
+        final int rows = size[1];
+        final int length = Math.max(1, (int)((long)cols * rows * this.fill / 100));
+        final int foodRow = ((length / cols) + rows) / 2 % rows;
+        for (int i = 0; i < this.states.length; i++) {
+            this.states[i] = new SnakeSimulation(cols, rows, 42L);
+            this.states[i].readState(craftState(cols, rows, length, foodRow * cols + cols / 2 + i));
+        }
+        this.pathfinding = new Autopilot(cols, rows, 2.0d);
+        this.autopilot = new Autopilot(cols, rows, Autopilot.DEFAULT_CYCLE_FILL);
+    }
+
+    @Benchmark
+    public Snake.Direction pathfinding() {
+        this.next ^= 1;
+        return this.pathfinding.decide(this.states[this.next]);
+    }
+
+    @Benchmark
+    public Snake.Direction autopilot() {
+        this.next ^= 1;
+        return this.autopilot.decide(this.states[this.next]);
+    }
+
+    /**
+     * State in the {@link SnakeSimulation#writeState} layout with the body
+     * along the first {@code length} cells of a back and forth sweep of the
+     * rows and the head on the next.
+     */
+    private static ByteBuffer craftState(final int cols, final int rows, final int length, final int food) {
+        final int cells = cols * rows;
+        final ByteBuffer buffer = ByteBuffer.allocate(64 + 8 * cells);
+        final int head = sweep(cols, length);
+        final Snake.Direction direction = (length / cols) % 2 == 0
+                ? length % cols == 0 ? Snake.Direction.DOWN : Snake.Direction.RIGHT
+                : length % cols == 0 ? Snake.Direction.DOWN : Snake.Direction.LEFT;
+        buffer.putInt(cols).putInt(rows)
+                .putLong(0L).putLong(42L).putLong(42L)
+                .putInt(head).putInt(0).putInt(Snake.INITIAL_SPEED)
+                .put((byte)direction.ordinal()).put((byte)2)  // Alive
+                .putInt(length).putInt(food).putInt(length);
+        final boolean[] taken = new boolean[cells];
+        taken[head] = true;
+        for (int i = 0; i < length; i++) {
+            final int cell = sweep(cols, i);
+            buffer.putInt(cell);
+            taken[cell] = true;
+        }
+        buffer.putInt(cells - length - 1);
+        for (int cell = 0; cell < cells; cell++)
+            if (!taken[cell])
+                buffer.putInt(cell);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Cell at {@code index} along the rows, left to right then right to left.
+     */
+    private static int sweep(final int cols, final int index) {
+        final int row = index / cols;
+        final int col = index % cols;
+        return row * cols + (row % 2 == 0 ? col : cols - 1 - col);
+    }
+
+}
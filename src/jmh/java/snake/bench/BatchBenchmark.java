@@ -0,0 +1,74 @@
+package snake.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import snake.batch.BatchResult;
+import snake.batch.BatchRunner;
+import snake.batch.GameBatch;
+import snake.batch.GreedyPlayer;
+
+/**
+ * Batch simulation scaling: one operation plays a whole batch of games with
+ * the greedy player. The {@code games} and {@code ticks} counters report
+ * games/s and ticks/s; {@code threads = 0} uses every available core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g", "-Dtinylog.level=info" })
+public class BatchBenchmark {
+
+    private static final int GAMES = 4096;
+    private static final int MAX_TICKS = 100_000;
+
+    @Param({ "1", "2", "4", "0" })
+    public int threads;
+
+    private GameBatch batch;
+    private BatchRunner runner;
+    private final GreedyPlayer player = new GreedyPlayer();
+    private long seed = 0;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long games;
+        public long ticks;
+    }
+
+    @Setup
+    public void setup() {
+        this.batch = new GameBatch(GAMES, 40, 30);
+        this.runner = new BatchRunner(this.threads > 0 ? this.threads : Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.runner.close();
+    }
+
+    @Benchmark
+    public BatchResult batch(final Counters counters) {
+        final BatchResult result = this.runner.run(this.batch, this.player, this.seed++, MAX_TICKS);
+        counters.games += result.getGames();
+        counters.ticks += result.getTotalTicks();
+        return result;
+    }
+
+}
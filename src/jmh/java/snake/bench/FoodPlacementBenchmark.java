@@ -0,0 +1,73 @@
+package snake.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import snake.sim.FreeCellIndex;
+import snake.sim.OccupancyGrid;
+import snake.sim.SeededRandom;
+
+/**
+ * Cost of choosing a free cell for food against how full the board is.
+ * <p>
+ * {@code freeCellIndex} is what {@code placeFood()} does; {@code rejection}
+ * retries random cells until one is free and is kept as the baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dtinylog.level=info")
+public class FoodPlacementBenchmark {
+
+    private static final int COLS = 1024;
+    private static final int ROWS = 1024;
+    private static final int CELLS = COLS * ROWS;
+
+    @Param({ "0.0", "0.5", "0.9", "0.99", "0.999" })
+    public double fill;
+
+    private final SeededRandom random = new SeededRandom(42L);
+    private FreeCellIndex freeCells;
+    private OccupancyGrid occupancy;
+
+    @Setup
+    public void setup() {
+        this.freeCells = new FreeCellIndex(CELLS);
+        this.freeCells.fill();
+        this.occupancy = new OccupancyGrid(COLS, ROWS);
+        final SeededRandom setupRandom = new SeededRandom(7L);
+        final int occupied = (int)(CELLS * this.fill);
+        while (CELLS - this.freeCells.size() < occupied) {
+            final int cell = this.freeCells.sample(setupRandom);
+            this.freeCells.remove(cell);
+            this.occupancy.set(cell);
+        }
+    }
+
+    @Benchmark
+    public int freeCellIndex() {
+        return this.freeCells.sample(this.random);
+    }
+
+    @Benchmark
+    public int rejection() {
+        int cell;
+        do {
+            cell = this.random.nextInt(CELLS);
+        } while (this.occupancy.get(cell));
+        return cell;
+    }
+
+}
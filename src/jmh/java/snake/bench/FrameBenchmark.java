@@ -0,0 +1,48 @@
+package snake.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import snake.loop.FrameHarness;
+
+/**
+ * The whole headless frame path, fixed-step update plus scene submission to
+ * the recording renderer, one frame per operation. Run with {@code -prof gc}
+ * to see the bytes allocated per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g", "-Dtinylog.level=info" })
+public class FrameBenchmark {
+
+    @Param({ "40x30", "256x256", "1024x1024" })
+    public String grid;
+
+    private FrameHarness harness;
+
+    @Setup
+    public void setup() {
+        final int[] size = Grids.parse(this.grid);
+        this.harness = new FrameHarness(size[0], size[1]);
+    }
+
+    @Benchmark
+    public long frame() {
+        this.harness.runFrames(1);
+        return this.harness.getRenderer().getFrameBytesUploaded();
+    }
+
+}
@@ -0,0 +1,74 @@
+package snake.bench;
+
+import java.nio.ByteBuffer;
+
+import snake.sim.Snake;
+import snake.sim.SnakeSimulation;
+
+/**
+ * Helpers shared by the benchmarks.
+ */
+final class Grids {
+
+    private static final int COIL_WIDTH = 64;
+    private static final int HEADER_SIZE = 54;  // State up to the body length
+    private static final int DIRECTION_OFFSET = 44;
+    private static final int FOOD_OFFSET = 50;
+
+    private Grids() {
+    }
+
+    /**
+     * Parses a {@code "<cols>x<rows>"} benchmark parameter.
+     */
+    static int[] parse(final String grid) {
+        final int x = grid.indexOf('x');
+        return new int[] { Integer.parseInt(grid.substring(0, x)), Integer.parseInt(grid.substring(x + 1)) };
+    }
+
+    /**
+     * Restarts with a snake of {@code length} cells, or as many as fit, laid
+     * back and forth in rows below its head and heading right, away from the
+     * body.
+     */
+    static void coil(final SnakeSimulation simulation, final int requested) {
+        simulation.reset();
+        final int cols = simulation.getGridCols();
+        final int rows = simulation.getGridRows();
+        final int width = Math.min(cols - 2, COIL_WIDTH);
+        final int length = Math.min(requested, width * (rows - 1));
+        final int head = simulation.getHeadCell();
+        final int[] body = new int[length];
+        for (int i = 0; i < length; i++) {
+            final int row = i / width;
+            final int offset = i % width;
+            final int col = (row & 1) == 0 ? offset + 1 : width - offset;
+            body[length - 1 - i] = Math.floorMod(head / cols + row, rows) * cols + Math.floorMod(head % cols - col, cols);
+        }
+
+        final boolean indexed = cols * rows <= SnakeSimulation.FREE_INDEX_LIMIT;
+        final ByteBuffer state = ByteBuffer.allocate(indexed ? simulation.getMaxStateSize() : HEADER_SIZE + 8 + 4 * length);
+        simulation.writeState(state);
+        state.put(DIRECTION_OFFSET, (byte)Snake.Direction.RIGHT.ordinal());
+        state.putInt(FOOD_OFFSET, -1);
+        state.position(HEADER_SIZE);
+        state.putInt(length);
+        for (int cell : body)
+            state.putInt(cell);
+        if (!indexed) {
+            state.putInt(0);
+        } else {
+            final boolean[] taken = new boolean[cols * rows];
+            taken[head] = true;
+            for (int cell : body)
+                taken[cell] = true;
+            state.putInt(cols * rows - length - 1);
+            for (int cell = 0; cell < taken.length; cell++)
+                if (!taken[cell])
+                    state.putInt(cell);
+        }
+        state.flip();
+        simulation.readState(state);
+    }
+
+}
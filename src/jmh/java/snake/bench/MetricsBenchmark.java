@@ -0,0 +1,56 @@
+package snake.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import snake.metrics.FrameMetrics;
+import snake.metrics.Histogram;
+
+/**
+ * Cost the metrics add to every frame: one histogram value, and the full set
+ * of per-frame records the game makes. Run with {@code -prof gc} to confirm
+ * that neither allocates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dtinylog.level=info")
+public class MetricsBenchmark {
+
+    private final Histogram histogram = new Histogram();
+    private final FrameMetrics frames = new FrameMetrics(1, TimeUnit.SECONDS);
+    private long value;
+
+    @Setup
+    public void setup() {
+        this.value = 16_000_000L;
+    }
+
+    @Benchmark
+    public void record() {
+        // Vary the value so that different buckets are hit
+        this.value = this.value * 6364136223846793005L + 1442695040888963407L;
+        this.histogram.record((this.value >>> 40) + 1_000_000L);
+    }
+
+    @Benchmark
+    public void frame() {
+        final long start = System.nanoTime();
+        this.frames.startFrame(start);
+        this.frames.recordUpdate(20_000L, 1);
+        this.frames.recordRender(150_000L);
+        this.frames.recordSwap(System.nanoTime() - start);
+    }
+
+}
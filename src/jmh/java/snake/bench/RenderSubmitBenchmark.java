@@ -0,0 +1,50 @@
+package snake.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import snake.render.RecordingRenderer;
+
+/**
+ * Per-frame render submission against the {@link RecordingRenderer}, which
+ * batches like the GL backend but never touches a GPU.
+ * Each operation submits one frame of {@code blocks} blocks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dtinylog.level=info")
+public class RenderSubmitBenchmark {
+
+    private static final Vector3f color = new Vector3f(1.0f, 1.0f, 1.0f);
+
+    @Param({ "16", "256", "4096", "65536" })
+    public int blocks;
+
+    private final Matrix4f projection = new Matrix4f();
+    private final RecordingRenderer renderer = new RecordingRenderer();
+
+    @Benchmark
+    public long batch() {
+        final RecordingRenderer renderer = this.renderer;
+        renderer.begin(this.projection);
+        for (int i = 0; i < this.blocks; i++)
+            renderer.drawBlock(i & 1023, i >>> 10, color);
+        renderer.end();
+        return renderer.getFrameBytesUploaded();
+    }
+
+}
@@ -0,0 +1,86 @@
+package snake.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import snake.sim.RewindBuffer;
+import snake.sim.SeededRandom;
+import snake.sim.Snake;
+import snake.sim.SnakeSimulation;
+
+/**
+ * Rewind history: {@code seek} restores a random tick from five minutes of
+ * recorded play, {@code recordStep} is the per-tick cost of stepping and
+ * recording. The memory held by the history is printed at setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g", "-Dtinylog.level=info" })
+public class RewindBenchmark {
+
+    private static final int TICKS = 5 * 60 * 60;
+    private static final int BUDGET = 8 * 1024 * 1024;
+    private static final Snake.Direction[] turns = {
+            Snake.Direction.LEFT, Snake.Direction.UP, Snake.Direction.RIGHT, Snake.Direction.UP
+    };
+
+    @Param({ "40x30", "256x256" })
+    public String grid;
+
+    @Param({ "60" })
+    public int keyframeInterval;
+
+    private SnakeSimulation simulation;
+    private SnakeSimulation target;
+    private RewindBuffer rewind;
+    private final SeededRandom random = new SeededRandom(42L);
+    private int turn;
+
+    @Setup
+    public void setup() {
+        final int[] size = Grids.parse(this.grid);
+        this.simulation = new SnakeSimulation(size[0], size[1], 42L);
+        this.target = new SnakeSimulation(size[0], size[1], 0L);
+        this.rewind = new RewindBuffer(this.simulation, BUDGET, TICKS, this.keyframeInterval);
+        this.rewind.record();
+        for (int i = 0; i < TICKS; i++)
+            recordStep();
+        System.out.printf("%nHistory: ticks %d..%d, %d bytes retained, %d bytes reserved%n",
+                this.rewind.getOldestTick(), this.rewind.getNewestTick(),
+                this.rewind.getRetainedBytes(), this.rewind.getMemoryFootprint());
+    }
+
+    @Benchmark
+    public long seek() {
+        final long oldest = this.rewind.getOldestTick();
+        final long tick = oldest + this.random.nextInt((int)(this.rewind.getNewestTick() - oldest + 1));
+        this.rewind.seek(tick, this.target);
+        return this.target.getTick();
+    }
+
+    @Benchmark
+    public long recordStep() {
+        final SnakeSimulation simulation = this.simulation;
+        if (!simulation.isAlive() || simulation.isWon())
+            simulation.reset(simulation.getSeed() + 1);
+        if ((simulation.getTick() & 127) == 0)
+            simulation.turn(turns[this.turn++ & 3]);
+        simulation.step();
+        this.rewind.record();
+        return simulation.getTick();
+    }
+
+}
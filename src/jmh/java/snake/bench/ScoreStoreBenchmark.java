@@ -0,0 +1,138 @@
+package snake.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import snake.scores.Leaderboard;
+import snake.scores.ScoreLog;
+import snake.sim.SeededRandom;
+
+/**
+ * High score store over a log of {@code games} random games, about
+ * {@code gamesPerSeed} per seed, so the largest puts every game on one seed:
+ * {@code append} records a game in a fresh log, {@code reopen} recovers
+ * the whole log and rebuilds the leaderboard as at startup, and {@code top},
+ * {@code best} and {@code games} are leaderboard queries. The log's size on
+ * disk is printed at setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g", "-Dtinylog.level=info" })
+public class ScoreStoreBenchmark {
+
+    private static final int TOP_SIZE = 10;
+
+    @Param({ "1000000", "10000000", "30000000" })
+    public int games;
+
+    @Param({ "4", "30000000" })
+    public int gamesPerSeed;
+
+    private Path path;
+    private ScoreLog log;
+    private Leaderboard leaderboard;
+    private int seeds;
+    private final SeededRandom random = new SeededRandom(42L);
+    private final int[] records = new int[TOP_SIZE];
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.path = Files.createTempFile("scores", ".log");
+        this.log = new ScoreLog(this.path);
+        this.seeds = Math.max(1, this.games / this.gamesPerSeed);
+        append(this.log, this.random, this.games, this.seeds);
+        this.leaderboard = new Leaderboard(this.log, TOP_SIZE);
+        System.out.printf("%nLog: %d games, %d seeds, %d MB%n", this.log.size(), this.leaderboard.getSeeds(),
+                Files.size(this.path) >> 20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.log.close();
+        Files.delete(this.path);
+    }
+
+    /**
+     * A log of its own, started afresh every iteration.
+     */
+    @State(Scope.Thread)
+    public static class Appender {
+
+        private Path path;
+        ScoreLog log;
+        Leaderboard leaderboard;
+        final SeededRandom random = new SeededRandom(7L);
+
+        @Setup(Level.Iteration)
+        public void setup() throws IOException {
+            this.path = Files.createTempFile("scores", ".log");
+            this.log = new ScoreLog(this.path);
+            this.leaderboard = new Leaderboard(this.log, TOP_SIZE);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            this.log.close();
+            Files.delete(this.path);
+        }
+
+    }
+
+    @Benchmark
+    public int append(final Appender appender) throws IOException {
+        final int record = appender.log.append(appender.random.nextInt(1000), 10, 6000L,
+                appender.random.nextInt(1 << 20), 0L);
+        appender.leaderboard.add(record);
+        return record;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int reopen() throws IOException {
+        try (ScoreLog log = new ScoreLog(this.path)) {
+            return new Leaderboard(log, TOP_SIZE).size();
+        }
+    }
+
+    @Benchmark
+    public int top() {
+        return this.leaderboard.getTop(this.records);
+    }
+
+    @Benchmark
+    public int best() {
+        return this.leaderboard.getBest(this.random.nextInt(this.seeds));
+    }
+
+    @Benchmark
+    public int games() {
+        return this.leaderboard.getGames(this.random.nextInt(this.seeds), this.records);
+    }
+
+    private static void append(final ScoreLog log, final SeededRandom random, final int games, final int seeds)
+            throws IOException {
+        for (int i = 0; i < games; i++)
+            log.append(random.nextInt(1000), 10 + random.nextInt(100), 6000L + random.nextInt(60000),
+                    random.nextInt(seeds), 1700000000000L + i);
+    }
+
+}
@@ -0,0 +1,85 @@
+package snake.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import snake.sim.IntRingBuffer;
+import snake.sim.OccupancyGrid;
+
+/**
+ * Cost of one body move plus self-collision check against snake length.
+ * <p>
+ * The snake walks the cells of a 1024x1024 grid in index order, which keeps
+ * every body cell distinct. {@code occupancy} is the check the simulation
+ * uses; {@code linearScan} is the previous walk over the whole body, kept as
+ * the baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dtinylog.level=info")
+public class SelfCollisionBenchmark {
+
+    private static final int COLS = 1024;
+    private static final int ROWS = 1024;
+    private static final int CELLS = COLS * ROWS;
+
+    @Param({ "16", "256", "4096", "65536", "524288" })
+    public int length;
+
+    private OccupancyGrid occupancy;
+    private IntRingBuffer body;
+    private int head;
+
+    @Setup
+    public void setup() {
+        this.occupancy = new OccupancyGrid(COLS, ROWS);
+        this.body = new IntRingBuffer(this.length);
+        for (int cell = 0; cell < this.length; cell++) {
+            this.body.addLast(cell);
+            this.occupancy.set(cell);
+        }
+        this.head = this.length;
+    }
+
+    @Benchmark
+    public boolean occupancy() {
+        final int current = this.head;
+        this.head = current + 1 == CELLS ? 0 : current + 1;
+        this.occupancy.clear(this.body.removeFirst());
+        final boolean hit = this.occupancy.get(current);
+        this.body.addLast(current);
+        this.occupancy.set(current);
+        return hit;
+    }
+
+    @Benchmark
+    public boolean linearScan() {
+        final int current = this.head;
+        this.head = current + 1 == CELLS ? 0 : current + 1;
+        this.occupancy.clear(this.body.removeFirst());
+        boolean hit = false;
+        for (int i = 0; i < this.body.size(); i++) {
+            if (this.body.get(i) == current) {
+                hit = true;
+                break;
+            }
+        }
+        this.body.addLast(current);
+        this.occupancy.set(current);
+        return hit;
+    }
+
+}
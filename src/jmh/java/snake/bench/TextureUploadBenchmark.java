@@ -0,0 +1,146 @@
+package snake.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.joml.Matrix4f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import snake.render.GameScene;
+import snake.render.GridTextureScene;
+import snake.render.RecordingGridTexture;
+import snake.render.RecordingRenderer;
+import snake.sim.DirtyCells;
+import snake.sim.Snake;
+import snake.sim.SnakeSimulation;
+
+/**
+ * One tick and one frame per operation, drawn by the dirty-cell
+ * {@link GridTextureScene} into the stub {@link RecordingGridTexture} or, for
+ * comparison, by the {@link GameScene} into the {@link RecordingRenderer}.
+ * The snake sweeps back and forth through the columns beside its coil, so it
+ * stays alive without the cost of any smarter steering.
+ * <p>
+ * Bytes uploaded per tick are printed at the end of each trial: for the
+ * texture they stay the same whatever the length of the snake, leaving out
+ * whole-board uploads such as the first.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dtinylog.level=info")
+public class TextureUploadBenchmark {
+
+    @Param({ "256x256" })
+    public String grid;
+
+    @Param({ "10", "1000", "10000" })
+    public int length;
+
+    private SnakeSimulation simulation;
+    private DirtyCells dirtyCells;
+    private GridTextureScene textureScene;
+    private final GameScene scene = new GameScene();
+    private final RecordingRenderer renderer = new RecordingRenderer();
+    private final Matrix4f projection = new Matrix4f();
+    private long ticks;
+    private long blockBytes;
+    private int sweepCol;
+    private int sweepWidth;
+    private int turnedAt;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final int[] size = Grids.parse(this.grid);
+        this.simulation = new SnakeSimulation(size[0], size[1], 42L);
+        this.dirtyCells = new DirtyCells(1024);
+        this.simulation.setDirtyCells(this.dirtyCells);
+        this.textureScene = new GridTextureScene(new RecordingGridTexture(), this.dirtyCells);
+        coil();
+        this.textureScene.update(this.simulation);
+        this.ticks = 0;
+        this.blockBytes = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        final GridTextureScene scene = this.textureScene;
+        final long cells = (long)this.simulation.getGridCols() * this.simulation.getGridRows();
+        final long incremental = scene.getBytesUploaded() - scene.getFullUploads() * cells;
+        if (this.blockBytes == 0)
+            System.out.printf("%nBody %d: %.2f bytes uploaded per tick over %d ticks, %d whole-board uploads left out%n",
+                    this.simulation.getBodyLength(), (double)incremental / Math.max(1, this.ticks - scene.getFullUploads() + 1),
+                    this.ticks, scene.getFullUploads());
+        else
+            System.out.printf("%nBody %d: %.0f bytes per frame in blocks%n",
+                    this.simulation.getBodyLength(), (double)this.blockBytes / Math.max(1, this.ticks));
+    }
+
+    private void step() {
+        final SnakeSimulation simulation = this.simulation;
+        if (!simulation.isAlive())
+            coil();
+        sweep(simulation);
+        simulation.step();
+        this.ticks++;
+    }
+
+    private void coil() {
+        Grids.coil(this.simulation, this.length);
+        final int cols = this.simulation.getGridCols();
+        this.sweepCol = this.simulation.getHeadCell() % cols;
+        this.sweepWidth = cols - Math.min(cols - 2, 64) - 1;  // Columns right of the coil
+        this.turnedAt = -1;
+    }
+
+    /**
+     * Turns down at either side of the columns right of the coil, then back
+     * across once the head has moved down a row.
+     */
+    private void sweep(final SnakeSimulation simulation) {
+        final int head = simulation.getHeadCell();
+        final int offset = Math.floorMod(head % simulation.getGridCols() - this.sweepCol, simulation.getGridCols());
+        switch (simulation.getSnake().direction) {
+            case RIGHT:
+                if (offset >= this.sweepWidth - 1 && simulation.turn(Snake.Direction.DOWN))
+                    this.turnedAt = head;
+                break;
+            case LEFT:
+                if (offset == 0 && simulation.turn(Snake.Direction.DOWN))
+                    this.turnedAt = head;
+                break;
+            default:
+                if (head != this.turnedAt)
+                    simulation.turn(offset == 0 ? Snake.Direction.RIGHT : Snake.Direction.LEFT);
+                break;
+        }
+    }
+
+    @Benchmark
+    public long texture() {
+        step();
+        this.textureScene.update(this.simulation);
+        return this.textureScene.getFrameBytesUploaded();
+    }
+
+    @Benchmark
+    public long blocks() {
+        step();
+        this.scene.draw(this.simulation, 1.0f, this.renderer, this.projection);
+        this.blockBytes += this.renderer.getFrameBytesUploaded();
+        return this.renderer.getFrameBytesUploaded();
+    }
+
+}
@@ -0,0 +1,58 @@
+package snake.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import snake.sim.Snake;
+import snake.sim.SnakeSimulation;
+
+/**
+ * Simulation throughput: one {@link SnakeSimulation#step()} per operation,
+ * turning now and then and restarting whenever the game ends.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g", "-Dtinylog.level=info" })
+public class TickBenchmark {
+
+    private static final Snake.Direction[] turns = {
+            Snake.Direction.LEFT, Snake.Direction.UP, Snake.Direction.RIGHT, Snake.Direction.UP
+    };
+
+    @Param({ "40x30", "256x256", "1024x1024", "4096x4096" })
+    public String grid;
+
+    private SnakeSimulation simulation;
+    private int turn;
+
+    @Setup
+    public void setup() {
+        final int[] size = Grids.parse(this.grid);
+        this.simulation = new SnakeSimulation(size[0], size[1], 42L);
+    }
+
+    @Benchmark
+    public long tick() {
+        final SnakeSimulation simulation = this.simulation;
+        if (!simulation.isAlive() || simulation.isWon())
+            simulation.reset(simulation.getSeed() + 1);
+        if ((simulation.getTick() & 127) == 0)
+            simulation.turn(turns[this.turn++ & 3]);
+        simulation.step();
+        return simulation.getTick();
+    }
+
+}
@@ -0,0 +1,83 @@
+package snake.bench;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import snake.env.VectorEnv;
+import snake.sim.SeededRandom;
+
+/**
+ * Vectorized environment on one core: one operation steps every game in the
+ * batch once with random actions, auto-resets included. The {@code steps}
+ * counter reports game steps/s, whatever the batch size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g", "-Dtinylog.level=info" })
+public class VectorEnvBenchmark {
+
+    private static final int ACTION_SETS = 64;
+
+    @Param({ "1", "16", "256", "4096" })
+    public int envs;
+
+    @Param({ "10x10", "40x30" })
+    public String grid;
+
+    private VectorEnv env;
+    private int[][] actions;
+    private int next;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long steps;
+    }
+
+    @Setup
+    public void setup() {
+        final int[] size = Grids.parse(this.grid);
+        final FloatBuffer observations = ByteBuffer
+                .allocateDirect(this.envs * VectorEnv.observationSize(size[0], size[1]) * Float.BYTES)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        final FloatBuffer rewards = ByteBuffer.allocateDirect(this.envs * Float.BYTES)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        final ByteBuffer dones = ByteBuffer.allocateDirect(this.envs);
+        this.env = new VectorEnv(this.envs, size[0], size[1], observations, rewards, dones);
+
+        final SeededRandom random = new SeededRandom(42L);
+        final long[] seeds = new long[this.envs];
+        for (int i = 0; i < this.envs; i++)
+            seeds[i] = random.nextLong();
+        this.env.reset(seeds);
+        this.actions = new int[ACTION_SETS][this.envs];
+        for (int[] set : this.actions)
+            for (int i = 0; i < this.envs; i++)
+                set[i] = random.nextInt(4);
+    }
+
+    @Benchmark
+    public long step(final Counters counters) {
+        this.env.step(this.actions[this.next++ & (ACTION_SETS - 1)]);
+        counters.steps += this.envs;
+        return this.env.getSteps();
+    }
+
+}
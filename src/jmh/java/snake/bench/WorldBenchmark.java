@@ -0,0 +1,82 @@
+package snake.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.joml.Matrix4f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import snake.render.Camera;
+import snake.render.GameScene;
+import snake.render.RecordingRenderer;
+import snake.sim.OccupancyGrid;
+import snake.sim.SnakeSimulation;
+
+/**
+ * Boards from the window's 40x30 to about as many cells as a cell index can
+ * address. {@code frame} submits one frame of a 40x30 cell view that follows
+ * the head; {@code step} ticks the simulation. The snake is coiled around its
+ * head so the view is full of body. The memory held by the occupancy is
+ * printed at setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dtinylog.level=info")
+public class WorldBenchmark {
+
+    private static final int VIEW_COLS = 40;
+    private static final int VIEW_ROWS = 30;
+
+    @Param({ "40x30", "1024x1024", "8192x8192", "46340x46340" })
+    public String grid;
+
+    @Param({ "100", "10000" })
+    public int length;
+
+    private SnakeSimulation simulation;
+    private final GameScene scene = new GameScene();
+    private final Camera camera = new Camera(VIEW_COLS, VIEW_ROWS);
+    private final RecordingRenderer renderer = new RecordingRenderer();
+    private final Matrix4f projection = new Matrix4f();
+    private float alpha = 0;
+
+    @Setup
+    public void setup() {
+        final int[] size = Grids.parse(this.grid);
+        this.simulation = new SnakeSimulation(size[0], size[1], 42L);
+        Grids.coil(this.simulation, this.length);
+        final OccupancyGrid occupancy = this.simulation.getOccupancy();
+        System.out.printf("%nBoard: %d cells, body %d, %d chunks, %d bytes of occupancy%n",
+                (long)size[0] * size[1], this.simulation.getBodyLength(),
+                occupancy.getChunkCount(), occupancy.getMemoryFootprint());
+    }
+
+    @Benchmark
+    public long frame() {
+        this.alpha = this.alpha >= 1.0f ? 0.0f : this.alpha + 0.125f;
+        this.camera.follow(this.simulation, this.alpha);
+        this.scene.draw(this.simulation, this.alpha, this.renderer, this.projection, this.camera);
+        return this.renderer.getFrameBytesUploaded();
+    }
+
+    @Benchmark
+    public long step() {
+        final SnakeSimulation simulation = this.simulation;
+        if (!simulation.isAlive())
+            Grids.coil(simulation, this.length);
+        simulation.step();
+        return simulation.getTick();
+    }
+
+}
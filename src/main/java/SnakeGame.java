@@ -1,13 +1,12 @@
+import java.io.IOException;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 
 import org.joml.Matrix4f;
-import org.joml.Random;
-import org.joml.Vector2f;
 import org.joml.Vector3f;
-import org.lwjgl.BufferUtils;
+import org.joml.Vector3fc;
 import org.lwjgl.Version;
 import org.lwjgl.glfw.Callbacks;
 import org.lwjgl.glfw.GLFWErrorCallback;
@@ -20,6 +19,36 @@ import org.lwjgl.opengl.GL30;
 import org.lwjgl.system.MemoryStack;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import snake.ai.Autopilot;
+import snake.capture.FrameWriter;
+import snake.capture.PboCapture;
+import snake.loop.FrameLoop;
+import snake.loop.FrameState;
+import snake.loop.KeyEventQueue;
+import snake.loop.SimulationThread;
+import snake.loop.TurnInput;
+import snake.metrics.FrameMetrics;
+import snake.metrics.GcMonitor;
+import snake.metrics.MetricsReporter;
+import snake.metrics.RuntimeMetrics;
+import snake.metrics.StartupTimer;
+import snake.render.Camera;
+import snake.render.FrameTimeOverlay;
+import snake.render.GameScene;
+import snake.render.GlGridTexture;
+import snake.render.GridTexture;
+import snake.render.GridTextureScene;
+import snake.render.InstancedRenderer;
+import snake.render.Renderer;
+import snake.render.SoftwareRenderer;
+import snake.replay.ReplayWriter;
+import snake.scores.GameScore;
+import snake.scores.ScoreStore;
+import snake.sim.DirtyCells;
+import snake.sim.GameView;
+import snake.sim.RewindBuffer;
+import snake.sim.Snake;
+import snake.sim.SnakeSimulation;
 
 import static org.lwjgl.glfw.GLFW.GLFW_CONTEXT_VERSION_MAJOR;
 import static org.lwjgl.glfw.GLFW.GLFW_CONTEXT_VERSION_MINOR;
@@ -28,7 +57,9 @@ import static org.lwjgl.glfw.GLFW.GLFW_FALSE;
 import static org.lwjgl.glfw.GLFW.GLFW_KEY_A;
 import static org.lwjgl.glfw.GLFW.GLFW_KEY_D;
 import static org.lwjgl.glfw.GLFW.GLFW_KEY_ESCAPE;
+import static org.lwjgl.glfw.GLFW.GLFW_KEY_F3;
 import static org.lwjgl.glfw.GLFW.GLFW_KEY_LAST;
+import static org.lwjgl.glfw.GLFW.GLFW_KEY_R;
 import static org.lwjgl.glfw.GLFW.GLFW_KEY_S;
 import static org.lwjgl.glfw.GLFW.GLFW_KEY_UNKNOWN;
 import static org.lwjgl.glfw.GLFW.GLFW_KEY_W;
@@ -37,7 +68,6 @@ import static org.lwjgl.glfw.GLFW.GLFW_OPENGL_FORWARD_COMPAT;
 import static org.lwjgl.glfw.GLFW.GLFW_OPENGL_PROFILE;
 import static org.lwjgl.glfw.GLFW.GLFW_PRESS;
 import static org.lwjgl.glfw.GLFW.GLFW_RELEASE;
-import static org.lwjgl.glfw.GLFW.GLFW_REPEAT;
 import static org.lwjgl.glfw.GLFW.GLFW_RESIZABLE;
 import static org.lwjgl.glfw.GLFW.GLFW_TRUE;
 import static org.lwjgl.glfw.GLFW.GLFW_VISIBLE;
@@ -65,8 +95,6 @@ import static org.lwjgl.glfw.GLFW.glfwSwapInterval;
 import static org.lwjgl.glfw.GLFW.glfwTerminate;
 import static org.lwjgl.glfw.GLFW.glfwWindowHint;
 import static org.lwjgl.glfw.GLFW.glfwWindowShouldClose;
-import static org.lwjgl.system.MemoryStack.stackMallocFloat;
-import static org.lwjgl.system.MemoryStack.stackMallocInt;
 import static org.lwjgl.system.MemoryStack.stackPush;
 import static org.lwjgl.system.MemoryUtil.NULL;
 
@@ -77,19 +105,22 @@ public class SnakeGame {
     public static CharSequence[] vertexShaderSource = {
             "#version 330 core\n",
             "layout (location = 0) in vec3 a_Position;\n",
+            "layout (location = 1) in vec2 a_Offset;\n",
+            "layout (location = 2) in vec3 a_Color;\n",
             "uniform mat4 u_Projection;\n",
-            "uniform mat4 u_Model;\n",
+            "out vec3 v_Color;\n",
             "void main() {\n",
-            "  gl_Position = u_Projection * u_Model * vec4(a_Position, 1.0f);\n",
+            "  v_Color = a_Color;\n",
+            "  gl_Position = u_Projection * vec4(a_Position.xy + a_Offset, a_Position.z, 1.0f);\n",
             "}"
     };
 
     public static CharSequence[] fragmentShaderSource = {
             "#version 330 core\n",
-            "uniform vec3 u_Color;\n",
+            "in vec3 v_Color;\n",
             "out vec4 fragColor;\n",
             "void main() {\n",
-            "  fragColor = vec4(u_Color, 1.0f);\n",
+            "  fragColor = vec4(v_Color, 1.0f);\n",
             "}"
     };
 
@@ -105,22 +136,15 @@ public class SnakeGame {
             2, 1, 3,  // second triangle
     };
 
-    private static final Vector3f snakeHeadColor = new Vector3f(0.0f, 1.0f, 1.0f);  // Cyan
-    private static final Vector3f snakeTailColor = new Vector3f(1.0f, 1.0f, 1.0f);  // White
-    private static final Vector3f deadSnakeColor = new Vector3f(1.0f, 0.0f, 0.0f);  // Red
-    private static final Vector3f foodColor = new Vector3f (1.0f, 0.9f, 0.0f);  // Yellow
-
-    private static class Snake {
-        public static enum Direction { UP, DOWN, LEFT, RIGHT }
-        public Direction direction = Direction.UP;
-        public Vector2f head = new Vector2f();
-        public List<Vector2f> tail = new ArrayList<Vector2f>();
-        public boolean growing = false;
-        public boolean alive = true;
-        public float velocity = 0.1f;
-    }
+    private static final Vector3fc clearColor = new Vector3f(1.0f, 0.0f, 0.0f);  // Red
+
+    private static final int REWIND_TICKS = 5 * 60;  // 5 seconds
+    private static final int REWIND_BUDGET = 8 * 1024 * 1024;
+    private static final int BLOCK_SIZE = 20;  // Pixels per cell once the board no longer fits the window
 
-    private final Random random = new Random();
+    // First, so that it times the rest of construction
+    private final StartupTimer startup = new StartupTimer();
+    private boolean started = false;
 
     private long window;
     private final String title = "Snake Game";
@@ -128,34 +152,82 @@ public class SnakeGame {
     private int height = 600;
     private int fbWidth = width;
     private int fbHeight = height;
-    private final boolean[] keyPressed = new boolean[GLFW_KEY_LAST + 1];
 
-    private final int gridCols = width / 20;
-    private final int gridRows = height / 20;
+    // -Dsnake.grid=<cols>x<rows> plays on a board of any size; larger than
+    // the window, the camera follows the head
+    private final int gridCols = gridSize(0, width / 20);
+    private final int gridRows = gridSize(1, height / 20);
 
-    private final Snake snake = new Snake();
-    {
-        this.snake.head.x = (float)(this.gridCols / 2);
-        this.snake.head.y = (float)(this.gridRows / 2);
-    }
-    private final Vector2f food = new Vector2f();
-    {
-        placeFood();
-    }
-    private int score = 0;
+    private final SnakeSimulation simulation = new SnakeSimulation(this.gridCols, this.gridRows, System.nanoTime());
 
     private int shaderProgram;
-    private int shaderProjUniform;
-    private int shaderModelUniform;
-    private int shaderColorUniform;
 
     private int blockVao;
     private int blockVbo;
     private int blockEbo;
 
-    private Matrix4f projectionMatrix = new Matrix4f();
-    private final Matrix4f modelMatrix = new Matrix4f();
-    private final FloatBuffer matrixBuffer = BufferUtils.createFloatBuffer(16);
+    private Renderer renderer;
+    private final GameScene scene = new GameScene();
+
+    // With -Dsnake.render=texture the board is kept in a texture of one texel
+    // per cell, and each frame only uploads the cells the simulation changed
+    private final boolean textureMode = "texture".equals(System.getProperty("snake.render"));
+    private GridTexture gridTexture;
+    private GridTextureScene textureScene;
+    private final Camera camera = new Camera(this.gridCols, this.gridRows);
+
+    private final FrameLoop loop = new FrameLoop(this.simulation, 60);
+    private ReplayWriter replay;
+    // With -Dsnake.scores=<file> every game is recorded there on exit, and
+    // the best are logged
+    private ScoreStore scores;
+    // No rewind on boards so large that two keyframes overflow the budget
+    private final RewindBuffer rewind = 2L * (this.simulation.getMaxStateSize() + 1) <= REWIND_BUDGET
+            ? new RewindBuffer(this.simulation, REWIND_BUDGET, 5 * 60 * 60, 60) : null;
+    {
+        this.loop.setRewindBuffer(this.rewind);
+        this.loop.setBeforeStep(this::applyInput);
+        if (this.rewind != null)
+            this.rewind.record();
+    }
+    private volatile boolean rewindRequested = false;
+
+    // With -Dsnake.threaded=true the simulation ticks on its own thread and
+    // the render loop draws the newest state it published
+    private final boolean threaded = Boolean.getBoolean("snake.threaded");
+    private SimulationThread simulationThread;
+
+    // Direction key presses, queued by the key callback and applied one per
+    // tick by whichever thread steps the simulation
+    private final KeyEventQueue keyEvents = new KeyEventQueue(64);
+    private final TurnInput turnInput = new TurnInput(this.simulation, this.keyEvents, SnakeGame::timeNanos);
+
+    // With -Dsnake.autopilot=true the snake steers itself and keys only rewind
+    private final Autopilot autopilot = Boolean.getBoolean("snake.autopilot")
+            ? new Autopilot(this.gridCols, this.gridRows, Autopilot.DEFAULT_CYCLE_FILL) : null;
+
+    // Runtime metrics: always published over JMX, written to the CSV file
+    // given with -Dsnake.metrics and graphed on screen with F3
+    private final FrameMetrics frameMetrics = new FrameMetrics(1, TimeUnit.SECONDS);
+    private final GcMonitor gcMonitor = new GcMonitor();
+    private final RuntimeMetrics runtimeMetrics = new RuntimeMetrics(this.frameMetrics, this.gcMonitor);
+    private MetricsReporter metricsReporter;
+    private final FrameTimeOverlay overlay = new FrameTimeOverlay(120, 17.5f);
+    private boolean overlayVisible = false;
+    private long lastFrameStart = 0;
+    private long lastTick = 0;
+
+    // With -Dsnake.capture=<directory> every frame is read back and written
+    // there on a background thread, as PNG or with -Dsnake.capture.format=raw
+    private FrameWriter frameWriter;
+    private PboCapture capture;
+
+    private final StringBuilder titleBuilder = new StringBuilder();
+    private int titleScore = -1;
+    private int titleFps = -1;
+
+    private final Matrix4f projectionMatrix = new Matrix4f();
+    private final Matrix4f gridMatrix = new Matrix4f();
 
     private void init() {
         logger.debug("LWJGL " + Version.getVersion());
@@ -172,6 +244,7 @@ public class SnakeGame {
             logger.error("Unable to initialize GLFW");
             throw new IllegalStateException("Unable to initialize GLFW");
         }
+        this.startup.mark("glfw");
 
         long monitor = glfwGetPrimaryMonitor();
         GLFWVidMode vidmode = glfwGetVideoMode(monitor);
@@ -190,7 +263,7 @@ public class SnakeGame {
         glfwWindowHint(GLFW_DECORATED, GLFW_TRUE);
         glfwWindowHint(GLFW_RESIZABLE, GLFW_TRUE);
         glfwWindowHint(GLFW_CONTEXT_VERSION_MAJOR, 3);
-        glfwWindowHint(GLFW_CONTEXT_VERSION_MINOR, 2);
+        glfwWindowHint(GLFW_CONTEXT_VERSION_MINOR, 3);
         glfwWindowHint(GLFW_OPENGL_PROFILE, GLFW_OPENGL_CORE_PROFILE);
         glfwWindowHint(GLFW_OPENGL_FORWARD_COMPAT, GLFW_TRUE);  // XXX: Check Mac still needs this?
         glfwWindowHint(GLFW_VISIBLE, GLFW_FALSE);
@@ -208,13 +281,19 @@ public class SnakeGame {
             if (GLFW_KEY_UNKNOWN == key || key > GLFW_KEY_LAST)
                 return;
             if (GLFW_KEY_ESCAPE == key && GLFW_RELEASE == action) {
-                logger.trace("Key: Escape pressed");
+                if (logger.isTraceEnabled())
+                    logger.trace("Key: Escape pressed");
                 glfwSetWindowShouldClose(window, true);  // Exit on 'Esc'
             }
-            final boolean pressed = GLFW_PRESS == action || GLFW_REPEAT == action;
-            if (GLFW_PRESS == action)
-                logger.trace("Key: #{} pressed", key);
-            this.keyPressed[key] = pressed;
+            if (GLFW_KEY_R == key && GLFW_PRESS == action)
+                this.rewindRequested = true;  // Rewind on 'R'
+            if (GLFW_KEY_F3 == key && GLFW_PRESS == action)
+                this.overlayVisible = !this.overlayVisible;  // Frame time graph on 'F3'
+            if (GLFW_PRESS == action) {
+                if (logger.isTraceEnabled())
+                    logger.trace("Key: #{} pressed", key);
+                queueTurn(key);
+            }
         });
 
         // Setup window size callback
@@ -222,7 +301,8 @@ public class SnakeGame {
             if (window == SnakeGame.this.window && width > 0 && height > 0 && (width != SnakeGame.this.width || height != SnakeGame.this.height)) {
                 SnakeGame.this.width = width;
                 SnakeGame.this.height = height;
-                logger.trace("Window resized: {}x{}", width, height);
+                if (logger.isTraceEnabled())
+                    logger.trace("Window resized: {}x{}", width, height);
             }
         });
 
@@ -231,7 +311,9 @@ public class SnakeGame {
             if (window == SnakeGame.this.window && width > 0 && height > 0 && (width != SnakeGame.this.fbWidth || height != SnakeGame.this.fbHeight)) {
                 SnakeGame.this.fbWidth = width;
                 SnakeGame.this.fbHeight = height;
-                logger.trace("Framebuffer resized: {}x{}", width, height);
+                updateProjection();
+                if (logger.isTraceEnabled())
+                    logger.trace("Framebuffer resized: {}x{}", width, height);
             }
         });
 
@@ -253,6 +335,8 @@ public class SnakeGame {
                 logger.trace("Framebuffer size: {}x{}", this.fbWidth, this.fbHeight);
             }
         }
+        updateProjection();
+        this.startup.mark("window");
 
         // Make the OpenGL context current
         glfwMakeContextCurrent(this.window);
@@ -262,6 +346,7 @@ public class SnakeGame {
 
         // Make the window visible
         glfwShowWindow(this.window);
+        this.startup.mark("context");
 
         // This line is critical for LWJGL's interoperation with GLFW's
         // OpenGL context, or any context that is managed externally.
@@ -269,10 +354,28 @@ public class SnakeGame {
         // creates the GLCapabilities instance and makes the OpenGL
         // bindings available for use.
         GL.createCapabilities();
+        this.startup.mark("capabilities");
 
         // Create GL resources
         createShaderProgram();
+        this.startup.mark("shaders");
         createBlockMesh();
+        this.renderer = new InstancedRenderer(this.shaderProgram, this.blockVao);
+        if (this.textureMode)
+            createTextureScene();
+        this.startup.mark("buffers");
+    }
+
+    private void createTextureScene() {
+        if (this.threaded) {
+            // The simulation thread would be writing the changed cells as they are drawn
+            logger.debug("Texture rendering is not available with a simulation thread");
+            return;
+        }
+        final DirtyCells dirtyCells = new DirtyCells(1024);
+        this.gridTexture = new GlGridTexture();
+        this.textureScene = new GridTextureScene(this.gridTexture, dirtyCells);
+        this.simulation.setDirtyCells(dirtyCells);
     }
 
     private int createShader(int type, CharSequence... source) {
@@ -299,11 +402,6 @@ public class SnakeGame {
         }
         GL20.glDeleteShader(vertexShader);
         GL20.glDeleteShader(fragmentShader);
-        GL20.glUseProgram(this.shaderProgram);
-        this.shaderProjUniform = GL20.glGetUniformLocation(this.shaderProgram, "u_Projection");
-        this.shaderModelUniform = GL20.glGetUniformLocation(this.shaderProgram, "u_Model");
-        this.shaderColorUniform = GL20.glGetUniformLocation(this.shaderProgram, "u_Color");
-        GL20.glUseProgram(0);
     }
 
     private void createBlockMesh() {
@@ -312,7 +410,7 @@ public class SnakeGame {
             GL30.glBindVertexArray(this.blockVao);
 
             // Vertices
-            FloatBuffer verticesBuffer = stackMallocFloat(blockVertices.length * 3);
+            FloatBuffer verticesBuffer = stack.mallocFloat(blockVertices.length * 3);
             verticesBuffer.put(blockVertices);
             verticesBuffer.flip();
             this.blockVbo = GL15.glGenBuffers();
@@ -322,7 +420,7 @@ public class SnakeGame {
             GL30.glEnableVertexAttribArray(0);
 
             // Indices
-            IntBuffer indicesBuffer = stackMallocInt(blockIndices.length);
+            IntBuffer indicesBuffer = stack.mallocInt(blockIndices.length);
             indicesBuffer.put(blockIndices);
             indicesBuffer.flip();
             this.blockEbo = GL15.glGenBuffers();
@@ -335,202 +433,338 @@ public class SnakeGame {
         }
     }
 
-    private void processInput() {
-        // Up
-        if (this.keyPressed[GLFW_KEY_W]) {
-            if (this.snake.direction != Snake.Direction.UP && this.snake.direction != Snake.Direction.DOWN) {
-                logger.trace("Snake: Direction changed - UP");
-                this.snake.direction = Snake.Direction.UP;
-            }
+    private void queueTurn(final int key) {
+        final Snake.Direction direction;
+        switch (key) {
+            case GLFW_KEY_W: direction = Snake.Direction.UP; break;
+            case GLFW_KEY_S: direction = Snake.Direction.DOWN; break;
+            case GLFW_KEY_A: direction = Snake.Direction.LEFT; break;
+            case GLFW_KEY_D: direction = Snake.Direction.RIGHT; break;
+            default: return;
         }
-        // Down
-        if (this.keyPressed[GLFW_KEY_S]) {
-            if (this.snake.direction != Snake.Direction.DOWN && this.snake.direction != Snake.Direction.UP) {
-                logger.trace("Snake: Direction changed - DOWN");
-                this.snake.direction = Snake.Direction.DOWN;
-            }
-        }
-        // Left
-        if (this.keyPressed[GLFW_KEY_A]) {
-            if (this.snake.direction != Snake.Direction.LEFT && this.snake.direction != Snake.Direction.RIGHT) {
-                logger.trace("Snake: Direction changed - LEFT");
-                this.snake.direction = Snake.Direction.LEFT;
-            }
-        }
-        // Right
-        if (this.keyPressed[GLFW_KEY_D]) {
-            if (this.snake.direction != Snake.Direction.RIGHT && this.snake.direction != Snake.Direction.LEFT) {
-                logger.trace("Snake: Direction changed - RIGHT");
-                this.snake.direction = Snake.Direction.RIGHT;
-            }
+        if (!this.keyEvents.offer(direction.ordinal(), timeNanos()) && logger.isTraceEnabled())
+            logger.trace("Key: Event queue full, dropped #{}", key);
+    }
+
+    /**
+     * Applies queued input to the simulation before each step, on whichever
+     * thread steps it.
+     */
+    private void applyInput() {
+        final long tick = this.simulation.getTick();
+        final Snake.Direction direction = this.autopilot != null
+                ? this.autopilot.steer(this.simulation) : this.turnInput.apply();
+        if (direction != null && this.replay != null)
+            this.replay.recordTurn(tick, direction);
+        // Rewind
+        if (this.rewindRequested) {
+            this.rewindRequested = false;
+            rewind();
         }
     }
 
-    private void update() {
-        if (!this.snake.alive)
-            return;
+    private void recordRewind() {
+        if (this.rewind != null)
+            this.rewind.record();
+    }
+
+    private static int gridSize(final int index, final int defaultSize) {
+        final String grid = System.getProperty("snake.grid");
+        if (grid == null)
+            return defaultSize;
+        final String[] size = grid.split("x");
+        if (size.length != 2) {
+            logger.error("Invalid grid size - " + grid);
+            throw new IllegalArgumentException("Invalid grid size: " + grid);
+        }
+        return Integer.parseInt(size[index].trim());
+    }
 
-        updateSnake();
+    private static long timeNanos() {
+        return (long)(glfwGetTime() * 1e9);
+    }
 
-        // Collision detection
-        if ((int)this.snake.head.x == (int)this.food.x && (int)this.snake.head.y == (int)this.food.y) {
-            logger.trace("Snake: Collision with food! Snake{}, Food{}", this.snake.head, this.food);
-            placeFood();  // Move food
-            this.snake.growing = true;  // Set snake to growing
-            this.snake.velocity += 0.02f;
+    private void rewind() {
+        if (this.rewind == null) {
+            logger.debug("Rewind is disabled on a board this large");
+            return;
         }
+        if (this.replay != null) {
+            logger.debug("Rewind is disabled while recording a replay");
+            return;
+        }
+        final long tick = Math.max(this.rewind.getOldestTick(), this.simulation.getTick() - REWIND_TICKS);
+        if (logger.isTraceEnabled())
+            logger.trace("Rewinding to tick {}", tick);
+        this.rewind.rewind(tick);
+        this.turnInput.clear();
     }
 
-    private void updateSnake() {
-        // Grid position pre-update
-        final Vector2f previous = new Vector2f((float)Math.floor(this.snake.head.x), (float)Math.floor(this.snake.head.y));
-
-        // Update head
-        switch (this.snake.direction) {
-            case UP:
-                this.snake.head.y -= this.snake.velocity;
-                if (this.snake.head.y < 0)
-                    this.snake.head.y = this.gridRows + this.snake.head.y;
-                break;
-            case DOWN:
-                this.snake.head.y += this.snake.velocity;
-                if (this.snake.head.y >= this.gridRows)
-                    this.snake.head.y -= this.gridRows;
-                break;
-            case LEFT:
-                this.snake.head.x -= this.snake.velocity;
-                if (this.snake.head.x < 0)
-                    this.snake.head.x = this.gridCols + this.snake.head.x;
-                break;
-            case RIGHT:
-                this.snake.head.x += this.snake.velocity;
-                if (this.snake.head.x >= this.gridCols)
-                    this.snake.head.x -= this.gridCols;
-                break;
+    private void startReplay() {
+        final String path = System.getProperty("snake.replay");
+        if (path == null)
+            return;
+        try {
+            logger.debug("Recording replay: {}", path);
+            this.replay = new ReplayWriter(Paths.get(path), this.gridCols, this.gridRows, this.simulation.getSeed());
+        } catch (IOException e) {
+            logger.error("Unable to record replay - " + e.getMessage());
         }
+    }
 
-        // Grid position post-update
-        final Vector2f current = new Vector2f((float)Math.floor(this.snake.head.x), (float)Math.floor(this.snake.head.y));
+    /**
+     * Starts recording the replay and metrics on a thread of their own, as
+     * registering with JMX takes about as long as creating the window does.
+     * The returned thread must be joined before either is used.
+     */
+    private Thread startServices() {
+        final Thread renderThread = Thread.currentThread();
+        final Thread services = new Thread(() -> {
+            startReplay();
+            startScores();
+            startMetrics(renderThread);
+        }, "startup");
+        services.start();
+        return services;
+    }
 
-        // Update body
-        if (!previous.equals(current)) {
-            // 1. Add current position to end of tail
-            // 2. If not growing remove stat of tail
-            this.snake.tail.add(new Vector2f(previous.x, previous.y));
-            if (!this.snake.growing) {
-                this.snake.tail.remove(0);
-            } else {
-                this.snake.growing = false;
-                this.score++;
-            }
+    private void startScores() {
+        final String path = System.getProperty("snake.scores");
+        if (path == null)
+            return;
+        try {
+            this.scores = new ScoreStore(Paths.get(path), 10);
+            logger.debug("Recording scores: {} ({} games)", path, this.scores.size());
+        } catch (IOException e) {
+            logger.error("Unable to record scores - " + e.getMessage());
         }
+    }
 
-        // Check for snake colliding with itself
-        for (final Vector2f tail : this.snake.tail) {
-            if (tail.equals(current)) {
-                logger.trace("Snake: Dead!");
-                this.snake.alive = false;
-            }
+    private void finishScores() {
+        if (this.scores == null)
+            return;
+        final Snake snake = this.simulation.getSnake();
+        this.scores.record(this.simulation.getScore(), snake.tail.size() + 1, this.simulation.getTick(),
+                this.simulation.getSeed(), System.currentTimeMillis());
+        closeScores();
+    }
+
+    private void closeScores() {
+        if (this.scores == null)
+            return;
+        try {
+            this.scores.close();
+        } catch (IOException e) {
+            logger.error("Unable to close scores - " + e.getMessage());
         }
+        if (logger.isDebugEnabled())
+            for (GameScore score : this.scores.getTop(10))
+                logger.debug("High score {}", score);
+        this.scores = null;
     }
 
-    private void placeFood() {
-        this.food.x = this.random.nextInt(this.gridCols - 1);
-        this.food.y = this.random.nextInt(this.gridRows - 1);
+    private void startMetrics(final Thread renderThread) {
+        this.gcMonitor.watch(renderThread);
+        this.runtimeMetrics.register();
+        final String path = System.getProperty("snake.metrics");
+        if (path == null)
+            return;
+        try {
+            logger.debug("Writing metrics: {}", path);
+            this.metricsReporter = new MetricsReporter(this.runtimeMetrics, this.frameMetrics, Paths.get(path),
+                    10 * 1024 * 1024, 5, 1, TimeUnit.SECONDS);
+        } catch (IOException e) {
+            logger.error("Unable to write metrics - " + e.getMessage());
+        }
     }
 
-    private void drawBlock(final Vector2f position, final Vector3f color) {
-        // Block size and position
-        final int blockWidth = this.fbWidth / this.gridCols;
-        final int blockHeight = this.fbHeight / this.gridRows;
-        // Block position - top left is (0,0)
-        final float blockX = ((float)Math.floor(position.x) * blockWidth);
-        final float blockY = ((float)Math.floor(position.y) * blockHeight);
-        // Render block
-        this.modelMatrix.translation(blockX, blockY, 0.0f);
-        this.modelMatrix.scale(blockWidth, blockHeight, 1.0f);
-        GL20.glUniformMatrix4fv(this.shaderModelUniform, false, this.modelMatrix.get(matrixBuffer));
-        GL20.glUniformMatrix4fv(this.shaderProjUniform, false, this.projectionMatrix.get(matrixBuffer));
-        GL20.glUniform3f(this.shaderColorUniform, color.x, color.y, color.z);
-        GL15.glDrawElements(GL11.GL_TRIANGLES, 6, GL11.GL_UNSIGNED_INT, 0);
+    private void stopMetrics() {
+        if (this.metricsReporter != null)
+            this.metricsReporter.close();
+        this.runtimeMetrics.unregister();
+        this.gcMonitor.close();
     }
 
-    private void drawSnake() {
-        for (Vector2f tail : this.snake.tail) {
-            drawBlock(tail, snakeTailColor);
+    private void startCapture() {
+        final String path = System.getProperty("snake.capture");
+        if (path == null)
+            return;
+        final FrameWriter.Format format = "raw".equalsIgnoreCase(System.getProperty("snake.capture.format"))
+                ? FrameWriter.Format.RAW : FrameWriter.Format.PNG;
+        try {
+            logger.debug("Capturing frames as {}: {}", format, path);
+            this.frameWriter = new FrameWriter(Paths.get(path), format, 8);
+            this.capture = new PboCapture(this.frameWriter, 3);
+        } catch (IOException e) {
+            logger.error("Unable to capture frames - " + e.getMessage());
         }
-        drawBlock(this.snake.head, this.snake.alive ? snakeHeadColor : deadSnakeColor);
     }
 
-    private void drawFood() {
-        drawBlock(this.food, foodColor);
+    private void stopCapture() {
+        if (this.capture == null)
+            return;
+        this.capture.dispose();
+        this.frameWriter.close();
+        logger.debug("Capture: {} frames captured, {} dropped, {} written, {} failed, capture time mean {}us p99 {}us, write time mean {}us",
+                this.frameWriter.getCaptured(), this.frameWriter.getDropped(), this.frameWriter.getWritten(),
+                this.frameWriter.getFailed(), (long)this.capture.getCaptureTimes().getMean() / 1000,
+                this.capture.getCaptureTimes().getPercentile(99) / 1000,
+                (long)this.frameWriter.getWriteTimes().getMean() / 1000);
+        this.capture = null;
+    }
+
+    private void finishReplay() {
+        if (this.replay == null)
+            return;
+        try {
+            final Snake snake = this.simulation.getSnake();
+            this.replay.finish(this.simulation.getTick(), this.simulation.getScore(), snake.tail.size() + 1);
+        } catch (IOException e) {
+            logger.error("Unable to finish replay - " + e.getMessage());
+        }
+        this.replay = null;
     }
 
     private void render() {
-        GL11.glClearColor(1.0f, 0.0f, 0.0f, 1.0f);
+        GL11.glClearColor(clearColor.x(), clearColor.y(), clearColor.z(), 1.0f);
         GL11.glClear(GL11.GL_COLOR_BUFFER_BIT | GL11.GL_DEPTH_BUFFER_BIT);
-        GL20.glUseProgram(this.shaderProgram);
-        GL30.glBindVertexArray(this.blockVao);
-        drawSnake();
-        drawFood();
-        GL30.glBindVertexArray(0);
-        GL20.glUseProgram(0);
+        if (this.threaded) {
+            final FrameState state = this.simulationThread.latest();
+            final float alpha = this.simulationThread.getAlpha(state, System.nanoTime());
+            drawScene(state, alpha);
+        } else {
+            drawScene(this.simulation, this.loop.getAlpha());
+        }
+        if (this.overlayVisible)
+            this.overlay.draw(this.renderer, this.projectionMatrix, this.fbHeight);
+    }
+
+    private void drawScene(final GameView game, final float alpha) {
+        this.camera.follow(game, alpha);
+        if (!this.camera.showsWorld())
+            this.camera.apply(this.projectionMatrix, BLOCK_SIZE, BLOCK_SIZE, this.gridMatrix);
+        if (this.textureScene != null)
+            this.textureScene.draw(game, alpha, this.renderer, this.gridMatrix, this.camera);
+        else
+            this.scene.draw(game, alpha, this.renderer, this.gridMatrix, this.camera);
+    }
+
+    private GameView currentState() {
+        return this.threaded ? this.simulationThread.latest() : this.simulation;
+    }
+
+    private void updateProjection() {
+        this.projectionMatrix.setOrtho2D(0, this.fbWidth, this.fbHeight, 0);
+        if (this.fbWidth < this.gridCols * BLOCK_SIZE || this.fbHeight < this.gridRows * BLOCK_SIZE) {
+            // Board larger than the window - fixed blocks, moved by the camera every frame
+            this.camera.setViewSize(
+                    Math.max(1, (this.fbWidth + BLOCK_SIZE - 1) / BLOCK_SIZE),
+                    Math.max(1, (this.fbHeight + BLOCK_SIZE - 1) / BLOCK_SIZE));
+            return;
+        }
+        this.camera.setViewSize(this.gridCols, this.gridRows);
+        // Block size - top left is (0,0)
+        final int blockWidth = this.fbWidth / this.gridCols;
+        final int blockHeight = this.fbHeight / this.gridRows;
+        this.gridMatrix.set(this.projectionMatrix).scale(blockWidth, blockHeight, 1.0f);
+    }
+
+    private void updateTitle() {
+        final int score = currentState().getScore();
+        final int fps = this.loop.getFps();
+        if (score == this.titleScore && fps == this.titleFps)
+            return;
+        this.titleScore = score;
+        this.titleFps = fps;
+        this.titleBuilder.setLength(0);
+        this.titleBuilder.append(this.title).append(" - Score: ").append(score).append(" FPS: ").append(fps);
+        glfwSetWindowTitle(this.window, this.titleBuilder);
     }
 
     private void run() {
         try {
+            this.startup.mark("construct");
+            final Thread services = startServices();
             init();
 
-            final int targetFrames = 60;
-            final double secondsPerFrame = 1.0d / targetFrames;
-
-            double lastTime = glfwGetTime();
-            double currentTime;
-            double delta;
-            double accumulatedDelta = 0;
-            double fpsTime = 0;
-            int fps = targetFrames;
-            int frameCount = 0;
+            services.join();
+            startCapture();
+            this.startup.mark("services");
+            this.loop.start(glfwGetTime());
+            if (this.threaded) {
+                logger.debug("Running simulation on its own thread");
+                this.simulationThread = new SimulationThread(this.simulation, 60, this::applyInput, this::recordRewind);
+                this.simulationThread.start();
+                this.gcMonitor.watch(this.simulationThread.getThread());
+            }
 
             while (!glfwWindowShouldClose(this.window)) {
-                // Update timers
-                currentTime = glfwGetTime();
-                delta = currentTime - lastTime;
-                lastTime = currentTime;
-                accumulatedDelta += delta;
-                fpsTime += delta;
-
-                // Handle input
-                processInput();
+                final long frameStart = System.nanoTime();
+                this.frameMetrics.startFrame(frameStart);
+                if (this.lastFrameStart != 0)
+                    this.overlay.record(frameStart - this.lastFrameStart);
+                this.lastFrameStart = frameStart;
 
                 // Update game
-                while (accumulatedDelta >= secondsPerFrame) {
-                    update();
-                    accumulatedDelta -= secondsPerFrame;
+                final int ticks;
+                if (this.threaded) {
+                    this.loop.advance(glfwGetTime());
+                    final long tick = this.simulationThread.latest().getTick();
+                    ticks = (int)Math.max(tick - this.lastTick, 0);
+                    this.lastTick = tick;
+                } else {
+                    ticks = this.loop.update(glfwGetTime());
                 }
+                final long updated = System.nanoTime();
+                this.frameMetrics.recordUpdate(updated - frameStart, ticks);
 
                 // Render game
-                this.projectionMatrix = new Matrix4f().ortho2D(0, this.fbWidth, this.fbHeight,0);
                 render();
+                if (this.capture != null)
+                    this.capture.capture(this.fbWidth, this.fbHeight, frameStart);
 
-                // Update fps
-                frameCount++;
-                if (fpsTime >= 1.0d) {
-                    fps = frameCount;
-                    frameCount = 0;
-                    fpsTime -= 1.0d;
-                }
-
-                // Update window title
-                final String title = this.title + " - Score: " + this.score + " FPS: " + fps;
-                glfwSetWindowTitle(this.window, title);
+                // Update fps and window title
+                if (this.loop.endFrame())
+                    updateTitle();
+                final long rendered = System.nanoTime();
+                this.frameMetrics.recordRender(rendered - updated);
 
                 // ...
                 glfwSwapBuffers(this.window);
                 glfwPollEvents();
+                this.frameMetrics.recordSwap(System.nanoTime() - rendered);
+                if (!this.started) {
+                    this.started = true;
+                    this.startup.mark("first frame");
+                    logger.debug("Startup: {}", this.startup);
+                }
+            }
+
+            if (this.threaded) {
+                this.simulationThread.stop();
+                logger.debug("Tick intervals: {}", this.simulationThread.getTickIntervals());
+                logger.debug("Tick durations: {}", this.simulationThread.getTickDurations());
+            } else {
+                logger.debug("Tick intervals: {}", this.loop.getTickIntervals());
             }
+            logger.debug("Frame times: {}, skipped ticks: {}", this.loop.getFrameTimes(),
+                    this.threaded ? this.simulationThread.getSkippedTicks() : this.loop.getSkippedTicks());
+            logger.debug("Input latency: {}, dropped: {}", this.turnInput.getLatency(), this.keyEvents.getDropped());
+
+            finishReplay();
+            finishScores();
+            stopMetrics();
+            stopCapture();
+
+            if (this.textureScene != null)
+                logger.debug("Grid texture: {} frames, {} uploads, {} bytes, {} full uploads",
+                        this.textureScene.getFrames(), this.textureScene.getUploads(),
+                        this.textureScene.getBytesUploaded(), this.textureScene.getFullUploads());
 
             logger.debug("Releasing GL resources");
+            this.renderer.dispose();
+            if (this.gridTexture != null)
+                this.gridTexture.dispose();
             GL15.glDeleteBuffers(this.blockEbo);
             GL15.glDeleteBuffers(this.blockVbo);
             GL30.glDeleteVertexArrays(this.blockVao);
@@ -547,8 +781,35 @@ public class SnakeGame {
         }
     }
 
-    public static void main(String[] args) {
-        new SnakeGame().run();
+    /**
+     * Starts up as far as the first frame with no window or GPU, drawing it
+     * on the CPU instead, and exits; for measuring and training startup.
+     */
+    private void runHeadless() throws InterruptedException {
+        this.startup.mark("construct");
+        final Thread services = startServices();
+
+        final SoftwareRenderer software = new SoftwareRenderer(this.fbWidth, this.fbHeight);
+        this.renderer = software;
+        updateProjection();
+        software.clear(clearColor);
+        drawScene(this.simulation, 1.0f);
+        this.startup.mark("first frame");
+        services.join();
+        this.startup.mark("services");
+        logger.info("Startup: {}", this.startup);
+
+        finishReplay();
+        closeScores();
+        stopMetrics();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        // With -Dsnake.headless=true only startup is run, see runHeadless
+        if (Boolean.getBoolean("snake.headless"))
+            new SnakeGame().runHeadless();
+        else
+            new SnakeGame().run();
     }
 
 }
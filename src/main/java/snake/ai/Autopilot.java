@@ -0,0 +1,408 @@
+package snake.ai;
+
+import java.util.Arrays;
+
+import snake.sim.OccupancyGrid;
+import snake.sim.Snake;
+import snake.sim.SnakeSimulation;
+
+/**
+ * Steers a {@link SnakeSimulation} on its own.
+ * <p>
+ * Once per cell the head enters, it looks for a path to the food with an A*
+ * search over the wrapping grid, treating the body as walls. The first move
+ * of that path is only taken if the tail can still be reached from the cell
+ * it leads to, so the snake does not wall itself in;
+ * otherwise it follows its tail the long way round, which always leaves room
+ * to move and reshapes the body until the food is safe to reach. When the
+ * body covers {@code cycleFill} of the board, or it has chased its tail for a
+ * board's worth of cells without eating, it switches to a fixed Hamiltonian
+ * cycle through every cell, which cannot trap itself once the body lies along
+ * it. Moves along the cycle get the same tail check until then.
+ * <p>
+ * Every move costs the same, so the search needs no priority queue, only a
+ * stack and a deferred list. These, the visited stamps and the first-move and
+ * distance tables are primitive arrays sized to the grid up front and reused
+ * for every search, so deciding never allocates and clearing them costs
+ * nothing. A path only records its first move, which is all a decision needs.
+ */
+public final class Autopilot {
+
+    /**
+     * Default board fraction at which to join the cycle. Joining early,
+     * while the body is short, gives the tail check room to let it on.
+     */
+    public static final double DEFAULT_CYCLE_FILL = 0.1d;
+
+    private static final Snake.Direction[] directions = Snake.Direction.values();
+    private static final int UP = Snake.Direction.UP.ordinal();
+    private static final int DOWN = Snake.Direction.DOWN.ordinal();
+    private static final int LEFT = Snake.Direction.LEFT.ordinal();
+    private static final int RIGHT = Snake.Direction.RIGHT.ordinal();
+    private static final int NONE = -1;
+
+    private final int cols;
+    private final int rows;
+    private final int cycleLength;
+
+    private final int[] queue;
+    private final int[] deferred;  // Search frontier beyond the current bound
+    private final int[] visited;  // Search stamp at which each cell was reached
+    private final byte[] firstMove;  // Direction of the first step on the way to each cell
+    private final int[] distance;  // Steps from the start of a search
+    private final byte[] cycle;  // Direction out of each cell along the cycle, or null
+    private int stamp = 0;
+    private boolean onCycle = false;
+    private int sinceFood = 0;  // Decisions since the score last changed
+    private int lastScore = -1;
+
+    private int decidedCell = -1;
+    private int decidedFood = -1;
+    private long decidedTick = -1;
+    private Snake.Direction decided;
+    private long decisions = 0;
+
+    /**
+     * @param cycleFill fraction of the board the snake must cover before
+     *        following the Hamiltonian cycle, e.g. {@link #DEFAULT_CYCLE_FILL}; above
+     *        {@code 1} never
+     */
+    public Autopilot(final int cols, final int rows, final double cycleFill) {
+        this.cols = cols;
+        this.rows = rows;
+        final int cells = cols * rows;
+        this.queue = new int[cells];
+        this.deferred = new int[cells];
+        this.visited = new int[cells];
+        this.firstMove = new byte[cells];
+        this.distance = new int[cells];
+        this.cycle = buildCycle(cols, rows);
+        this.cycleLength = (int)Math.min(Math.ceil(cycleFill * cells), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Turns the snake if the autopilot wants to. Call once per tick, before
+     * stepping; a decision is only worked out when the head has entered a new
+     * cell or the food has moved.
+     *
+     * @return the direction turned to, or {@code null} if none
+     */
+    public Snake.Direction steer(final SnakeSimulation simulation) {
+        final Snake.Direction direction = decide(simulation);
+        return simulation.turn(direction) ? direction : null;
+    }
+
+    /**
+     * The direction the snake should leave its current cell in.
+     */
+    public Snake.Direction decide(final SnakeSimulation simulation) {
+        final Snake snake = simulation.getSnake();
+        final long tick = simulation.getTick();
+        if (snake.head == this.decidedCell && simulation.getFood() == this.decidedFood && tick >= this.decidedTick)
+            return this.decided;
+        if (tick < this.decidedTick)
+            this.onCycle = false;  // Rewound or reset
+
+        this.decided = directions[choose(simulation)];
+        this.decidedCell = snake.head;
+        this.decidedFood = simulation.getFood();
+        this.decidedTick = tick;
+        this.decisions++;
+        return this.decided;
+    }
+
+    /**
+     * Decisions worked out so far, not counting repeats from the cache.
+     */
+    public long getDecisions() {
+        return this.decisions;
+    }
+
+    private int choose(final SnakeSimulation simulation) {
+        final Snake snake = simulation.getSnake();
+        final OccupancyGrid occupancy = simulation.getOccupancy();
+        final int head = snake.head;
+        final int current = snake.direction.ordinal();
+        final int tailEnd = snake.tail.size() > 0 ? snake.tail.peekFirst() : NONE;
+        // The tail end moves out of the way as the head moves, unless growing
+        final int vacating = snake.growing ? NONE : tailEnd;
+
+        if (simulation.getScore() != this.lastScore) {
+            this.lastScore = simulation.getScore();
+            this.sinceFood = 0;
+        }
+        final boolean stalled = ++this.sinceFood > this.queue.length;
+
+        if (this.cycle != null && (this.onCycle || stalled || snake.tail.size() + 1 >= this.cycleLength)) {
+            final int move = this.cycle[head];
+            if (move != reverse(current) && isOpen(occupancy, neighbour(head, move), vacating)
+                    && (tailEnd == NONE || canReachTail(occupancy, head, move, tailEnd))) {
+                this.onCycle = true;
+                return move;
+            }
+            this.onCycle = false;
+        }
+
+        final int food = simulation.getFood();
+        if (food >= 0) {
+            final int move = search(occupancy, head, NONE, food, reverse(current), vacating);
+            if (move != NONE && (tailEnd == NONE || canReachTail(occupancy, head, move, tailEnd)))
+                return move;
+        }
+
+        // No safe way to the food - chase the tail to buy time
+        if (tailEnd != NONE) {
+            final int move = chaseTail(occupancy, head, current, tailEnd, vacating);
+            if (move != NONE)
+                return move;
+        }
+
+        // Trapped - take any open cell, or carry on and die
+        for (int move = 0; move < 4; move++)
+            if (move != reverse(current) && isOpen(occupancy, neighbour(head, move), vacating))
+                return move;
+        return current;
+    }
+
+    /**
+     * Whether the tail end is reachable once the head has moved one cell in
+     * {@code move}, leaving its old cell as body.
+     */
+    private boolean canReachTail(final OccupancyGrid occupancy, final int head, final int move, final int tailEnd) {
+        final int next = neighbour(head, move);
+        if (next == tailEnd)
+            return true;
+        return search(occupancy, next, head, tailEnd, NONE, tailEnd) != NONE;
+    }
+
+    /**
+     * The move towards the tail that is farthest from it, so that the snake
+     * takes the longest way round rather than circling tightly.
+     */
+    private int chaseTail(final OccupancyGrid occupancy, final int head, final int current, final int tailEnd, final int vacating) {
+        final int stamp = measure(occupancy, tailEnd, head);
+        int best = NONE;
+        int bestDistance = -1;
+        for (int move = 0; move < 4; move++) {
+            if (move == reverse(current))
+                continue;
+            final int next = neighbour(head, move);
+            final int steps;
+            if (next == vacating)
+                steps = 0;
+            else if (this.visited[next] == stamp && next != head)
+                steps = this.distance[next];
+            else
+                continue;
+            if (steps > bestDistance) {
+                best = move;
+                bestDistance = steps;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Breadth-first search from {@code start} over every open cell it can
+     * reach, filling in {@link #distance}.
+     *
+     * @param blocked an extra cell to treat as body
+     * @return the stamp marking the cells reached
+     */
+    private int measure(final OccupancyGrid occupancy, final int start, final int blocked) {
+        final int stamp = nextStamp();
+        final int[] visited = this.visited;
+        final int[] queue = this.queue;
+        final int[] distance = this.distance;
+        visited[start] = stamp;
+        visited[blocked] = stamp;
+        distance[start] = 0;
+        int read = 0;
+        int write = 0;
+        queue[write++] = start;
+        while (read < write) {
+            final int cell = queue[read++];
+            final int col = cell % this.cols;
+            for (int move = 0; move < 4; move++) {
+                final int next = neighbour(cell, col, move);
+                if (visited[next] == stamp || occupancy.get(next))
+                    continue;
+                visited[next] = stamp;
+                distance[next] = distance[cell] + 1;
+                queue[write++] = next;
+            }
+        }
+        return stamp;
+    }
+
+    /**
+     * A* search from {@code start} to {@code target}, guided by the distance
+     * to the target across the wrapping edges.
+     * <p>
+     * Every step costs the same and changes the estimate by at most one, so
+     * instead of a priority queue the cells whose estimated path length is
+     * within the current bound are kept on a stack and the rest are deferred
+     * until the stack runs dry. On open ground this walks straight at the
+     * target; the path found is short but not always the shortest.
+     *
+     * @param blocked an extra cell to treat as body, or {@link #NONE}
+     * @param forbidden a first move that is not allowed, or {@link #NONE}
+     * @param vacating a body cell to treat as open, or {@link #NONE}
+     * @return the first move of a path, or {@link #NONE} if there is none
+     */
+    private int search(final OccupancyGrid occupancy, final int start, final int blocked, final int target,
+                       final int forbidden, final int vacating) {
+        final int stamp = nextStamp();
+        final int[] visited = this.visited;
+        final int[] open = this.queue;
+        final int[] deferred = this.deferred;
+        final int[] distance = this.distance;
+        final byte[] firstMove = this.firstMove;
+        final int targetCol = target % this.cols;
+        final int targetRow = target / this.cols;
+        visited[start] = stamp;
+        if (blocked != NONE)
+            visited[blocked] = stamp;
+
+        int bound = estimate(start, targetCol, targetRow);
+        int nextBound = Integer.MAX_VALUE;
+        int opened = 0;
+        int deferredCount = 0;
+        for (int move = 0; move < 4; move++) {
+            if (move == forbidden)
+                continue;
+            final int next = neighbour(start, move);
+            if (visited[next] == stamp || !isOpen(occupancy, next, vacating))
+                continue;
+            if (next == target)
+                return move;
+            visited[next] = stamp;
+            firstMove[next] = (byte)move;
+            distance[next] = 1;
+            final int cost = 1 + estimate(next, targetCol, targetRow);
+            if (cost <= bound) {
+                open[opened++] = next;
+            } else {
+                deferred[deferredCount++] = next;
+                nextBound = Math.min(nextBound, cost);
+            }
+        }
+        while (true) {
+            if (opened == 0) {
+                if (deferredCount == 0)
+                    return NONE;
+                // Out of cells within the bound - raise it
+                System.arraycopy(deferred, 0, open, 0, deferredCount);
+                opened = deferredCount;
+                deferredCount = 0;
+                bound = nextBound;
+                nextBound = Integer.MAX_VALUE;
+            }
+            final int cell = open[--opened];
+            final int col = cell % this.cols;
+            for (int move = 0; move < 4; move++) {
+                final int next = neighbour(cell, col, move);
+                if (visited[next] == stamp || !isOpen(occupancy, next, vacating))
+                    continue;
+                if (next == target)
+                    return firstMove[cell];
+                visited[next] = stamp;
+                firstMove[next] = firstMove[cell];
+                distance[next] = distance[cell] + 1;
+                final int cost = distance[next] + estimate(next, targetCol, targetRow);
+                if (cost <= bound) {
+                    open[opened++] = next;
+                } else {
+                    deferred[deferredCount++] = next;
+                    nextBound = Math.min(nextBound, cost);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fewest moves from {@code cell} to the target cell on an empty board.
+     */
+    private int estimate(final int cell, final int targetCol, final int targetRow) {
+        final int dx = Math.abs(cell % this.cols - targetCol);
+        final int dy = Math.abs(cell / this.cols - targetRow);
+        return Math.min(dx, this.cols - dx) + Math.min(dy, this.rows - dy);
+    }
+
+    private int nextStamp() {
+        if (++this.stamp == Integer.MAX_VALUE) {
+            Arrays.fill(this.visited, 0);
+            this.stamp = 1;
+        }
+        return this.stamp;
+    }
+
+    private static boolean isOpen(final OccupancyGrid occupancy, final int cell, final int vacating) {
+        return cell == vacating || !occupancy.get(cell);
+    }
+
+    private static int reverse(final int move) {
+        return move ^ 1;  // UP <-> DOWN, LEFT <-> RIGHT
+    }
+
+    /**
+     * The cell next to {@code cell} in direction {@code move}, wrapping around
+     * the edges the way the simulation does.
+     */
+    private int neighbour(final int cell, final int move) {
+        return neighbour(cell, cell % this.cols, move);
+    }
+
+    private int neighbour(final int cell, final int col, final int move) {
+        if (move == UP)
+            return cell < this.cols ? cell + (this.rows - 1) * this.cols : cell - this.cols;
+        if (move == DOWN)
+            return cell >= (this.rows - 1) * this.cols ? col : cell + this.cols;
+        if (move == LEFT)
+            return col == 0 ? cell + this.cols - 1 : cell - 1;
+        return col == this.cols - 1 ? cell - col : cell + 1;
+    }
+
+    /**
+     * A cycle through every cell that does not use the wrap: rows are swept
+     * alternately right and left from column 1, and column 0 leads back up to
+     * the start. Needs an even number of rows, or of columns with the roles
+     * swapped; returns {@code null} if both are odd.
+     */
+    static byte[] buildCycle(final int cols, final int rows) {
+        final boolean transpose = rows % 2 != 0;
+        if (transpose && cols % 2 != 0)
+            return null;
+        // Build in a space where the sweep runs along rows
+        final int height = transpose ? cols : rows;
+        final int width = transpose ? rows : cols;
+        final byte[] cycle = new byte[cols * rows];
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                final int move;
+                if (c == 0)
+                    move = r == 0 ? RIGHT : UP;
+                else if (r % 2 == 0)
+                    move = c == width - 1 ? DOWN : RIGHT;
+                else if (c > 1)
+                    move = LEFT;
+                else
+                    move = r == height - 1 ? LEFT : DOWN;
+                final int cell = transpose ? c * cols + r : r * cols + c;
+                cycle[cell] = (byte)(transpose ? swapAxes(move) : move);
+            }
+        }
+        return cycle;
+    }
+
+    private static int swapAxes(final int move) {
+        if (move == UP)
+            return LEFT;
+        if (move == DOWN)
+            return RIGHT;
+        if (move == LEFT)
+            return UP;
+        return DOWN;
+    }
+
+}
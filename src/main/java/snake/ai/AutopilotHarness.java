@@ -0,0 +1,57 @@
+package snake.ai;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import snake.loop.TimingStats;
+import snake.sim.SnakeSimulation;
+
+/**
+ * Plays whole games with the {@link Autopilot} at full speed and reports how
+ * well it plays and how long its decisions take.
+ * <p>
+ * Usage: {@code AutopilotHarness [games] [cols] [rows] [cycleFill]}.
+ */
+public final class AutopilotHarness {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutopilotHarness.class);
+
+    public static void main(String[] args) {
+        final int games = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        final int cols = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        final int rows = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        final double cycleFill = args.length > 3 ? Double.parseDouble(args[3]) : Autopilot.DEFAULT_CYCLE_FILL;
+
+        final SnakeSimulation simulation = new SnakeSimulation(cols, rows, 1L);
+        final Autopilot autopilot = new Autopilot(cols, rows, cycleFill);
+        final TimingStats latency = new TimingStats();
+        // Ample for a board filled by cycling, which visits every cell per food
+        final long maxTicks = 20L * cols * rows * Math.min((long)cols * rows, 4096L);
+
+        int won = 0;
+        long score = 0;
+        int best = 0;
+        for (int game = 0; game < games; game++) {
+            simulation.reset(game + 1);
+            while (simulation.isAlive() && !simulation.isWon() && simulation.getTick() < maxTicks) {
+                final long decisions = autopilot.getDecisions();
+                final long start = System.nanoTime();
+                autopilot.steer(simulation);
+                final long elapsed = System.nanoTime() - start;
+                if (autopilot.getDecisions() != decisions)
+                    latency.record(elapsed);
+                simulation.step();
+            }
+            if (simulation.isWon())
+                won++;
+            score += simulation.getScore();
+            best = Math.max(best, simulation.getScore());
+            logger.debug("Game {}: score {} in {} ticks, {}", game, simulation.getScore(), simulation.getTick(),
+                    simulation.isWon() ? "won" : simulation.isAlive() ? "timed out" : "died");
+        }
+
+        logger.info("Grid: {}x{}, {} games: {} won, mean score {}, best {} of {}",
+                cols, rows, games, won, (double)score / games, best, cols * rows);
+        logger.info("Decisions: {}/s, latency {}", (long)(1e9 / Math.max(latency.getMeanNanos(), 1)), latency);
+    }
+
+}
@@ -0,0 +1,19 @@
+package snake.batch;
+
+/**
+ * Automated player for games in a {@link GameBatch}.
+ * <p>
+ * Called once per game per tick, possibly from several threads at once for
+ * different games, so implementations must not keep per-game mutable state.
+ */
+public interface BatchPlayer {
+
+    /**
+     * Chooses the direction for the next move of {@code game}.
+     *
+     * @return one of {@link GameBatch#UP}, {@link GameBatch#DOWN},
+     *         {@link GameBatch#LEFT} or {@link GameBatch#RIGHT}
+     */
+    int direction(GameBatch batch, int game);
+
+}
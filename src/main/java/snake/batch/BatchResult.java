@@ -0,0 +1,99 @@
+package snake.batch;
+
+/**
+ * Aggregate results of a finished {@link GameBatch}.
+ */
+public final class BatchResult {
+
+    private final int games;
+    private final long totalScore;
+    private final int maxScore;
+    private final long totalLength;
+    private final int maxLength;
+    private final long totalTicks;
+    private final int wins;
+    private final int unfinished;
+
+    private BatchResult(final int games, final long totalScore, final int maxScore, final long totalLength,
+                        final int maxLength, final long totalTicks, final int wins, final int unfinished) {
+        this.games = games;
+        this.totalScore = totalScore;
+        this.maxScore = maxScore;
+        this.totalLength = totalLength;
+        this.maxLength = maxLength;
+        this.totalTicks = totalTicks;
+        this.wins = wins;
+        this.unfinished = unfinished;
+    }
+
+    public static BatchResult of(final GameBatch batch) {
+        long totalScore = 0;
+        int maxScore = 0;
+        long totalLength = 0;
+        int maxLength = 0;
+        long totalTicks = 0;
+        int wins = 0;
+        int unfinished = 0;
+        for (int game = 0; game < batch.getGames(); game++) {
+            totalScore += batch.getScore(game);
+            maxScore = Math.max(maxScore, batch.getScore(game));
+            totalLength += batch.getLength(game);
+            maxLength = Math.max(maxLength, batch.getLength(game));
+            totalTicks += batch.getTicks(game);
+            if (batch.isWon(game))
+                wins++;
+            else if (batch.isAlive(game))
+                unfinished++;
+        }
+        return new BatchResult(batch.getGames(), totalScore, maxScore, totalLength, maxLength, totalTicks, wins, unfinished);
+    }
+
+    public int getGames() {
+        return this.games;
+    }
+
+    public double getMeanScore() {
+        return this.games == 0 ? 0 : (double)this.totalScore / this.games;
+    }
+
+    public int getMaxScore() {
+        return this.maxScore;
+    }
+
+    public double getMeanLength() {
+        return this.games == 0 ? 0 : (double)this.totalLength / this.games;
+    }
+
+    public int getMaxLength() {
+        return this.maxLength;
+    }
+
+    public long getTotalTicks() {
+        return this.totalTicks;
+    }
+
+    public double getMeanTicks() {
+        return this.games == 0 ? 0 : (double)this.totalTicks / this.games;
+    }
+
+    public int getWins() {
+        return this.wins;
+    }
+
+    /**
+     * Games still running when the tick limit was reached.
+     */
+    public int getUnfinished() {
+        return this.unfinished;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "games=%d score(mean=%.2f, max=%d) length(mean=%.2f, max=%d) ticks(total=%d, mean=%.1f) wins=%d unfinished=%d",
+                this.games, getMeanScore(), this.maxScore, getMeanLength(), this.maxLength,
+                this.totalTicks, getMeanTicks(), this.wins, this.unfinished
+        );
+    }
+
+}
@@ -0,0 +1,111 @@
+package snake.batch;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import snake.sim.SeededRandom;
+
+/**
+ * Plays every game of a {@link GameBatch} to the end on a fork-join pool.
+ * <p>
+ * The batch is split into contiguous ranges of games and each task plays its
+ * games one after the other, so a game's arrays stay hot in the cache of the
+ * core running it and no state is shared between tasks.
+ */
+public final class BatchRunner implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchRunner.class);
+
+    private static final int GAMES_PER_TASK = 16;
+
+    private final ForkJoinPool pool;
+
+    public BatchRunner(final int threads) {
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    public int getThreads() {
+        return this.pool.getParallelism();
+    }
+
+    /**
+     * Resets the batch from {@code batchSeed} and plays every game until it
+     * ends or reaches {@code maxTicks}.
+     */
+    public BatchResult run(final GameBatch batch, final BatchPlayer player, final long batchSeed, final int maxTicks) {
+        this.pool.invoke(new PlayRange(batch, player, batchSeed, maxTicks, 0, batch.getGames()));
+        return BatchResult.of(batch);
+    }
+
+    @Override
+    public void close() {
+        this.pool.shutdown();
+    }
+
+    private static final class PlayRange extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final GameBatch batch;
+        private final BatchPlayer player;
+        private final long batchSeed;
+        private final int maxTicks;
+        private final int from;
+        private final int to;
+
+        PlayRange(final GameBatch batch, final BatchPlayer player, final long batchSeed, final int maxTicks, final int from, final int to) {
+            this.batch = batch;
+            this.player = player;
+            this.batchSeed = batchSeed;
+            this.maxTicks = maxTicks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > GAMES_PER_TASK) {
+                final int middle = (this.from + this.to) >>> 1;
+                invokeAll(
+                        new PlayRange(this.batch, this.player, this.batchSeed, this.maxTicks, this.from, middle),
+                        new PlayRange(this.batch, this.player, this.batchSeed, this.maxTicks, middle, this.to)
+                );
+                return;
+            }
+            final SeededRandom random = new SeededRandom(0L);
+            for (int game = this.from; game < this.to; game++) {
+                this.batch.reset(game, GameBatch.gameSeed(this.batchSeed, game), random);
+                while (!this.batch.isOver(game) && this.batch.getTicks(game) < this.maxTicks) {
+                    this.batch.turn(game, this.player.direction(this.batch, game));
+                    this.batch.step(game, random);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Usage: {@code BatchRunner [games] [threads] [cols] [rows] [seed] [maxTicks]}
+     */
+    public static void main(String[] args) {
+        final int games = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        final int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final int cols = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+        final int rows = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        final long seed = args.length > 4 ? Long.parseLong(args[4]) : 1L;
+        final int maxTicks = args.length > 5 ? Integer.parseInt(args[5]) : 100_000;
+
+        final GameBatch batch = new GameBatch(games, cols, rows);
+        try (BatchRunner runner = new BatchRunner(threads)) {
+            final long start = System.nanoTime();
+            final BatchResult result = runner.run(batch, new GreedyPlayer(), seed, maxTicks);
+            final double seconds = (System.nanoTime() - start) / 1e9d;
+            logger.info("{} games of {}x{} on {} threads in {}s", games, cols, rows, threads, seconds);
+            logger.info("{}", result);
+            logger.info("{} games/s, {} ticks/s", games / seconds, result.getTotalTicks() / seconds);
+        }
+    }
+
+}
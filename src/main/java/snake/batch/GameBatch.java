@@ -0,0 +1,322 @@
+package snake.batch;
+
+import snake.sim.SeededRandom;
+import snake.sim.Snake;
+
+/**
+ * Many independent snake games stored as struct-of-arrays.
+ * <p>
+ * Every per-game field lives in a primitive array indexed by game, and the
+ * per-cell structures (body ring, occupancy bits, free cell index) are laid
+ * out back to back with a fixed stride per game. Games follow the rules of
+ * {@link snake.sim.SnakeSimulation} at cell granularity: each tick moves the
+ * head exactly one cell, which is what automated players decide on.
+ * <p>
+ * Different games may be stepped from different threads concurrently; a
+ * single game must only be stepped by one thread at a time.
+ */
+public final class GameBatch {
+
+    public static final int UP = Snake.Direction.UP.ordinal();
+    public static final int DOWN = Snake.Direction.DOWN.ordinal();
+    public static final int LEFT = Snake.Direction.LEFT.ordinal();
+    public static final int RIGHT = Snake.Direction.RIGHT.ordinal();
+
+    private final int games;
+    private final int cols;
+    private final int rows;
+    private final int cells;
+    private final int words;
+
+    // Per game
+    private final long[] seeds;
+    private final long[] randomStates;
+    private final int[] heads;
+    private final byte[] directions;
+    private final int[] foods;
+    private final int[] scores;
+    private final int[] ticks;
+    private final boolean[] alive;
+    private final boolean[] won;
+    private final boolean[] growing;
+    private final int[] bodyStarts;
+    private final int[] bodyLengths;
+    private final int[] freeCounts;
+
+    // Per game, per cell (stride cells or words)
+    private final int[] bodies;
+    private final long[] occupancy;
+    private final int[] freeCells;
+    private final int[] freePositions;
+
+    public GameBatch(final int games, final int cols, final int rows) {
+        if (cols < 2 || rows < 2)
+            throw new IllegalArgumentException("Grid must be at least 2x2: " + cols + "x" + rows);
+        final long total = (long)games * cols * rows;
+        if (total > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Batch too large: " + games + " games of " + cols + "x" + rows);
+        this.games = games;
+        this.cols = cols;
+        this.rows = rows;
+        this.cells = cols * rows;
+        this.words = (this.cells + 63) >>> 6;
+
+        this.seeds = new long[games];
+        this.randomStates = new long[games];
+        this.heads = new int[games];
+        this.directions = new byte[games];
+        this.foods = new int[games];
+        this.scores = new int[games];
+        this.ticks = new int[games];
+        this.alive = new boolean[games];
+        this.won = new boolean[games];
+        this.growing = new boolean[games];
+        this.bodyStarts = new int[games];
+        this.bodyLengths = new int[games];
+        this.freeCounts = new int[games];
+
+        this.bodies = new int[(int)total];
+        this.occupancy = new long[games * this.words];
+        this.freeCells = new int[(int)total];
+        this.freePositions = new int[(int)total];
+    }
+
+    /**
+     * Derives the seed of game {@code game} from a batch seed, so a batch is
+     * reproducible from one number and each game from its own seed.
+     */
+    public static long gameSeed(final long batchSeed, final int game) {
+        return SeededRandom.nextLong(batchSeed + game * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * Restarts every game with seeds derived from {@code batchSeed}.
+     */
+    public void resetAll(final long batchSeed) {
+        final SeededRandom random = new SeededRandom(0L);
+        for (int game = 0; game < this.games; game++)
+            reset(game, gameSeed(batchSeed, game), random);
+    }
+
+    /**
+     * Restarts {@code game} with {@code seed}.
+     *
+     * @param random scratch generator; its state is replaced by the game's
+     */
+    public void reset(final int game, final long seed, final SeededRandom random) {
+        final int cellBase = game * this.cells;
+        this.seeds[game] = seed;
+        this.randomStates[game] = seed;
+        this.heads[game] = (this.rows / 2) * this.cols + this.cols / 2;
+        this.directions[game] = (byte)UP;
+        this.scores[game] = 0;
+        this.ticks[game] = 0;
+        this.alive[game] = true;
+        this.won[game] = false;
+        this.growing[game] = false;
+        this.bodyStarts[game] = 0;
+        this.bodyLengths[game] = 0;
+        for (int w = game * this.words, end = w + this.words; w < end; w++)
+            this.occupancy[w] = 0L;
+        for (int i = 0; i < this.cells; i++) {
+            this.freeCells[cellBase + i] = i;
+            this.freePositions[cellBase + i] = i;
+        }
+        this.freeCounts[game] = this.cells;
+        removeFree(game, this.heads[game]);
+        random.setState(seed);
+        placeFood(game, random);
+    }
+
+    /**
+     * Requests a change of direction; turning back on to the current axis is
+     * ignored.
+     */
+    public void turn(final int game, final int direction) {
+        if ((direction >>> 1) != (this.directions[game] >>> 1))
+            this.directions[game] = (byte)direction;
+    }
+
+    /**
+     * Moves the head of {@code game} one cell. Does nothing once the game is
+     * over.
+     *
+     * @param random scratch generator; its state is replaced by the game's
+     */
+    public void step(final int game, final SeededRandom random) {
+        if (!this.alive[game] || this.won[game])
+            return;
+        this.ticks[game]++;
+
+        final int previous = this.heads[game];
+        final int current = neighbour(previous, this.directions[game]);
+
+        // Update body
+        pushBody(game, previous);
+        setOccupied(game, previous, true);
+        if (!this.growing[game]) {
+            final int end = popBody(game);
+            setOccupied(game, end, false);
+            addFree(game, end);
+        } else {
+            this.growing[game] = false;
+            this.scores[game]++;
+        }
+
+        // Check for snake colliding with itself
+        this.heads[game] = current;
+        if (isOccupied(game, current)) {
+            this.alive[game] = false;
+            return;
+        }
+        removeFree(game, current);
+
+        // Collision with food
+        if (current == this.foods[game]) {
+            this.growing[game] = true;
+            random.setState(this.randomStates[game]);
+            placeFood(game, random);
+        }
+    }
+
+    /**
+     * Returns the cell next to {@code cell} in {@code direction}, wrapping at
+     * the edges.
+     */
+    public int neighbour(final int cell, final int direction) {
+        final int col = cell % this.cols;
+        final int row = cell / this.cols;
+        switch (direction) {
+            case 0:  // UP
+                return row == 0 ? cell + (this.rows - 1) * this.cols : cell - this.cols;
+            case 1:  // DOWN
+                return row == this.rows - 1 ? col : cell + this.cols;
+            case 2:  // LEFT
+                return col == 0 ? cell + this.cols - 1 : cell - 1;
+            default:  // RIGHT
+                return col == this.cols - 1 ? cell - col : cell + 1;
+        }
+    }
+
+    public boolean isOccupied(final int game, final int cell) {
+        return (this.occupancy[game * this.words + (cell >>> 6)] & (1L << cell)) != 0;
+    }
+
+    /**
+     * Returns the {@code index}th body cell of {@code game}, tail end first.
+     */
+    public int bodyCell(final int game, final int index) {
+        return this.bodies[game * this.cells + (this.bodyStarts[game] + index) % this.cells];
+    }
+
+    private void pushBody(final int game, final int cell) {
+        final int slot = (this.bodyStarts[game] + this.bodyLengths[game]) % this.cells;
+        this.bodies[game * this.cells + slot] = cell;
+        this.bodyLengths[game]++;
+    }
+
+    private int popBody(final int game) {
+        final int start = this.bodyStarts[game];
+        this.bodyStarts[game] = start + 1 == this.cells ? 0 : start + 1;
+        this.bodyLengths[game]--;
+        return this.bodies[game * this.cells + start];
+    }
+
+    private void setOccupied(final int game, final int cell, final boolean occupied) {
+        final int word = game * this.words + (cell >>> 6);
+        if (occupied)
+            this.occupancy[word] |= 1L << cell;
+        else
+            this.occupancy[word] &= ~(1L << cell);
+    }
+
+    private void addFree(final int game, final int cell) {
+        final int base = game * this.cells;
+        if (this.freePositions[base + cell] >= 0)
+            return;
+        final int slot = this.freeCounts[game]++;
+        this.freeCells[base + slot] = cell;
+        this.freePositions[base + cell] = slot;
+    }
+
+    private void removeFree(final int game, final int cell) {
+        final int base = game * this.cells;
+        final int slot = this.freePositions[base + cell];
+        if (slot < 0)
+            return;
+        final int last = this.freeCells[base + --this.freeCounts[game]];
+        this.freeCells[base + slot] = last;
+        this.freePositions[base + last] = slot;
+        this.freePositions[base + cell] = -1;
+    }
+
+    private void placeFood(final int game, final SeededRandom random) {
+        final int free = this.freeCounts[game];
+        if (free == 0) {
+            // Board full - the last piece of food still scores
+            this.foods[game] = -1;
+            this.growing[game] = false;
+            this.scores[game]++;
+            this.won[game] = true;
+        } else {
+            this.foods[game] = this.freeCells[game * this.cells + random.nextInt(free)];
+        }
+        this.randomStates[game] = random.getState();
+    }
+
+    public int getGames() {
+        return this.games;
+    }
+
+    public int getCols() {
+        return this.cols;
+    }
+
+    public int getRows() {
+        return this.rows;
+    }
+
+    public long getSeed(final int game) {
+        return this.seeds[game];
+    }
+
+    public int getHead(final int game) {
+        return this.heads[game];
+    }
+
+    public int getDirection(final int game) {
+        return this.directions[game];
+    }
+
+    public int getFood(final int game) {
+        return this.foods[game];
+    }
+
+    public int getScore(final int game) {
+        return this.scores[game];
+    }
+
+    public int getTicks(final int game) {
+        return this.ticks[game];
+    }
+
+    /**
+     * Length of the snake including its head.
+     */
+    public int getLength(final int game) {
+        return this.bodyLengths[game] + 1;
+    }
+
+    public boolean isAlive(final int game) {
+        return this.alive[game];
+    }
+
+    public boolean isWon(final int game) {
+        return this.won[game];
+    }
+
+    public boolean isOver(final int game) {
+        return !this.alive[game] || this.won[game];
+    }
+
+}
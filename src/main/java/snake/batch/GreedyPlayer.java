@@ -0,0 +1,56 @@
+package snake.batch;
+
+/**
+ * Heads straight for the food, preferring the axis with the larger distance,
+ * and otherwise takes any move that does not hit the body.
+ */
+public final class GreedyPlayer implements BatchPlayer {
+
+    @Override
+    public int direction(final GameBatch batch, final int game) {
+        final int cols = batch.getCols();
+        final int rows = batch.getRows();
+        final int head = batch.getHead(game);
+        final int food = batch.getFood(game);
+        final int current = batch.getDirection(game);
+
+        if (food >= 0) {
+            final int dx = wrappedDelta(food % cols - head % cols, cols);
+            final int dy = wrappedDelta(food / cols - head / cols, rows);
+            final int horizontal = dx < 0 ? GameBatch.LEFT : GameBatch.RIGHT;
+            final int vertical = dy < 0 ? GameBatch.UP : GameBatch.DOWN;
+            final boolean preferHorizontal = Math.abs(dx) >= Math.abs(dy);
+            final int first = preferHorizontal ? horizontal : vertical;
+            final int second = preferHorizontal ? vertical : horizontal;
+            if ((preferHorizontal ? dx : dy) != 0 && isSafe(batch, game, head, current, first))
+                return first;
+            if ((preferHorizontal ? dy : dx) != 0 && isSafe(batch, game, head, current, second))
+                return second;
+        }
+        if (isSafe(batch, game, head, current, current))
+            return current;
+        for (int direction = 0; direction < 4; direction++) {
+            if (isSafe(batch, game, head, current, direction))
+                return direction;
+        }
+        return current;
+    }
+
+    private static boolean isSafe(final GameBatch batch, final int game, final int head, final int current, final int direction) {
+        if ((direction >>> 1) == (current >>> 1) && direction != current)
+            return false;  // Reversing is not allowed
+        return !batch.isOccupied(game, batch.neighbour(head, direction));
+    }
+
+    /**
+     * Shortest signed distance on a wrapping axis of length {@code size}.
+     */
+    private static int wrappedDelta(final int delta, final int size) {
+        if (delta > size / 2)
+            return delta - size;
+        if (delta < -size / 2)
+            return delta + size;
+        return delta;
+    }
+
+}
@@ -0,0 +1,98 @@
+package snake.capture;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import snake.ai.Autopilot;
+import snake.metrics.Histogram;
+import snake.render.GameScene;
+import snake.render.SoftwareRenderer;
+import snake.sim.SnakeSimulation;
+
+/**
+ * Plays the game with the {@link Autopilot}, draws every frame on the CPU with
+ * a {@link SoftwareRenderer} and captures it through a {@link FrameWriter}, so
+ * capture can be tried with no GPU or window.
+ * <p>
+ * Usage: {@code CaptureHarness [frames] [directory] [png|raw] [framesPerSecond] [width] [height]}.
+ * One tick is run per frame; a rate of {@code 0} runs as fast as possible,
+ * which shows how frames are dropped once the writer falls behind. Frames
+ * captured, dropped and written are reported along with the time drawing and
+ * capturing took per frame.
+ */
+public final class CaptureHarness {
+
+    private static final Logger logger = LoggerFactory.getLogger(CaptureHarness.class);
+
+    private static final Vector3fc clearColor = new Vector3f(1.0f, 0.0f, 0.0f);  // As the game's
+    private static final int QUEUED_FRAMES = 8;
+
+    public static void main(String[] args) throws IOException {
+        final int frames = args.length > 0 ? Integer.parseInt(args[0]) : 600;
+        final String directory = args.length > 1 ? args[1] : "capture";
+        final FrameWriter.Format format = args.length > 2
+                ? FrameWriter.Format.valueOf(args[2].toUpperCase(Locale.ROOT)) : FrameWriter.Format.PNG;
+        final int framesPerSecond = args.length > 3 ? Integer.parseInt(args[3]) : 60;
+        final int width = args.length > 4 ? Integer.parseInt(args[4]) : 800;
+        final int height = args.length > 5 ? Integer.parseInt(args[5]) : 600;
+
+        final int cols = width / 20;
+        final int rows = height / 20;
+        final SnakeSimulation simulation = new SnakeSimulation(cols, rows, 1L);
+        final Autopilot autopilot = new Autopilot(cols, rows, Autopilot.DEFAULT_CYCLE_FILL);
+        final SoftwareRenderer renderer = new SoftwareRenderer(width, height);
+        final GameScene scene = new GameScene();
+        final Matrix4f projection = new Matrix4f().setOrtho2D(0, width, height, 0).scale(width / cols, height / rows, 1.0f);
+        final Histogram drawTimes = new Histogram();
+        final Histogram captureTimes = new Histogram();
+        final long frameNanos = framesPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / framesPerSecond : 0;
+
+        final long started = System.nanoTime();
+        final FrameWriter writer = new FrameWriter(Paths.get(directory), format, QUEUED_FRAMES);
+        try {
+            long nextFrame = System.nanoTime();
+            for (int frame = 0; frame < frames; frame++) {
+                if (!simulation.isAlive() || simulation.isWon())
+                    simulation.reset(simulation.getSeed() + 1);
+                autopilot.steer(simulation);
+                simulation.step();
+
+                final long start = System.nanoTime();
+                renderer.clear(clearColor);
+                scene.draw(simulation, 1.0f, renderer, projection);
+                final long drawn = System.nanoTime();
+                writer.offer(renderer.getPixels(), width, height, drawn);
+                final long captured = System.nanoTime();
+                drawTimes.record(drawn - start);
+                captureTimes.record(captured - drawn);
+
+                if (frameNanos > 0) {
+                    nextFrame += frameNanos;
+                    final long wait = nextFrame - System.nanoTime();
+                    if (wait > 0)
+                        LockSupport.parkNanos(wait);
+                }
+            }
+        } finally {
+            writer.close();
+        }
+        final long elapsed = System.nanoTime() - started;
+
+        logger.info("Frames: {} captured, {} dropped, {} written, {} failed, {} bytes, in {}ms",
+                writer.getCaptured(), writer.getDropped(), writer.getWritten(), writer.getFailed(),
+                writer.getBytesWritten(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+        logger.info("Per frame: draw p50 {}us p99 {}us, capture p50 {}us p99 {}us max {}us, write p50 {}us p99 {}us",
+                drawTimes.getPercentile(50) / 1000, drawTimes.getPercentile(99) / 1000,
+                captureTimes.getPercentile(50) / 1000, captureTimes.getPercentile(99) / 1000, captureTimes.getMax() / 1000,
+                writer.getWriteTimes().getPercentile(50) / 1000, writer.getWriteTimes().getPercentile(99) / 1000);
+    }
+
+}
@@ -0,0 +1,63 @@
+package snake.capture;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One captured frame: RGBA pixels, one byte per channel, top row first.
+ * <p>
+ * Frames are owned by a {@link FrameWriter}, which hands them out to be
+ * filled and takes them back once written; the pixel buffer is reused and
+ * only reallocated when a larger frame comes along.
+ */
+public final class CapturedFrame {
+
+    private ByteBuffer pixels = ByteBuffer.allocateDirect(0);
+    private int width;
+    private int height;
+    private long index;
+    private long timeNanos;
+
+    /**
+     * Sets up the frame for new pixels, returning the buffer to write them
+     * to, positioned at {@code 0} with its limit at the end of the frame.
+     */
+    ByteBuffer prepare(final int width, final int height, final long index, final long timeNanos) {
+        final int size = width * height * 4;
+        if (this.pixels.capacity() < size)
+            this.pixels = ByteBuffer.allocateDirect(size);
+        this.pixels.clear().limit(size);
+        this.width = width;
+        this.height = height;
+        this.index = index;
+        this.timeNanos = timeNanos;
+        return this.pixels;
+    }
+
+    /**
+     * The pixels, {@code width * height * 4} bytes from position {@code 0}.
+     */
+    public ByteBuffer getPixels() {
+        return this.pixels;
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Number of the frame among all the frames offered to the writer,
+     * counting the dropped ones, so gaps show where frames are missing.
+     */
+    public long getIndex() {
+        return this.index;
+    }
+
+    public long getTimeNanos() {
+        return this.timeNanos;
+    }
+
+}
@@ -0,0 +1,252 @@
+package snake.capture;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import org.lwjgl.stb.STBImageWrite;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import snake.metrics.Histogram;
+
+/**
+ * Writes captured frames to files on its own thread.
+ * <p>
+ * A fixed number of {@link CapturedFrame}s circulate between the capturing
+ * thread and the writer: the capturing thread {@link #obtain}s a free one,
+ * fills it and {@link #submit}s it, and the writer puts it back once it is
+ * on disk. When the writer falls so far behind that no frame is free, the
+ * new frame is dropped and counted instead of waiting, so capturing never
+ * blocks the game loop.
+ * <p>
+ * {@link Format#PNG} writes {@code frame-<index>.png} files with stb; frame
+ * numbers skip the dropped frames. {@link Format#RAW} appends the bare pixels
+ * to {@code frames-<first index>-<width>x<height>.rgba}, starting a new file
+ * whenever the frame size changes, e.g. for
+ * {@code ffmpeg -f rawvideo -pixel_format rgba -video_size <width>x<height>}.
+ */
+public final class FrameWriter implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(FrameWriter.class);
+
+    /**
+     * How frames are stored.
+     */
+    public enum Format {
+        PNG, RAW
+    }
+
+    private static final CapturedFrame END = new CapturedFrame();
+
+    private final Path directory;
+    private final Format format;
+    private final ArrayBlockingQueue<CapturedFrame> free;
+    private final ArrayBlockingQueue<CapturedFrame> queue;
+    private final Thread thread;
+
+    // Capturing thread
+    private long nextIndex = 0;
+    private long captured = 0;
+    private long dropped = 0;
+
+    // Writer thread
+    private final Histogram writeTimes = new Histogram();
+    private volatile long written = 0;
+    private volatile long failed = 0;
+    private volatile long bytesWritten = 0;
+    private FileChannel raw;
+    private int rawWidth;
+    private int rawHeight;
+
+    /**
+     * @param frames frames that may be queued or being written at once
+     */
+    public FrameWriter(final Path directory, final Format format, final int frames) throws IOException {
+        if (frames < 1)
+            throw new IllegalArgumentException("Need at least one frame: " + frames);
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.format = format;
+        this.free = new ArrayBlockingQueue<>(frames);
+        this.queue = new ArrayBlockingQueue<>(frames + 1);  // Room for END
+        for (int i = 0; i < frames; i++)
+            this.free.add(new CapturedFrame());
+        this.thread = new Thread(this::run, "frame-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Takes a free frame to fill with a {@code width} by {@code height}
+     * image, or counts the frame as dropped and returns {@code null} if the
+     * writer is too far behind. Capturing thread only.
+     */
+    public CapturedFrame obtain(final int width, final int height, final long timeNanos) {
+        final long index = this.nextIndex++;
+        final CapturedFrame frame = this.free.poll();
+        if (frame == null) {
+            this.dropped++;
+            return null;
+        }
+        frame.prepare(width, height, index, timeNanos);
+        return frame;
+    }
+
+    /**
+     * Counts a frame that was lost before it could be {@link #obtain}ed,
+     * keeping the frame numbers in step. Capturing thread only.
+     */
+    public void drop() {
+        this.nextIndex++;
+        this.dropped++;
+    }
+
+    /**
+     * Queues a filled frame from {@link #obtain} for writing. Capturing
+     * thread only.
+     */
+    public void submit(final CapturedFrame frame) {
+        frame.getPixels().rewind();
+        this.queue.add(frame);
+        this.captured++;
+    }
+
+    /**
+     * Copies a frame of RGBA pixels, top row first, and queues it for
+     * writing. {@code pixels} is read from position {@code 0} and left
+     * unchanged. Capturing thread only.
+     *
+     * @return {@code false} if the frame was dropped
+     */
+    public boolean offer(final ByteBuffer pixels, final int width, final int height, final long timeNanos) {
+        final CapturedFrame frame = obtain(width, height, timeNanos);
+        if (frame == null)
+            return false;
+        final int position = pixels.position();
+        final int limit = pixels.limit();
+        pixels.limit(width * height * 4).position(0);
+        frame.getPixels().put(pixels);
+        pixels.limit(limit).position(position);
+        submit(frame);
+        return true;
+    }
+
+    /**
+     * Writes the frames still queued and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        try {
+            this.queue.put(END);
+            this.thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Format getFormat() {
+        return this.format;
+    }
+
+    /**
+     * Frames queued for writing.
+     */
+    public long getCaptured() {
+        return this.captured;
+    }
+
+    /**
+     * Frames lost because the writer was behind or the pixels were not
+     * ready in time.
+     */
+    public long getDropped() {
+        return this.dropped;
+    }
+
+    public long getWritten() {
+        return this.written;
+    }
+
+    /**
+     * Frames that could not be written, see the log.
+     */
+    public long getFailed() {
+        return this.failed;
+    }
+
+    public long getBytesWritten() {
+        return this.bytesWritten;
+    }
+
+    /**
+     * Time taken to encode and write each frame, in nanoseconds. Read it
+     * after {@link #close}.
+     */
+    public Histogram getWriteTimes() {
+        return this.writeTimes;
+    }
+
+    private void run() {
+        while (true) {
+            final CapturedFrame frame;
+            try {
+                frame = this.queue.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (frame == END)
+                break;
+            final long start = System.nanoTime();
+            try {
+                this.bytesWritten += write(frame);
+                this.written++;
+            } catch (IOException e) {
+                logger.error("Unable to write frame " + frame.getIndex() + " - " + e.getMessage());
+                this.failed++;
+            }
+            this.writeTimes.record(System.nanoTime() - start);
+            this.free.add(frame);
+        }
+        closeRaw();
+    }
+
+    private long write(final CapturedFrame frame) throws IOException {
+        if (this.format == Format.PNG) {
+            final Path file = this.directory.resolve(String.format("frame-%06d.png", frame.getIndex()));
+            if (!STBImageWrite.stbi_write_png(file.toString(), frame.getWidth(), frame.getHeight(), 4,
+                    frame.getPixels(), frame.getWidth() * 4))
+                throw new IOException("stb could not write " + file);
+            return Files.size(file);
+        }
+        if (this.raw == null || frame.getWidth() != this.rawWidth || frame.getHeight() != this.rawHeight) {
+            closeRaw();
+            final Path file = this.directory.resolve(String.format("frames-%06d-%dx%d.rgba",
+                    frame.getIndex(), frame.getWidth(), frame.getHeight()));
+            this.raw = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.rawWidth = frame.getWidth();
+            this.rawHeight = frame.getHeight();
+        }
+        final ByteBuffer pixels = frame.getPixels();
+        final long size = pixels.remaining();
+        while (pixels.hasRemaining())
+            this.raw.write(pixels);
+        return size;
+    }
+
+    private void closeRaw() {
+        if (this.raw == null)
+            return;
+        try {
+            this.raw.close();
+        } catch (IOException e) {
+            logger.error("Unable to close raw frame file - " + e.getMessage());
+        }
+        this.raw = null;
+    }
+
+}
@@ -0,0 +1,153 @@
+package snake.capture;
+
+import java.nio.ByteBuffer;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL21;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import snake.metrics.Histogram;
+
+/**
+ * Captures the framebuffer without stalling the GPU, through a ring of pixel
+ * buffer objects.
+ * <p>
+ * Each {@link #capture} starts an asynchronous {@code glReadPixels} of the
+ * frame just drawn into the next buffer of the ring and fences it, then hands
+ * every earlier read whose fence has signalled to a {@link FrameWriter}. A
+ * read is normally collected a frame or two after it was started, by which
+ * time the copy has finished and mapping the buffer does not wait. If the GPU
+ * is so far behind that the whole ring is still in flight the oldest read is
+ * dropped rather than waited for.
+ */
+public final class PboCapture {
+
+    private static final Logger logger = LoggerFactory.getLogger(PboCapture.class);
+
+    private final FrameWriter writer;
+    private final int[] buffers;
+    private final long[] fences;
+    private final long[] times;
+    private int width = 0;
+    private int height = 0;
+    private int oldest = 0;
+    private int pending = 0;
+    private final Histogram captureTimes = new Histogram();
+
+    /**
+     * @param ringSize pixel buffers to read into; three lets each read
+     *        finish over two frames
+     */
+    public PboCapture(final FrameWriter writer, final int ringSize) {
+        if (ringSize < 2)
+            throw new IllegalArgumentException("Ring must hold at least two buffers: " + ringSize);
+        this.writer = writer;
+        this.buffers = new int[ringSize];
+        this.fences = new long[ringSize];
+        this.times = new long[ringSize];
+        GL15.glGenBuffers(this.buffers);
+    }
+
+    /**
+     * Starts reading the frame drawn into the back buffer and passes on the
+     * reads that have finished. Call after drawing and before swapping.
+     */
+    public void capture(final int width, final int height, final long timeNanos) {
+        final long start = System.nanoTime();
+        if (width != this.width || height != this.height)
+            resize(width, height);
+        while (this.pending > 0 && collect(false)) {
+            // Pass on every finished read
+        }
+        if (this.pending == this.buffers.length) {
+            // Every buffer still in flight - give up on the oldest read
+            GL32.glDeleteSync(this.fences[this.oldest]);
+            this.oldest = (this.oldest + 1) % this.buffers.length;
+            this.pending--;
+            this.writer.drop();
+        }
+
+        final int slot = (this.oldest + this.pending) % this.buffers.length;
+        GL15.glBindBuffer(GL21.GL_PIXEL_PACK_BUFFER, this.buffers[slot]);
+        GL11.glReadPixels(0, 0, width, height, GL11.GL_RGBA, GL11.GL_UNSIGNED_BYTE, 0L);
+        GL15.glBindBuffer(GL21.GL_PIXEL_PACK_BUFFER, 0);
+        this.fences[slot] = GL32.glFenceSync(GL32.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        this.times[slot] = timeNanos;
+        this.pending++;
+        this.captureTimes.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Time each {@link #capture} took on the calling thread, in nanoseconds.
+     */
+    public Histogram getCaptureTimes() {
+        return this.captureTimes;
+    }
+
+    /**
+     * Waits for the reads still in flight, passes them on and releases the
+     * buffers.
+     */
+    public void dispose() {
+        while (this.pending > 0)
+            collect(true);
+        GL15.glDeleteBuffers(this.buffers);
+    }
+
+    private void resize(final int width, final int height) {
+        while (this.pending > 0)
+            collect(true);
+        if (logger.isTraceEnabled())
+            logger.trace("Capturing {}x{} frames", width, height);
+        for (int buffer : this.buffers) {
+            GL15.glBindBuffer(GL21.GL_PIXEL_PACK_BUFFER, buffer);
+            GL15.glBufferData(GL21.GL_PIXEL_PACK_BUFFER, (long)width * height * 4, GL15.GL_STREAM_READ);
+        }
+        GL15.glBindBuffer(GL21.GL_PIXEL_PACK_BUFFER, 0);
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Passes the oldest read on to the writer once it has finished.
+     *
+     * @param wait whether to wait for it rather than return {@code false}
+     */
+    private boolean collect(final boolean wait) {
+        final int slot = this.oldest;
+        final int status = GL32.glClientWaitSync(this.fences[slot], wait ? GL32.GL_SYNC_FLUSH_COMMANDS_BIT : 0,
+                wait ? Long.MAX_VALUE : 0L);
+        if (status == GL32.GL_TIMEOUT_EXPIRED && !wait)
+            return false;
+        GL32.glDeleteSync(this.fences[slot]);
+        this.oldest = (this.oldest + 1) % this.buffers.length;
+        this.pending--;
+
+        final CapturedFrame frame = this.writer.obtain(this.width, this.height, this.times[slot]);
+        if (frame == null)
+            return true;  // Writer behind - no need to map at all
+        GL15.glBindBuffer(GL21.GL_PIXEL_PACK_BUFFER, this.buffers[slot]);
+        final ByteBuffer mapped = GL30.glMapBufferRange(GL21.GL_PIXEL_PACK_BUFFER, 0, (long)this.width * this.height * 4,
+                GL30.GL_MAP_READ_BIT);
+        if (mapped == null) {
+            GL15.glBindBuffer(GL21.GL_PIXEL_PACK_BUFFER, 0);
+            logger.error("Unable to map pixel buffer - GL error " + GL11.glGetError());
+            throw new IllegalStateException("Unable to map pixel buffer");
+        }
+        // GL reads the bottom row first
+        final ByteBuffer pixels = frame.getPixels();
+        final int stride = this.width * 4;
+        for (int row = this.height - 1; row >= 0; row--) {
+            mapped.limit((row + 1) * stride).position(row * stride);
+            pixels.put(mapped);
+        }
+        GL15.glUnmapBuffer(GL21.GL_PIXEL_PACK_BUFFER);
+        GL15.glBindBuffer(GL21.GL_PIXEL_PACK_BUFFER, 0);
+        this.writer.submit(frame);
+        return true;
+    }
+
+}
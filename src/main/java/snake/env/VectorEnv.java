@@ -0,0 +1,217 @@
+package snake.env;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import snake.batch.GameBatch;
+import snake.sim.SeededRandom;
+
+/**
+ * Vectorized environment for training agents: a batch of games advanced
+ * together by {@link #step}, one move each, in the style of Gym's vector
+ * environments.
+ * <p>
+ * Observations, rewards and done flags are written straight into direct
+ * buffers the caller allocates once and hands over, e.g. memory shared with
+ * a training framework, and nothing is allocated or copied per step. Each
+ * game's observation is {@link #CHANNELS} planes of {@code rows} by
+ * {@code cols} floats, row by row: {@link #HEAD}, {@link #BODY} without the
+ * head and {@link #FOOD}, {@code 1} where present and {@code 0} elsewhere.
+ * A move changes only a handful of cells, so a step writes just those
+ * rather than redrawing the planes.
+ * <p>
+ * The reward for a step is {@code 1} for eating, {@code -1} for dying and
+ * {@code 0} otherwise. A game that ends is {@link #TERMINATED} by dying or
+ * filling the board, or {@link #TRUNCATED} after a board's worth of moves
+ * without eating, and is reset at once with a seed derived from its own, so
+ * its observation after that step is the first of the next episode.
+ * <p>
+ * Games run on {@link GameBatch}, one cell per move. Not thread safe; for
+ * several cores, give each thread an environment of its own over slices of
+ * the buffers.
+ */
+public final class VectorEnv {
+
+    public static final int CHANNELS = 3;
+    public static final int HEAD = 0;
+    public static final int BODY = 1;
+    public static final int FOOD = 2;
+
+    /** Done flag of a game still running. */
+    public static final byte RUNNING = 0;
+    /** Done flag of a game that died or filled the board. */
+    public static final byte TERMINATED = 1;
+    /** Done flag of a game stopped for not eating. */
+    public static final byte TRUNCATED = 2;
+
+    private final GameBatch batch;
+    private final int envs;
+    private final int cells;
+    private final int maxIdleSteps;
+    private final FloatBuffer observations;
+    private final FloatBuffer rewards;
+    private final ByteBuffer dones;
+    private final SeededRandom random = new SeededRandom(0L);
+
+    private final int[] idleSteps;
+    private final int[] episodes;
+    private long steps = 0;
+
+    /**
+     * @param observations at least {@link #observationSize} floats for each
+     *        game, game after game
+     * @param rewards at least one float per game
+     * @param dones at least one byte per game
+     */
+    public VectorEnv(final int envs, final int cols, final int rows, final FloatBuffer observations,
+                     final FloatBuffer rewards, final ByteBuffer dones) {
+        this.batch = new GameBatch(envs, cols, rows);
+        this.envs = envs;
+        this.cells = cols * rows;
+        this.maxIdleSteps = this.cells;
+        check("Observations", observations.isDirect(), observations.capacity(), (long)envs * CHANNELS * this.cells);
+        check("Rewards", rewards.isDirect(), rewards.capacity(), envs);
+        check("Dones", dones.isDirect(), dones.capacity(), envs);
+        this.observations = observations;
+        this.rewards = rewards;
+        this.dones = dones;
+        this.idleSteps = new int[envs];
+        this.episodes = new int[envs];
+    }
+
+    /**
+     * Floats of observation per game on a {@code cols} by {@code rows} board.
+     */
+    public static int observationSize(final int cols, final int rows) {
+        return CHANNELS * cols * rows;
+    }
+
+    /**
+     * Starts a new episode in every game, game {@code i} with seed
+     * {@code seeds[i]}, writing the first observations and clearing rewards
+     * and done flags.
+     */
+    public void reset(final long[] seeds) {
+        if (seeds.length != this.envs)
+            throw new IllegalArgumentException("Expected " + this.envs + " seeds, got " + seeds.length);
+        for (int env = 0; env < this.envs; env++) {
+            this.episodes[env] = 0;
+            reset(env, seeds[env]);
+            this.rewards.put(env, 0.0f);
+            this.dones.put(env, RUNNING);
+        }
+    }
+
+    /**
+     * Moves every game one cell, game {@code i} in direction
+     * {@code actions[i]}: one of {@link GameBatch#UP}, {@link GameBatch#DOWN},
+     * {@link GameBatch#LEFT} or {@link GameBatch#RIGHT}. Turning back on
+     * itself keeps the snake going straight.
+     */
+    public void step(final int[] actions) {
+        if (actions.length != this.envs)
+            throw new IllegalArgumentException("Expected " + this.envs + " actions, got " + actions.length);
+        for (int env = 0; env < this.envs; env++)
+            if ((actions[env] & ~3) != 0)
+                throw new IllegalArgumentException("Invalid action for game " + env + ": " + actions[env]);
+
+        final GameBatch batch = this.batch;
+        for (int env = 0; env < this.envs; env++) {
+            final int head = batch.getHead(env);
+            final int food = batch.getFood(env);
+            final int length = batch.getLength(env);
+            final int tail = length > 1 ? batch.bodyCell(env, 0) : head;
+            batch.turn(env, actions[env]);
+            batch.step(env, this.random);
+
+            final int base = env * CHANNELS * this.cells;
+            // The score only counts the food on the next move, as the body grows
+            final int eaten = batch.getHead(env) == food ? 1 : 0;
+            if (!batch.isAlive(env)) {
+                finish(env, -1.0f, TERMINATED);
+                continue;
+            }
+            if (batch.isWon(env)) {
+                finish(env, eaten, TERMINATED);
+                continue;
+            }
+
+            // The head leaves a body cell behind; the tail end moves up unless growing
+            set(base, HEAD, head, 0.0f);
+            set(base, BODY, head, 1.0f);
+            if (batch.getLength(env) == length)
+                set(base, BODY, tail, 0.0f);
+            set(base, HEAD, batch.getHead(env), 1.0f);
+            if (batch.getFood(env) != food) {
+                set(base, FOOD, food, 0.0f);
+                set(base, FOOD, batch.getFood(env), 1.0f);
+            }
+
+            this.idleSteps[env] = eaten > 0 ? 0 : this.idleSteps[env] + 1;
+            if (this.idleSteps[env] >= this.maxIdleSteps) {
+                finish(env, eaten, TRUNCATED);
+                continue;
+            }
+            this.rewards.put(env, eaten);
+            this.dones.put(env, RUNNING);
+        }
+        this.steps += this.envs;
+    }
+
+    private void finish(final int env, final float reward, final byte done) {
+        this.rewards.put(env, reward);
+        this.dones.put(env, done);
+        reset(env, GameBatch.gameSeed(this.batch.getSeed(env), ++this.episodes[env]));
+    }
+
+    private void reset(final int env, final long seed) {
+        final GameBatch batch = this.batch;
+        batch.reset(env, seed, this.random);
+        this.idleSteps[env] = 0;
+        final int base = env * CHANNELS * this.cells;
+        for (int i = base, end = base + CHANNELS * this.cells; i < end; i++)
+            this.observations.put(i, 0.0f);
+        set(base, HEAD, batch.getHead(env), 1.0f);
+        for (int i = 0; i < batch.getLength(env) - 1; i++)
+            set(base, BODY, batch.bodyCell(env, i), 1.0f);
+        set(base, FOOD, batch.getFood(env), 1.0f);
+    }
+
+    private void set(final int base, final int channel, final int cell, final float value) {
+        if (cell >= 0)
+            this.observations.put(base + channel * this.cells + cell, value);
+    }
+
+    private static void check(final String name, final boolean direct, final long capacity, final long needed) {
+        if (!direct)
+            throw new IllegalArgumentException(name + " must be a direct buffer");
+        if (capacity < needed)
+            throw new IllegalArgumentException(name + " buffer too small: " + capacity + " < " + needed);
+    }
+
+    /**
+     * The games being played, to read their state from.
+     */
+    public GameBatch getBatch() {
+        return this.batch;
+    }
+
+    public int getEnvs() {
+        return this.envs;
+    }
+
+    /**
+     * Episodes finished by game {@code env} since the last {@link #reset}.
+     */
+    public int getEpisodes(final int env) {
+        return this.episodes[env];
+    }
+
+    /**
+     * Moves made by all games together.
+     */
+    public long getSteps() {
+        return this.steps;
+    }
+
+}
@@ -0,0 +1,123 @@
+package snake.loop;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+
+import org.joml.Matrix4f;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import snake.metrics.FrameMetrics;
+import snake.metrics.Histogram;
+import snake.render.GameScene;
+import snake.render.RecordingRenderer;
+import snake.sim.Snake;
+import snake.sim.SnakeSimulation;
+
+/**
+ * Runs the frame path headless against a {@link RecordingRenderer}, timing it
+ * into {@link FrameMetrics} as the game does, and reports how many bytes each
+ * frame allocates.
+ * <p>
+ * Usage: {@code FrameHarness [frames] [cols] [rows]}. Time advances by exactly
+ * 1/60s per frame and the snake turns every few ticks so that it keeps
+ * eating, growing and occasionally dying.
+ */
+public final class FrameHarness {
+
+    private static final Logger logger = LoggerFactory.getLogger(FrameHarness.class);
+
+    private static final int TICKS_PER_SECOND = 60;
+    private static final Snake.Direction[] turns = {
+            Snake.Direction.LEFT, Snake.Direction.UP, Snake.Direction.RIGHT, Snake.Direction.UP
+    };
+
+    private final SnakeSimulation simulation;
+    private final FrameLoop loop;
+    private final GameScene scene = new GameScene();
+    private final RecordingRenderer renderer = new RecordingRenderer();
+    private final Matrix4f projection = new Matrix4f();
+    private final FrameMetrics metrics = new FrameMetrics(1, TimeUnit.SECONDS);
+    private double time = 0;
+    private int turn = 0;
+
+    public FrameHarness(final int cols, final int rows) {
+        this.simulation = new SnakeSimulation(cols, rows, 1L);
+        this.loop = new FrameLoop(this.simulation, TICKS_PER_SECOND);
+        this.loop.start(this.time);
+        this.projection.ortho2D(0, cols, rows, 0);
+    }
+
+    public void runFrames(final int frames) {
+        for (int i = 0; i < frames; i++) {
+            if (!this.simulation.isAlive() || this.simulation.isWon())
+                this.simulation.reset(this.simulation.getSeed() + 1);
+            if (this.simulation.getTick() % 97 == 0)
+                this.simulation.turn(turns[this.turn++ & 3]);
+            this.time += 1.0d / TICKS_PER_SECOND;
+            final long frameStart = System.nanoTime();
+            this.metrics.startFrame(frameStart);
+            final int ticks = this.loop.update(this.time);
+            final long updated = System.nanoTime();
+            this.metrics.recordUpdate(updated - frameStart, ticks);
+            this.scene.draw(this.simulation, this.loop.getAlpha(), this.renderer, this.projection);
+            this.loop.endFrame();
+            this.metrics.recordRender(System.nanoTime() - updated);
+        }
+    }
+
+    public RecordingRenderer getRenderer() {
+        return this.renderer;
+    }
+
+    public FrameMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Bytes allocated by the current thread, or {@code -1} if the JVM cannot
+     * measure it.
+     */
+    public static long allocatedBytes() {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean)threads;
+            if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled())
+                return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    public static void main(String[] args) {
+        final int frames = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        final int cols = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        final int rows = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        final FrameHarness harness = new FrameHarness(cols, rows);
+        harness.runFrames(Math.min(frames, 100_000));  // Warm up
+
+        final long before = allocatedBytes();
+        final long start = System.nanoTime();
+        harness.runFrames(frames);
+        final long elapsed = System.nanoTime() - start;
+        final long after = allocatedBytes();
+
+        logger.info("Frames: {} ({}x{}), {} ns/frame", frames, cols, rows, elapsed / frames);
+        logger.info("Draw calls/frame: {}, bytes submitted: {}",
+                (double)harness.getRenderer().getDrawCalls() / harness.getRenderer().getFrames(),
+                harness.getRenderer().getBytesUploaded());
+        final Histogram[] published = new Histogram[FrameMetrics.Series.values().length];
+        for (int i = 0; i < published.length; i++)
+            published[i] = new Histogram();
+        if (harness.getMetrics().read(published) != 0) {
+            final Histogram frame = published[FrameMetrics.Series.FRAME_TIME.ordinal()];
+            logger.info("Frame time over the last second: p50 {} ns, p99 {} ns, p99.9 {} ns, max {} ns",
+                    frame.getPercentile(50.0d), frame.getPercentile(99.0d), frame.getPercentile(99.9d), frame.getMax());
+        }
+        if (before < 0 || after < 0)
+            logger.info("Allocation: not measurable on this JVM");
+        else
+            logger.info("Allocation: {} bytes/frame", (double)(after - before) / frames);
+    }
+
+}
@@ -0,0 +1,182 @@
+package snake.loop;
+
+import snake.sim.RewindBuffer;
+import snake.sim.SnakeSimulation;
+
+/**
+ * Fixed-step timing for the frame loop.
+ * <p>
+ * Each frame calls {@link #update} with the current time, which steps the
+ * simulation as many times as the elapsed time allows, then renders, then
+ * calls {@link #endFrame}. Neither call allocates. If a rewind buffer is set
+ * every step is recorded in it, and if a before-step action is set it runs
+ * ahead of every step, e.g. to apply input once per tick.
+ * <p>
+ * At most {@code maxStepsPerFrame} steps run per frame. After a stall, the
+ * ticks beyond that are skipped rather than run in a burst that would make
+ * the next frame late too. {@link #getAlpha()} gives how far the frame is
+ * between the last two ticks, for interpolated drawing.
+ * <p>
+ * Frame times and the intervals between steps are kept in {@link TimingStats}
+ * so that this loop can be compared with a {@link SimulationThread}: steps run
+ * in bursts at frame boundaries here, so every step after the first in a
+ * frame counts as a zero interval.
+ */
+public final class FrameLoop {
+
+    /** Default limit on catch-up steps per frame. */
+    public static final int MAX_STEPS_PER_FRAME = 5;
+
+    private final SnakeSimulation simulation;
+    private final double secondsPerTick;
+    private final int maxStepsPerFrame;
+    private RewindBuffer rewind;
+    private Runnable beforeStep;
+
+    private double lastTime;
+    private double accumulatedDelta = 0;
+    private double fpsTime = 0;
+    private int fps;
+    private int frameCount = 0;
+    private double lastStepTime;
+    private long skippedTicks = 0;
+    private final TimingStats frameTimes = new TimingStats();
+    private final TimingStats tickIntervals = new TimingStats();
+
+    public FrameLoop(final SnakeSimulation simulation, final int ticksPerSecond) {
+        this(simulation, ticksPerSecond, MAX_STEPS_PER_FRAME);
+    }
+
+    public FrameLoop(final SnakeSimulation simulation, final int ticksPerSecond, final int maxStepsPerFrame) {
+        if (maxStepsPerFrame < 1)
+            throw new IllegalArgumentException("maxStepsPerFrame must be positive: " + maxStepsPerFrame);
+        this.simulation = simulation;
+        this.secondsPerTick = 1.0d / ticksPerSecond;
+        this.maxStepsPerFrame = maxStepsPerFrame;
+        this.fps = ticksPerSecond;
+    }
+
+    public void setRewindBuffer(final RewindBuffer rewind) {
+        this.rewind = rewind;
+    }
+
+    public void setBeforeStep(final Runnable beforeStep) {
+        this.beforeStep = beforeStep;
+    }
+
+    /**
+     * Resets the timers; call once before the first frame.
+     */
+    public void start(final double time) {
+        this.lastTime = time;
+        this.accumulatedDelta = 0;
+        this.fpsTime = 0;
+        this.frameCount = 0;
+        this.lastStepTime = time;
+        this.skippedTicks = 0;
+        this.frameTimes.reset();
+        this.tickIntervals.reset();
+    }
+
+    /**
+     * Advances the timers to {@code time} and runs any due simulation steps,
+     * up to the per-frame limit.
+     *
+     * @return the number of steps run
+     */
+    public int update(final double time) {
+        this.accumulatedDelta += advanceTimers(time);
+
+        // Update game
+        int ticks = 0;
+        while (this.accumulatedDelta >= this.secondsPerTick && ticks < this.maxStepsPerFrame) {
+            if (this.beforeStep != null)
+                this.beforeStep.run();
+            this.simulation.step();
+            if (this.rewind != null)
+                this.rewind.record();
+            this.accumulatedDelta -= this.secondsPerTick;
+            this.tickIntervals.record(toNanos(time - this.lastStepTime));
+            this.lastStepTime = time;
+            ticks++;
+        }
+        if (this.accumulatedDelta >= this.secondsPerTick) {
+            // Too far behind - drop the remaining whole ticks
+            final long skipped = (long)(this.accumulatedDelta / this.secondsPerTick);
+            this.skippedTicks += skipped;
+            this.accumulatedDelta -= skipped * this.secondsPerTick;
+        }
+        return ticks;
+    }
+
+    /**
+     * Advances the frame timers to {@code time} without stepping, for when
+     * the simulation runs on a {@link SimulationThread}.
+     */
+    public void advance(final double time) {
+        advanceTimers(time);
+    }
+
+    /**
+     * Counts a rendered frame.
+     *
+     * @return {@code true} when a new fps sample is available, at most once a
+     *         second
+     */
+    public boolean endFrame() {
+        this.frameCount++;
+        if (this.fpsTime >= 1.0d) {
+            this.fps = this.frameCount;
+            this.frameCount = 0;
+            this.fpsTime -= 1.0d;
+            return true;
+        }
+        return false;
+    }
+
+    public int getFps() {
+        return this.fps;
+    }
+
+    /**
+     * How far the last {@link #update} time is between the simulation's
+     * previous tick ({@code 0}) and its current one ({@code 1}).
+     */
+    public float getAlpha() {
+        return (float)Math.min(this.accumulatedDelta / this.secondsPerTick, 1.0d);
+    }
+
+    /**
+     * Ticks dropped because a frame was more than the step limit behind.
+     */
+    public long getSkippedTicks() {
+        return this.skippedTicks;
+    }
+
+    /**
+     * Time between consecutive calls to {@link #update} or {@link #advance}.
+     */
+    public TimingStats getFrameTimes() {
+        return this.frameTimes;
+    }
+
+    /**
+     * Time between consecutive steps run by {@link #update}.
+     */
+    public TimingStats getTickIntervals() {
+        return this.tickIntervals;
+    }
+
+    private double advanceTimers(final double time) {
+        final double delta = time - this.lastTime;
+        this.lastTime = time;
+        this.fpsTime += delta;
+        this.frameTimes.record(toNanos(delta));
+        return delta;
+    }
+
+    private static long toNanos(final double seconds) {
+        return (long)(seconds * 1e9);
+    }
+
+}
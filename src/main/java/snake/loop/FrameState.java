@@ -0,0 +1,153 @@
+package snake.loop;
+
+import snake.sim.GameView;
+import snake.sim.OccupancyGrid;
+
+/**
+ * Copy of the drawable state of a game at one tick, published by the
+ * simulation thread and read by the render thread.
+ * <p>
+ * The body array only grows, so capturing into a reused instance does not
+ * allocate once the snake has stopped growing. The body is also kept as an
+ * occupancy grid, for {@link #nextBodyCell}.
+ */
+public final class FrameState implements GameView {
+
+    private int gridCols;
+    private int gridRows;
+    private long tick;
+    private long timeNanos;
+    private int headCell;
+    private float headX;
+    private float headY;
+    private float previousHeadX;
+    private float previousHeadY;
+    private int[] body = new int[64];
+    private int bodyLength;
+    private OccupancyGrid occupancy;
+    private int food;
+    private int score;
+    private boolean alive;
+    private boolean won;
+
+    /**
+     * Replaces this state with a copy of {@code game}.
+     *
+     * @param timeNanos when the tick was run, see {@link #getTimeNanos()}
+     */
+    public void capture(final GameView game, final long timeNanos) {
+        if (this.occupancy == null || game.getGridCols() != this.gridCols || game.getGridRows() != this.gridRows) {
+            this.occupancy = new OccupancyGrid(game.getGridCols(), game.getGridRows());
+            this.bodyLength = 0;
+        }
+        for (int i = 0; i < this.bodyLength; i++)
+            this.occupancy.clear(this.body[i]);
+        this.gridCols = game.getGridCols();
+        this.gridRows = game.getGridRows();
+        this.tick = game.getTick();
+        this.timeNanos = timeNanos;
+        this.headCell = game.getHeadCell();
+        this.headX = game.getHeadX();
+        this.headY = game.getHeadY();
+        this.previousHeadX = game.getPreviousHeadX();
+        this.previousHeadY = game.getPreviousHeadY();
+        this.bodyLength = game.getBodyLength();
+        if (this.body.length < this.bodyLength)
+            this.body = new int[Math.max(this.bodyLength, this.body.length << 1)];
+        for (int i = 0; i < this.bodyLength; i++) {
+            final int cell = game.getBodyCell(i);
+            this.body[i] = cell;
+            this.occupancy.set(cell);
+        }
+        this.food = game.getFood();
+        this.score = game.getScore();
+        this.alive = game.isAlive();
+        this.won = game.isWon();
+    }
+
+    @Override
+    public int getGridCols() {
+        return this.gridCols;
+    }
+
+    @Override
+    public int getGridRows() {
+        return this.gridRows;
+    }
+
+    @Override
+    public long getTick() {
+        return this.tick;
+    }
+
+    /**
+     * {@link System#nanoTime()} at the start of the tick this state was
+     * captured after.
+     */
+    public long getTimeNanos() {
+        return this.timeNanos;
+    }
+
+    @Override
+    public int getHeadCell() {
+        return this.headCell;
+    }
+
+    @Override
+    public float getHeadX() {
+        return this.headX;
+    }
+
+    @Override
+    public float getHeadY() {
+        return this.headY;
+    }
+
+    @Override
+    public float getPreviousHeadX() {
+        return this.previousHeadX;
+    }
+
+    @Override
+    public float getPreviousHeadY() {
+        return this.previousHeadY;
+    }
+
+    @Override
+    public int getBodyLength() {
+        return this.bodyLength;
+    }
+
+    @Override
+    public int getBodyCell(final int index) {
+        if (index >= this.bodyLength)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + this.bodyLength);
+        return this.body[index];
+    }
+
+    @Override
+    public int nextBodyCell(final int from, final int to) {
+        return this.occupancy.nextSet(from, to);
+    }
+
+    @Override
+    public int getFood() {
+        return this.food;
+    }
+
+    @Override
+    public int getScore() {
+        return this.score;
+    }
+
+    @Override
+    public boolean isAlive() {
+        return this.alive;
+    }
+
+    @Override
+    public boolean isWon() {
+        return this.won;
+    }
+
+}
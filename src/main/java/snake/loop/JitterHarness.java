@@ -0,0 +1,98 @@
+package snake.loop;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.joml.Matrix4f;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import snake.render.GameScene;
+import snake.render.RecordingRenderer;
+import snake.sim.Snake;
+import snake.sim.SnakeSimulation;
+
+/**
+ * Measures tick jitter and frame times in real time, with the simulation
+ * stepped by the frame loop or by a {@link SimulationThread}.
+ * <p>
+ * Usage: {@code JitterHarness [single|threaded] [seconds] [frameMillis]}.
+ * Each frame draws to a {@link RecordingRenderer} and then waits until
+ * {@code frameMillis} have passed since it started, standing in for a swap
+ * blocked on v-sync or a slow GPU. Every few frames two quick perpendicular
+ * key presses are queued, as from a player turning twice in a row, and the
+ * delay until each is applied is reported.
+ */
+public final class JitterHarness {
+
+    private static final Logger logger = LoggerFactory.getLogger(JitterHarness.class);
+
+    private static final int TICKS_PER_SECOND = 60;
+    private static final int FRAMES_PER_PRESS = 30;
+    private static final Snake.Direction[] presses = {
+            Snake.Direction.LEFT, Snake.Direction.UP, Snake.Direction.RIGHT, Snake.Direction.DOWN
+    };
+
+    public static void main(String[] args) {
+        final boolean threaded = args.length > 0 && "threaded".equals(args[0]);
+        final int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        final double frameMillis = args.length > 2 ? Double.parseDouble(args[2]) : 1000.0d / 45;
+
+        final SnakeSimulation simulation = new SnakeSimulation(40, 30, 1L);
+        final KeyEventQueue keyEvents = new KeyEventQueue(64);
+        final TurnInput input = new TurnInput(simulation, keyEvents, System::nanoTime);
+        final Runnable beforeStep = () -> {
+            if (!simulation.isAlive() || simulation.isWon())
+                simulation.reset(simulation.getSeed() + 1);
+            input.apply();
+        };
+        final FrameLoop loop = new FrameLoop(simulation, TICKS_PER_SECOND);
+        loop.setBeforeStep(beforeStep);
+        final SimulationThread simulationThread = new SimulationThread(simulation, TICKS_PER_SECOND, beforeStep, () -> { });
+        final GameScene scene = new GameScene();
+        final RecordingRenderer renderer = new RecordingRenderer();
+        final Matrix4f projection = new Matrix4f().ortho2D(0, 40, 30, 0);
+
+        final long frameNanos = (long)(frameMillis * 1e6);
+        final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        loop.start(System.nanoTime() / 1e9);
+        if (threaded)
+            simulationThread.start();
+        long frameStart = System.nanoTime();
+        int frame = 0;
+        int press = 0;
+        while (frameStart < end) {
+            if (frame++ % FRAMES_PER_PRESS == 0) {
+                keyEvents.offer(presses[press++ & 3].ordinal(), frameStart);
+                keyEvents.offer(presses[press++ & 3].ordinal(), frameStart);
+            }
+            if (threaded) {
+                loop.advance(frameStart / 1e9);
+                final FrameState state = simulationThread.latest();
+                scene.draw(state, simulationThread.getAlpha(state, System.nanoTime()), renderer, projection);
+            } else {
+                loop.update(frameStart / 1e9);
+                scene.draw(simulation, loop.getAlpha(), renderer, projection);
+            }
+            loop.endFrame();
+
+            final long deadline = frameStart + frameNanos;
+            long now = System.nanoTime();
+            while (now < deadline) {
+                LockSupport.parkNanos(deadline - now);
+                now = System.nanoTime();
+            }
+            frameStart = now;
+        }
+        if (threaded)
+            simulationThread.stop();
+
+        logger.info("Mode: {}, {}s at {} ms/frame", threaded ? "threaded" : "single", seconds, frameMillis);
+        logger.info("Frame times: {}", loop.getFrameTimes());
+        logger.info("Tick intervals: {}", threaded ? simulationThread.getTickIntervals() : loop.getTickIntervals());
+        if (threaded)
+            logger.info("Tick durations: {}", simulationThread.getTickDurations());
+        logger.info("Skipped ticks: {}", threaded ? simulationThread.getSkippedTicks() : loop.getSkippedTicks());
+        logger.info("Input latency: {}, dropped: {}", input.getLatency(), keyEvents.getDropped());
+    }
+
+}
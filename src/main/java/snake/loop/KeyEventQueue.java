@@ -0,0 +1,113 @@
+package snake.loop;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free single-producer, single-consumer ring of timestamped direction
+ * key presses.
+ * <p>
+ * The window thread {@link #offer}s events from the key callback; the thread
+ * that steps the simulation peeks and {@link #poll}s them. Events are never
+ * reordered, and if the consumer falls a whole ring behind new events are
+ * dropped and counted rather than blocking the producer. Neither side
+ * allocates.
+ */
+public final class KeyEventQueue {
+
+    private final int mask;
+    private final int[] directions;
+    private final long[] times;
+
+    // Each index is only written by its own side; lazySet publishes the slot
+    // contents written before it
+    private final AtomicLong writeIndex = new AtomicLong();
+    private final AtomicLong readIndex = new AtomicLong();
+    private long cachedReadIndex = 0;  // Producer's last view of readIndex
+    private long dropped = 0;
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public KeyEventQueue(final int capacity) {
+        if (capacity < 1 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Capacity out of range: " + capacity);
+        final int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.mask = size - 1;
+        this.directions = new int[size];
+        this.times = new long[size];
+    }
+
+    /**
+     * Adds an event. Producer thread only.
+     *
+     * @param direction a {@code Snake.Direction} ordinal
+     * @param timeNanos when the key was pressed
+     * @return {@code false} if the queue was full and the event was dropped
+     */
+    public boolean offer(final int direction, final long timeNanos) {
+        final long write = this.writeIndex.get();
+        if (write - this.cachedReadIndex > this.mask) {
+            this.cachedReadIndex = this.readIndex.get();
+            if (write - this.cachedReadIndex > this.mask) {
+                this.dropped++;
+                return false;
+            }
+        }
+        final int slot = (int)write & this.mask;
+        this.directions[slot] = direction;
+        this.times[slot] = timeNanos;
+        this.writeIndex.lazySet(write + 1);
+        return true;
+    }
+
+    /**
+     * Consumer thread only.
+     */
+    public boolean isEmpty() {
+        return this.readIndex.get() == this.writeIndex.get();
+    }
+
+    /**
+     * Direction of the oldest event. Consumer thread only; the queue must not
+     * be empty.
+     */
+    public int peekDirection() {
+        return this.directions[(int)this.readIndex.get() & this.mask];
+    }
+
+    /**
+     * Timestamp of the oldest event. Consumer thread only; the queue must not
+     * be empty.
+     */
+    public long peekTime() {
+        return this.times[(int)this.readIndex.get() & this.mask];
+    }
+
+    /**
+     * Removes the oldest event. Consumer thread only; the queue must not be
+     * empty.
+     */
+    public void poll() {
+        this.readIndex.lazySet(this.readIndex.get() + 1);
+    }
+
+    /**
+     * Discards every queued event. Consumer thread only.
+     */
+    public void clear() {
+        this.readIndex.lazySet(this.writeIndex.get());
+    }
+
+    public int capacity() {
+        return this.mask + 1;
+    }
+
+    /**
+     * Events dropped because the queue was full. Read from the producer
+     * thread.
+     */
+    public long getDropped() {
+        return this.dropped;
+    }
+
+}
@@ -0,0 +1,156 @@
+package snake.loop;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import snake.sim.SnakeSimulation;
+
+/**
+ * Runs a simulation on its own thread at a steady tick rate and publishes a
+ * {@link FrameState} after every tick through a {@link TripleBuffer}.
+ * <p>
+ * Ticks are scheduled against absolute deadlines, so a late tick does not push
+ * back the ones after it. Late ticks are caught up back to back, but if the
+ * thread falls more than {@link FrameLoop#MAX_STEPS_PER_FRAME} ticks behind
+ * (e.g. after the process was suspended) it skips ahead instead of running
+ * all of the missed ticks in a burst.
+ */
+public final class SimulationThread {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimulationThread.class);
+
+    private final SnakeSimulation simulation;
+    private final long nanosPerTick;
+    private final int maxLagTicks;
+    private final Runnable beforeTick;
+    private final Runnable afterTick;
+    private final TripleBuffer<FrameState> states = new TripleBuffer<>(FrameState::new);
+    private final TimingStats tickIntervals = new TimingStats();
+    private final TimingStats tickDurations = new TimingStats();
+
+    private final Thread thread;
+    private volatile boolean running = false;
+    private long skippedTicks = 0;
+
+    /**
+     * @param beforeTick run on the simulation thread before every step, e.g.
+     *        to apply input
+     * @param afterTick run on the simulation thread after every step
+     */
+    public SimulationThread(final SnakeSimulation simulation, final int ticksPerSecond,
+                            final Runnable beforeTick, final Runnable afterTick) {
+        this.simulation = simulation;
+        this.nanosPerTick = TimeUnit.SECONDS.toNanos(1) / ticksPerSecond;
+        this.maxLagTicks = FrameLoop.MAX_STEPS_PER_FRAME;
+        this.beforeTick = beforeTick;
+        this.afterTick = afterTick;
+        this.thread = new Thread(this::run, "simulation");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Publishes the current state and starts ticking.
+     */
+    public void start() {
+        this.states.back().capture(this.simulation, System.nanoTime());
+        this.states.publish();
+        this.running = true;
+        this.thread.start();
+    }
+
+    /**
+     * Stops ticking and waits for the thread to finish its current tick.
+     */
+    public void stop() {
+        this.running = false;
+        LockSupport.unpark(this.thread);
+        try {
+            this.thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Thread getThread() {
+        return this.thread;
+    }
+
+    /**
+     * The newest published state. Render thread only.
+     */
+    public FrameState latest() {
+        return this.states.front();
+    }
+
+    /**
+     * How far {@code nowNanos} is between the previous tick of {@code state}
+     * ({@code 0}) and its current one ({@code 1}), assuming the next tick
+     * runs on time.
+     */
+    public float getAlpha(final FrameState state, final long nowNanos) {
+        final float alpha = (float)(nowNanos - state.getTimeNanos()) / this.nanosPerTick;
+        return Math.max(0.0f, Math.min(alpha, 1.0f));
+    }
+
+    /**
+     * Ticks dropped after falling too far behind. Read after {@link #stop()}.
+     */
+    public long getSkippedTicks() {
+        return this.skippedTicks;
+    }
+
+    /**
+     * Time between the starts of consecutive ticks; the deviation from the
+     * tick period is the jitter. Read after {@link #stop()}.
+     */
+    public TimingStats getTickIntervals() {
+        return this.tickIntervals;
+    }
+
+    /**
+     * Time spent inside each tick, including publishing. Read after
+     * {@link #stop()}.
+     */
+    public TimingStats getTickDurations() {
+        return this.tickDurations;
+    }
+
+    private void run() {
+        logger.debug("Simulation thread started");
+        long deadline = System.nanoTime();
+        long lastStart = 0;
+        while (this.running) {
+            long now = System.nanoTime();
+            while (now < deadline && this.running) {
+                LockSupport.parkNanos(deadline - now);
+                now = System.nanoTime();
+            }
+            if (!this.running)
+                break;
+
+            if (lastStart != 0)
+                this.tickIntervals.record(now - lastStart);
+            lastStart = now;
+
+            this.beforeTick.run();
+            this.simulation.step();
+            this.afterTick.run();
+            this.states.back().capture(this.simulation, now);
+            this.states.publish();
+            this.tickDurations.record(System.nanoTime() - now);
+
+            deadline += this.nanosPerTick;
+            if (now - deadline > this.maxLagTicks * this.nanosPerTick) {
+                final long skipped = (now - deadline) / this.nanosPerTick;
+                if (logger.isTraceEnabled())
+                    logger.trace("Simulation fell behind, skipping {} ticks", skipped);
+                this.skippedTicks += skipped;
+                deadline += skipped * this.nanosPerTick;
+            }
+        }
+        logger.debug("Simulation thread stopped");
+    }
+
+}
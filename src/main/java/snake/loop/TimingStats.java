@@ -0,0 +1,64 @@
+package snake.loop;
+
+/**
+ * Running count, mean, standard deviation and range of a series of durations.
+ * <p>
+ * Recording is a few arithmetic operations and never allocates. Not thread
+ * safe; read the results from the recording thread or after it has stopped.
+ */
+public final class TimingStats {
+
+    private long count = 0;
+    private double sum = 0;
+    private double sumOfSquares = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    public void record(final long nanos) {
+        this.count++;
+        this.sum += nanos;
+        this.sumOfSquares += (double)nanos * nanos;
+        if (nanos < this.min)
+            this.min = nanos;
+        if (nanos > this.max)
+            this.max = nanos;
+    }
+
+    public void reset() {
+        this.count = 0;
+        this.sum = 0;
+        this.sumOfSquares = 0;
+        this.min = Long.MAX_VALUE;
+        this.max = Long.MIN_VALUE;
+    }
+
+    public long getCount() {
+        return this.count;
+    }
+
+    public double getMeanNanos() {
+        return this.count == 0 ? 0 : this.sum / this.count;
+    }
+
+    public double getStdDevNanos() {
+        if (this.count == 0)
+            return 0;
+        final double mean = this.sum / this.count;
+        return Math.sqrt(Math.max(0, this.sumOfSquares / this.count - mean * mean));
+    }
+
+    public long getMinNanos() {
+        return this.count == 0 ? 0 : this.min;
+    }
+
+    public long getMaxNanos() {
+        return this.count == 0 ? 0 : this.max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.3fms stddev=%.3fms min=%.3fms max=%.3fms",
+                this.count, getMeanNanos() / 1e6, getStdDevNanos() / 1e6, getMinNanos() / 1e6, getMaxNanos() / 1e6);
+    }
+
+}
@@ -0,0 +1,57 @@
+package snake.loop;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Lock-free triple buffer handing the latest value from one writer thread to
+ * one reader thread.
+ * <p>
+ * The writer fills {@link #back()} and calls {@link #publish()}; the reader
+ * calls {@link #front()} whenever it wants the newest published value.
+ * Neither side ever blocks or waits on the other: each owns one slot, and the
+ * third is swapped with a single atomic exchange. Values the reader never
+ * saw are simply overwritten.
+ */
+public final class TripleBuffer<T> {
+
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4;  // set on the middle slot when it holds an unread value
+
+    private final Object[] slots = new Object[3];
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0;  // Writer's slot
+    private int front = 2;  // Reader's slot
+
+    public TripleBuffer(final Supplier<T> factory) {
+        for (int i = 0; i < this.slots.length; i++)
+            this.slots[i] = factory.get();
+    }
+
+    /**
+     * The slot the writer may fill. Writer thread only.
+     */
+    @SuppressWarnings("unchecked")
+    public T back() {
+        return (T)this.slots[this.back];
+    }
+
+    /**
+     * Makes the back slot the newest value. Writer thread only.
+     */
+    public void publish() {
+        this.back = this.middle.getAndSet(this.back | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Returns the newest published value, or the same value as last time if
+     * nothing new was published. Reader thread only.
+     */
+    @SuppressWarnings("unchecked")
+    public T front() {
+        if ((this.middle.get() & FRESH) != 0)
+            this.front = this.middle.getAndSet(this.front) & INDEX_MASK;
+        return (T)this.slots[this.front];
+    }
+
+}
@@ -0,0 +1,89 @@
+package snake.loop;
+
+import java.util.function.LongSupplier;
+
+import snake.sim.Snake;
+import snake.sim.SnakeSimulation;
+
+/**
+ * Applies queued key presses to a simulation, once per tick.
+ * <p>
+ * At most one turn is applied per cell the head moves through: once a turn
+ * has been taken, further presses wait in the queue until the head has left
+ * that cell, even if it comes straight back to it, e.g. around a wrapping
+ * edge. Without this, a quick W then D while moving left would turn up
+ * and then right within the same cell, which the game sees as a reversal onto
+ * the body. Presses that do not change direction are discarded.
+ * <p>
+ * The time from each key press to the tick that applies it is kept in
+ * {@link #getLatency()}.
+ */
+public final class TurnInput {
+
+    private static final Snake.Direction[] directions = Snake.Direction.values();
+
+    private final SnakeSimulation simulation;
+    private final KeyEventQueue queue;
+    private final LongSupplier clock;
+    private final TimingStats latency = new TimingStats();
+
+    private int turnCell = -1;  // Cell the head was in at the last turn, until it leaves
+    private long turnTick = -1;
+
+    /**
+     * @param clock the time base of the queued timestamps, in nanoseconds
+     */
+    public TurnInput(final SnakeSimulation simulation, final KeyEventQueue queue, final LongSupplier clock) {
+        this.simulation = simulation;
+        this.queue = queue;
+        this.clock = clock;
+    }
+
+    /**
+     * Drains the queue up to and including the first press that turns the
+     * snake. Call once per tick, before stepping.
+     *
+     * @return the direction turned to, or {@code null} if none
+     */
+    public Snake.Direction apply() {
+        final long tick = this.simulation.getTick();
+        if (tick < this.turnTick)
+            this.turnCell = -1;  // Rewound or reset since the last turn
+
+        final int cell = this.simulation.getHeadCell();
+        if (cell == this.turnCell)
+            return null;  // Already turned in this cell
+        this.turnCell = -1;  // Left it, so coming back is a new visit
+
+        while (!this.queue.isEmpty()) {
+            final Snake.Direction direction = directions[this.queue.peekDirection()];
+            final long pressed = this.queue.peekTime();
+            this.queue.poll();
+            if (this.simulation.turn(direction)) {
+                this.latency.record(this.clock.getAsLong() - pressed);
+                this.turnCell = cell;
+                this.turnTick = tick;
+                return direction;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Discards queued presses and forgets the last turn.
+     */
+    public void clear() {
+        this.queue.clear();
+        this.turnCell = -1;
+        this.turnTick = -1;
+    }
+
+    /**
+     * Time from key press to the tick that applied the turn. Read from the
+     * thread calling {@link #apply()}, or after it has stopped.
+     */
+    public TimingStats getLatency() {
+        return this.latency;
+    }
+
+}
@@ -0,0 +1,122 @@
+package snake.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-frame timings of the render loop, kept as histograms.
+ * <p>
+ * The render thread calls {@link #startFrame} at the top of every frame and
+ * the {@code record} methods as each phase finishes. Values go into live
+ * histograms owned by that thread; once per interval they are copied to a
+ * published set under a lock and the live ones start over. Other threads
+ * (JMX, the file reporter, the overlay) only ever read the published set
+ * through {@link #read}, so the hot path neither allocates nor contends.
+ */
+public final class FrameMetrics {
+
+    /** What is measured. */
+    public enum Series {
+        /** Start of one frame to the start of the next. */
+        FRAME_TIME,
+        /** Input and simulation steps. */
+        UPDATE_TIME,
+        /** Building and submitting draw calls. */
+        RENDER_TIME,
+        /** Buffer swap and event polling, including any wait for v-sync. */
+        SWAP_TIME,
+        /** Simulation ticks run per frame, a count rather than a duration. */
+        TICKS_PER_FRAME
+    }
+
+    private static final Series[] series = Series.values();
+
+    private final long intervalNanos;
+    private final Histogram[] live = new Histogram[series.length];
+    private final Histogram[] published = new Histogram[series.length];
+    private long lastFrameStart = -1;
+    private long intervalStart = -1;
+    private long publishedAt = 0;
+    private long publishedDuration = 0;
+
+    public FrameMetrics(final long interval, final TimeUnit unit) {
+        this.intervalNanos = unit.toNanos(interval);
+        for (int i = 0; i < series.length; i++) {
+            this.live[i] = new Histogram();
+            this.published[i] = new Histogram();
+        }
+    }
+
+    /**
+     * Marks the start of a frame; render thread only.
+     *
+     * @param now {@link System#nanoTime()}
+     */
+    public void startFrame(final long now) {
+        if (this.lastFrameStart >= 0)
+            this.live[Series.FRAME_TIME.ordinal()].record(now - this.lastFrameStart);
+        this.lastFrameStart = now;
+        if (this.intervalStart < 0)
+            this.intervalStart = now;
+        else if (now - this.intervalStart >= this.intervalNanos)
+            publish(now);
+    }
+
+    public void recordUpdate(final long nanos, final int ticks) {
+        this.live[Series.UPDATE_TIME.ordinal()].record(nanos);
+        this.live[Series.TICKS_PER_FRAME.ordinal()].record(ticks);
+    }
+
+    public void recordRender(final long nanos) {
+        this.live[Series.RENDER_TIME.ordinal()].record(nanos);
+    }
+
+    public void recordSwap(final long nanos) {
+        this.live[Series.SWAP_TIME.ordinal()].record(nanos);
+    }
+
+    /**
+     * Copies the last published interval of every series into {@code into},
+     * indexed by {@link Series#ordinal()}. Safe from any thread.
+     *
+     * @return {@link #getPublishedAt()} of the copied interval
+     */
+    public long read(final Histogram[] into) {
+        synchronized (this.published) {
+            for (int i = 0; i < series.length; i++)
+                into[i].copyFrom(this.published[i]);
+            return this.publishedAt;
+        }
+    }
+
+    /**
+     * {@link System#nanoTime()} at which the last interval was published, or
+     * {@code 0} if none has been yet.
+     */
+    public long getPublishedAt() {
+        synchronized (this.published) {
+            return this.publishedAt;
+        }
+    }
+
+    /**
+     * Length of the last published interval in nanoseconds.
+     */
+    public long getPublishedDuration() {
+        synchronized (this.published) {
+            return this.publishedDuration;
+        }
+    }
+
+    private void publish(final long now) {
+        synchronized (this.published) {
+            for (int i = 0; i < series.length; i++)
+                this.published[i].copyFrom(this.live[i]);
+            this.publishedAt = now;
+            this.publishedDuration = now - this.intervalStart;
+        }
+        for (Histogram histogram : this.live)
+            histogram.reset();
+        this.intervalStart = now;
+    }
+
+}
@@ -0,0 +1,127 @@
+package snake.metrics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Garbage collection and allocation counters from the platform MXBeans.
+ * <p>
+ * Every collection the JVM reports is timed into a pause histogram by a
+ * notification listener, which runs on a JMX thread rather than the render
+ * loop. Allocation is counted per watched thread, so that the bytes the
+ * render and simulation threads allocate can be told apart from the rest.
+ */
+public final class GcMonitor implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(GcMonitor.class);
+
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final Histogram pauses = new Histogram();  // Guarded by itself
+    private final NotificationListener listener = this::handleNotification;
+    private long[] watchedThreads = new long[0];
+
+    public GcMonitor() {
+        for (GarbageCollectorMXBean collector : this.collectors)
+            if (collector instanceof NotificationEmitter)
+                ((NotificationEmitter)collector).addNotificationListener(this.listener, null, null);
+    }
+
+    /**
+     * Includes {@code thread} in {@link #getAllocatedBytes()}.
+     */
+    public synchronized void watch(final Thread thread) {
+        final long[] ids = new long[this.watchedThreads.length + 1];
+        System.arraycopy(this.watchedThreads, 0, ids, 0, this.watchedThreads.length);
+        ids[ids.length - 1] = thread.getId();
+        this.watchedThreads = ids;
+    }
+
+    /**
+     * Collections since the JVM started, over all collectors.
+     */
+    public long getCollectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : this.collectors)
+            count += Math.max(collector.getCollectionCount(), 0);
+        return count;
+    }
+
+    /**
+     * Approximate time spent collecting since the JVM started.
+     */
+    public long getCollectionTimeMillis() {
+        long time = 0;
+        for (GarbageCollectorMXBean collector : this.collectors)
+            time += Math.max(collector.getCollectionTime(), 0);
+        return time;
+    }
+
+    /**
+     * Copies the durations of the stop-the-world collections seen so far, in
+     * nanoseconds, into {@code into}.
+     */
+    public void readPauses(final Histogram into) {
+        synchronized (this.pauses) {
+            into.copyFrom(this.pauses);
+        }
+    }
+
+    /**
+     * Bytes allocated so far by the watched threads, or {@code -1} if the JVM
+     * cannot measure it.
+     */
+    public synchronized long getAllocatedBytes() {
+        if (!(this.threads instanceof com.sun.management.ThreadMXBean))
+            return -1;
+        final com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean)this.threads;
+        if (!hotspot.isThreadAllocatedMemorySupported() || !hotspot.isThreadAllocatedMemoryEnabled())
+            return -1;
+        long total = 0;
+        for (long bytes : hotspot.getThreadAllocatedBytes(this.watchedThreads))
+            total += Math.max(bytes, 0);  // -1 once a thread has died
+        return total;
+    }
+
+    @Override
+    public void close() {
+        for (GarbageCollectorMXBean collector : this.collectors) {
+            if (collector instanceof NotificationEmitter) {
+                try {
+                    ((NotificationEmitter)collector).removeNotificationListener(this.listener);
+                } catch (ListenerNotFoundException e) {
+                    logger.debug("GC listener already removed - " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void handleNotification(final Notification notification, final Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType()))
+            return;
+        final GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData)notification.getUserData());
+        // Concurrent cycles (G1 Concurrent, ZGC/Shenandoah Cycles) run
+        // alongside the application and are not pauses
+        final String name = info.getGcName();
+        if (name.contains("Concurrent") || name.contains("Cycles"))
+            return;
+        final long nanos = TimeUnit.MILLISECONDS.toNanos(info.getGcInfo().getDuration());
+        synchronized (this.pauses) {
+            this.pauses.record(nanos);
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package snake.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size histogram of non-negative {@code long} values, such as durations
+ * in nanoseconds.
+ * <p>
+ * Values below 32 are counted exactly; above that each power of two is split
+ * into 16 linear buckets, so any value is reported to within about 6% using
+ * 960 counters for the whole {@code long} range. Recording is a few integer
+ * operations and never allocates. Not thread safe.
+ */
+public final class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;  // per power of two
+    private static final int LINEAR_LIMIT = SUB_BUCKETS << 1;  // values below are exact
+    private static final int BUCKETS = LINEAR_LIMIT + (63 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count = 0;
+    private long sum = 0;
+    private long min = Long.MAX_VALUE;
+    private long max = 0;
+
+    public void record(final long value) {
+        final long v = Math.max(value, 0);
+        this.counts[bucket(v)]++;
+        this.count++;
+        this.sum += v;
+        if (v < this.min)
+            this.min = v;
+        if (v > this.max)
+            this.max = v;
+    }
+
+    public void reset() {
+        if (this.count == 0)
+            return;
+        Arrays.fill(this.counts, 0);
+        this.count = 0;
+        this.sum = 0;
+        this.min = Long.MAX_VALUE;
+        this.max = 0;
+    }
+
+    /**
+     * Makes this histogram an exact copy of {@code other}.
+     */
+    public void copyFrom(final Histogram other) {
+        System.arraycopy(other.counts, 0, this.counts, 0, BUCKETS);
+        this.count = other.count;
+        this.sum = other.sum;
+        this.min = other.min;
+        this.max = other.max;
+    }
+
+    /**
+     * Adds every value recorded in {@code other} to this histogram.
+     */
+    public void add(final Histogram other) {
+        for (int i = 0; i < BUCKETS; i++)
+            this.counts[i] += other.counts[i];
+        this.count += other.count;
+        this.sum += other.sum;
+        this.min = Math.min(this.min, other.min);
+        this.max = Math.max(this.max, other.max);
+    }
+
+    public long getCount() {
+        return this.count;
+    }
+
+    public long getMin() {
+        return this.count == 0 ? 0 : this.min;
+    }
+
+    public long getMax() {
+        return this.max;
+    }
+
+    public double getMean() {
+        return this.count == 0 ? 0 : (double)this.sum / this.count;
+    }
+
+    /**
+     * The value below which {@code percentile} percent of the recorded values
+     * fall, e.g. {@code 99.0}. Reported as the top of the containing bucket,
+     * so it never understates, and never above the largest value recorded.
+     */
+    public long getPercentile(final double percentile) {
+        if (this.count == 0)
+            return 0;
+        final long rank = Math.max(1, (long)Math.ceil(percentile / 100.0d * this.count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.counts[i];
+            if (seen >= rank)
+                return Math.min(highestValue(i), this.max);
+        }
+        return this.max;
+    }
+
+    static int bucket(final long value) {
+        if (value < LINEAR_LIMIT)
+            return (int)value;
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        final int mantissa = (int)(value >>> shift);  // in [SUB_BUCKETS, 2 * SUB_BUCKETS)
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + mantissa - SUB_BUCKETS;
+    }
+
+    static long highestValue(final int bucket) {
+        if (bucket < LINEAR_LIMIT)
+            return bucket;
+        final int shift = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        final long mantissa = SUB_BUCKETS + (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+}
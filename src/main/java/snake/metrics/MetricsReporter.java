@@ -0,0 +1,119 @@
+package snake.metrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Appends a line of {@link RuntimeMetrics} to a CSV file at a fixed interval,
+ * on its own daemon thread.
+ * <p>
+ * When the file would grow past {@code maxBytes} it is rotated: {@code file}
+ * becomes {@code file.1}, {@code file.1} becomes {@code file.2} and so on,
+ * keeping at most {@code maxFiles} old files. Each file starts with a header
+ * line, so every file can be loaded on its own.
+ */
+public final class MetricsReporter implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsReporter.class);
+
+    private final RuntimeMetrics metrics;
+    private final Path file;
+    private final long maxBytes;
+    private final int maxFiles;
+    private final ScheduledExecutorService executor;
+    private final StringBuilder line = new StringBuilder(256);
+    private BufferedWriter writer;
+    private long size;
+    private long lastPublishedAt = 0;
+
+    public MetricsReporter(final RuntimeMetrics metrics, final FrameMetrics frames, final Path file,
+                           final long maxBytes, final int maxFiles, final long interval, final TimeUnit unit) throws IOException {
+        this.metrics = metrics;
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+        open();
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleAtFixedRate(() -> report(frames), interval, interval, unit);
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdown();
+        try {
+            this.executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            this.writer.close();
+        } catch (IOException e) {
+            logger.error("Unable to close metrics file - " + e.getMessage());
+        }
+    }
+
+    private void report(final FrameMetrics frames) {
+        final long publishedAt = frames.getPublishedAt();
+        if (publishedAt == this.lastPublishedAt)
+            return;  // No frames since the last line, e.g. the window is minimised
+        this.lastPublishedAt = publishedAt;
+
+        this.line.setLength(0);
+        this.metrics.appendCsv(this.line);
+        try {
+            if (this.size + this.line.length() > this.maxBytes)
+                rotate();
+            write(this.line);
+        } catch (IOException e) {
+            logger.error("Unable to write metrics - " + e.getMessage());
+        }
+    }
+
+    private void open() throws IOException {
+        this.writer = Files.newBufferedWriter(this.file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        this.size = Files.size(this.file);
+        if (this.size == 0)
+            write(RuntimeMetrics.CSV_HEADER + '\n');
+    }
+
+    private void rotate() throws IOException {
+        this.writer.close();
+        for (int i = this.maxFiles - 1; i >= 1; i--) {
+            final Path older = sibling(i);
+            if (Files.exists(older))
+                Files.move(older, sibling(i + 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (this.maxFiles > 0)
+            Files.move(this.file, sibling(1), StandardCopyOption.REPLACE_EXISTING);
+        else
+            Files.delete(this.file);
+        open();
+    }
+
+    private Path sibling(final int index) {
+        return this.file.resolveSibling(this.file.getFileName() + "." + index);
+    }
+
+    private void write(final CharSequence text) throws IOException {
+        this.writer.append(text);
+        this.writer.flush();
+        this.size += text.length();  // ASCII only
+    }
+
+}
@@ -0,0 +1,213 @@
+package snake.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Joins {@link FrameMetrics} and {@link GcMonitor} into one read-only view,
+ * used by JMX, the {@link MetricsReporter} and the overlay.
+ * <p>
+ * Reads copy the newest published interval once and answer from the copy, so
+ * the frame loop is never involved.
+ */
+public final class RuntimeMetrics implements RuntimeMetricsMXBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuntimeMetrics.class);
+
+    public static final String OBJECT_NAME = "snake:type=RuntimeMetrics";
+
+    private static final FrameMetrics.Series[] series = FrameMetrics.Series.values();
+
+    private final FrameMetrics frames;
+    private final GcMonitor gc;
+    private final Histogram[] copies = new Histogram[series.length];
+    private final Histogram pauses = new Histogram();
+    private long copiedAt = -1;
+    private long copiedDuration = 0;
+    private boolean pinned = false;  // Keep the current copy while writing a CSV line
+    private ObjectName registeredName;
+
+    public RuntimeMetrics(final FrameMetrics frames, final GcMonitor gc) {
+        this.frames = frames;
+        this.gc = gc;
+        for (int i = 0; i < series.length; i++)
+            this.copies[i] = new Histogram();
+    }
+
+    /**
+     * Registers this view with the platform MBean server; failure is logged
+     * and otherwise ignored.
+     */
+    public synchronized void register() {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name))
+                server.unregisterMBean(name);
+            server.registerMBean(this, name);
+            this.registeredName = name;
+        } catch (JMException e) {
+            logger.error("Unable to register metrics MBean - " + e.getMessage());
+        }
+    }
+
+    public synchronized void unregister() {
+        if (this.registeredName == null)
+            return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.registeredName);
+        } catch (JMException e) {
+            logger.debug("Unable to unregister metrics MBean - " + e.getMessage());
+        }
+        this.registeredName = null;
+    }
+
+    /** Column names of {@link #appendCsv}. */
+    public static final String CSV_HEADER = "time_ms,interval_s,frames,"
+            + "frame_mean_ms,frame_p50_ms,frame_p99_ms,frame_p999_ms,frame_max_ms,"
+            + "update_p99_ms,render_p99_ms,swap_p99_ms,ticks_per_frame_mean,ticks_per_frame_max,"
+            + "gc_count,gc_time_ms,gc_pause_p99_ms,gc_pause_max_ms,allocated_bytes";
+
+    /**
+     * Appends every metric as one CSV line, all frame statistics taken from
+     * the same interval.
+     */
+    public synchronized void appendCsv(final StringBuilder out) {
+        series(FrameMetrics.Series.FRAME_TIME);
+        this.pinned = true;
+        try {
+            out.append(System.currentTimeMillis()).append(',')
+                    .append(format(getIntervalSeconds())).append(',')
+                    .append(getFrames()).append(',')
+                    .append(format(getFrameTimeMeanMillis())).append(',')
+                    .append(format(getFrameTimeP50Millis())).append(',')
+                    .append(format(getFrameTimeP99Millis())).append(',')
+                    .append(format(getFrameTimeP999Millis())).append(',')
+                    .append(format(getFrameTimeMaxMillis())).append(',')
+                    .append(format(getUpdateTimeP99Millis())).append(',')
+                    .append(format(getRenderTimeP99Millis())).append(',')
+                    .append(format(getSwapTimeP99Millis())).append(',')
+                    .append(format(getTicksPerFrameMean())).append(',')
+                    .append(getTicksPerFrameMax()).append(',')
+                    .append(getGcCount()).append(',')
+                    .append(getGcTimeMillis()).append(',')
+                    .append(format(getGcPauseP99Millis())).append(',')
+                    .append(format(getGcPauseMaxMillis())).append(',')
+                    .append(getAllocatedBytes()).append('\n');
+        } finally {
+            this.pinned = false;
+        }
+    }
+
+    @Override
+    public synchronized double getIntervalSeconds() {
+        series(FrameMetrics.Series.FRAME_TIME);
+        return this.copiedDuration / 1e9;
+    }
+
+    @Override
+    public synchronized long getFrames() {
+        return series(FrameMetrics.Series.FRAME_TIME).getCount();
+    }
+
+    @Override
+    public synchronized double getFrameTimeMeanMillis() {
+        return series(FrameMetrics.Series.FRAME_TIME).getMean() / 1e6;
+    }
+
+    @Override
+    public synchronized double getFrameTimeP50Millis() {
+        return percentileMillis(FrameMetrics.Series.FRAME_TIME, 50.0d);
+    }
+
+    @Override
+    public synchronized double getFrameTimeP99Millis() {
+        return percentileMillis(FrameMetrics.Series.FRAME_TIME, 99.0d);
+    }
+
+    @Override
+    public synchronized double getFrameTimeP999Millis() {
+        return percentileMillis(FrameMetrics.Series.FRAME_TIME, 99.9d);
+    }
+
+    @Override
+    public synchronized double getFrameTimeMaxMillis() {
+        return series(FrameMetrics.Series.FRAME_TIME).getMax() / 1e6;
+    }
+
+    @Override
+    public synchronized double getUpdateTimeP99Millis() {
+        return percentileMillis(FrameMetrics.Series.UPDATE_TIME, 99.0d);
+    }
+
+    @Override
+    public synchronized double getRenderTimeP99Millis() {
+        return percentileMillis(FrameMetrics.Series.RENDER_TIME, 99.0d);
+    }
+
+    @Override
+    public synchronized double getSwapTimeP99Millis() {
+        return percentileMillis(FrameMetrics.Series.SWAP_TIME, 99.0d);
+    }
+
+    @Override
+    public synchronized double getTicksPerFrameMean() {
+        return series(FrameMetrics.Series.TICKS_PER_FRAME).getMean();
+    }
+
+    @Override
+    public synchronized long getTicksPerFrameMax() {
+        return series(FrameMetrics.Series.TICKS_PER_FRAME).getMax();
+    }
+
+    @Override
+    public long getGcCount() {
+        return this.gc.getCollectionCount();
+    }
+
+    @Override
+    public long getGcTimeMillis() {
+        return this.gc.getCollectionTimeMillis();
+    }
+
+    @Override
+    public synchronized double getGcPauseP99Millis() {
+        this.gc.readPauses(this.pauses);
+        return this.pauses.getPercentile(99.0d) / 1e6;
+    }
+
+    @Override
+    public synchronized double getGcPauseMaxMillis() {
+        this.gc.readPauses(this.pauses);
+        return this.pauses.getMax() / 1e6;
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return this.gc.getAllocatedBytes();
+    }
+
+    private double percentileMillis(final FrameMetrics.Series s, final double percentile) {
+        return series(s).getPercentile(percentile) / 1e6;
+    }
+
+    private Histogram series(final FrameMetrics.Series s) {
+        if (!this.pinned && this.frames.getPublishedAt() != this.copiedAt) {
+            this.copiedAt = this.frames.read(this.copies);
+            this.copiedDuration = this.frames.getPublishedDuration();
+        }
+        return this.copies[s.ordinal()];
+    }
+
+    private static String format(final double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+}
@@ -0,0 +1,45 @@
+package snake.metrics;
+
+/**
+ * Runtime metrics exported over JMX as {@code snake:type=RuntimeMetrics}.
+ * <p>
+ * Frame statistics cover the last complete reporting interval; GC and
+ * allocation counters are totals since start.
+ */
+public interface RuntimeMetricsMXBean {
+
+    double getIntervalSeconds();
+
+    long getFrames();
+
+    double getFrameTimeMeanMillis();
+
+    double getFrameTimeP50Millis();
+
+    double getFrameTimeP99Millis();
+
+    double getFrameTimeP999Millis();
+
+    double getFrameTimeMaxMillis();
+
+    double getUpdateTimeP99Millis();
+
+    double getRenderTimeP99Millis();
+
+    double getSwapTimeP99Millis();
+
+    double getTicksPerFrameMean();
+
+    long getTicksPerFrameMax();
+
+    long getGcCount();
+
+    long getGcTimeMillis();
+
+    double getGcPauseP99Millis();
+
+    double getGcPauseMaxMillis();
+
+    long getAllocatedBytes();
+
+}
@@ -0,0 +1,93 @@
+package snake.metrics;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures time to first frame by launching the game headless in fresh JVMs.
+ * <p>
+ * Usage: {@code StartupHarness [launches] [archive.jsa]}.
+ * Each launch runs {@code SnakeGame} with {@code -Dsnake.headless=true} on
+ * this JVM's class path, which starts up exactly as the game does except for
+ * the GLFW and GL calls, draws the first frame on the CPU and exits. The time
+ * from starting the process to its startup line is taken as the time to
+ * first frame. The first launch is reported as cold and the others as warm,
+ * once without and, if an archive is given, once with the class-data sharing
+ * archive from {@code ./gradlew appCds}.
+ */
+public final class StartupHarness {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupHarness.class);
+
+    private static final String MAIN_CLASS = "SnakeGame";
+    private static final String STARTUP_LINE = "Startup: ";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        final int launches = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        final String archive = args.length > 1 ? args[1] : null;
+
+        run("default", launches);
+        if (archive != null) {
+            if (!new File(archive).isFile()) {
+                logger.error("No class-data sharing archive - " + archive);
+                throw new IllegalArgumentException("No archive: " + archive);
+            }
+            run("app cds", launches, "-XX:SharedArchiveFile=" + archive, "-Xshare:auto");
+        }
+    }
+
+    private static void run(final String name, final int launches, final String... jvmArgs) throws IOException, InterruptedException {
+        final long[] millis = new long[launches];
+        String phases = null;
+        for (int i = 0; i < launches; i++) {
+            final List<String> command = new ArrayList<>();
+            command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+            command.addAll(Arrays.asList(jvmArgs));
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add("-Dsnake.headless=true");
+            command.add("-Dtinylog.level=info");
+            command.add(MAIN_CLASS);
+
+            final long start = System.nanoTime();
+            final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            long firstFrame = -1;
+            try (BufferedReader output = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = output.readLine()) != null) {
+                    final int at = line.indexOf(STARTUP_LINE);
+                    if (at >= 0 && firstFrame < 0) {
+                        firstFrame = System.nanoTime() - start;
+                        phases = line.substring(at + STARTUP_LINE.length());
+                    } else if (logger.isDebugEnabled()) {
+                        logger.debug("{}", line);
+                    }
+                }
+            }
+            final int status = process.waitFor();
+            if (status != 0 || firstFrame < 0) {
+                logger.error("Launch " + i + " failed with status " + status);
+                throw new IllegalStateException("Launch failed with status " + status);
+            }
+            millis[i] = TimeUnit.NANOSECONDS.toMillis(firstFrame);
+        }
+
+        final long[] warm = Arrays.copyOfRange(millis, 1, launches);
+        Arrays.sort(warm);
+        logger.info("{}: cold {}ms, warm median {}ms min {}ms over {} launches",
+                name, millis[0], warm.length == 0 ? 0 : warm[warm.length / 2], warm.length == 0 ? 0 : warm[0], launches);
+        logger.info("{}: last launch {}", name, phases);
+    }
+
+}
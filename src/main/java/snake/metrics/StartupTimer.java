@@ -0,0 +1,83 @@
+package snake.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Durations of the phases of startup, each measured from the end of the
+ * previous one, for logging once the first frame is shown.
+ * <p>
+ * The first phase, {@code jvm}, runs from the start of the JVM to the
+ * creation of the timer and is taken from the runtime MXBean only when the
+ * phases are reported, so timing does not load the management classes early.
+ */
+public final class StartupTimer {
+
+    private final long createdMillis = System.currentTimeMillis();
+    private final long createdNanos = System.nanoTime();
+    private long last = this.createdNanos;
+    private String[] phases = new String[16];
+    private long[] durations = new long[16];
+    private int count = 0;
+
+    /**
+     * Ends the current phase.
+     *
+     * @param phase what was done since the previous mark
+     */
+    public void mark(final String phase) {
+        final long now = System.nanoTime();
+        if (this.count == this.phases.length) {
+            this.phases = Arrays.copyOf(this.phases, this.count << 1);
+            this.durations = Arrays.copyOf(this.durations, this.count << 1);
+        }
+        this.phases[this.count] = phase;
+        this.durations[this.count] = now - this.last;
+        this.count++;
+        this.last = now;
+    }
+
+    /**
+     * Time from the start of the JVM to the creation of this timer.
+     */
+    public long getJvmMillis() {
+        return Math.max(0, this.createdMillis - ManagementFactory.getRuntimeMXBean().getStartTime());
+    }
+
+    /**
+     * Time from the creation of this timer to the last mark.
+     */
+    public long getElapsedNanos() {
+        return this.last - this.createdNanos;
+    }
+
+    /**
+     * Time from the start of the JVM to the last mark.
+     */
+    public long getTotalMillis() {
+        return getJvmMillis() + getElapsedNanos() / 1000000;
+    }
+
+    public int getPhaseCount() {
+        return this.count;
+    }
+
+    public String getPhase(final int index) {
+        return this.phases[index];
+    }
+
+    public long getDurationNanos(final int index) {
+        return this.durations[index];
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("jvm ").append(getJvmMillis()).append("ms");
+        for (int i = 0; i < this.count; i++)
+            builder.append(", ").append(this.phases[i]).append(' ')
+                    .append(String.format("%.1f", this.durations[i] / 1e6)).append("ms");
+        return builder.append(", total ").append(getTotalMillis()).append("ms").toString();
+    }
+
+}
@@ -0,0 +1,156 @@
+package snake.net;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import snake.metrics.Histogram;
+import snake.sim.Arena;
+import snake.sim.SeededRandom;
+
+/**
+ * Loads an {@link ArenaServer} over loopback with growing numbers of players
+ * and reports how tick time and traffic scale.
+ * <p>
+ * Usage: {@code ArenaLoadGenerator [seconds] [cols] [rows] [players...]}.
+ * For each player count a fresh server runs on its own thread while this
+ * thread plays every player from one selector: each reads and frames its
+ * messages and now and then sends a random turn. The first player also keeps
+ * an {@link ArenaMirror}, so a malformed or missing message fails the run.
+ */
+public final class ArenaLoadGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArenaLoadGenerator.class);
+
+    private static final int TICKS_PER_SECOND = 20;
+    private static final int TURN_CHANCE = 8;  // One in this many ticks
+
+    /**
+     * One simulated player.
+     */
+    private static final class Player {
+
+        final SocketChannel channel;
+        final ArenaMirror mirror;
+        ByteBuffer input = ByteBuffer.allocate(64 * 1024);
+        final ByteBuffer turn = ByteBuffer.allocate(1);
+        long tickBytes = 0;
+        long ticks = 0;
+
+        Player(final SocketChannel channel, final ArenaMirror mirror) {
+            this.channel = channel;
+            this.mirror = mirror;
+        }
+
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        final int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        final int cols = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        final int rows = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        final int[] counts = { 50, 100, 200, 400 };
+        final int[] players = args.length > 3 ? new int[args.length - 3] : counts;
+        for (int i = 3; i < args.length; i++)
+            players[i - 3] = Integer.parseInt(args[i]);
+
+        for (int count : players)
+            run(count, seconds, cols, rows);
+    }
+
+    private static void run(final int count, final int seconds, final int cols, final int rows) throws IOException, InterruptedException {
+        final Arena arena = new Arena(cols, rows, count, count, 1L);
+        final ArenaServer server = new ArenaServer(arena,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), TICKS_PER_SECOND);
+        final Thread serverThread = new Thread(server::run, "arena-server");
+        serverThread.start();
+
+        final SeededRandom random = new SeededRandom(count);
+        final Selector selector = Selector.open();
+        final InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+        final Player[] all = new Player[count];
+        for (int i = 0; i < count; i++) {
+            final SocketChannel channel = SocketChannel.open(address);
+            channel.configureBlocking(false);
+            all[i] = new Player(channel, i == 0 ? new ArenaMirror() : null);
+            channel.register(selector, SelectionKey.OP_READ, all[i]);
+        }
+
+        final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        while (System.nanoTime() < end) {
+            selector.select(10);
+            final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                final SelectionKey key = keys.next();
+                keys.remove();
+                read((Player)key.attachment(), random);
+            }
+        }
+
+        server.stop();
+        serverThread.join();
+        for (Player player : all)
+            player.channel.close();
+        selector.close();
+
+        long tickBytes = 0;
+        long ticks = 0;
+        for (Player player : all) {
+            tickBytes += player.tickBytes;
+            ticks += player.ticks;
+        }
+        final Histogram tickTimes = server.getTickTimes();
+        logger.info("Players: {}, ticks: {}, skipped {}, dropped players {}, tick time mean {}us p99 {}us max {}us",
+                count, server.getTicks(), server.getSkippedTicks(), server.getDropped(),
+                (long)tickTimes.getMean() / 1000, tickTimes.getPercentile(99) / 1000, tickTimes.getMax() / 1000);
+        logger.info("Players: {}, {} bytes per player per tick, {} bytes sent per tick, first player's copy at tick {} of {}",
+                count, ticks == 0 ? 0 : tickBytes / ticks, server.getTicks() == 0 ? 0 : server.getBytesSent() / server.getTicks(),
+                all[0].mirror.getTick(), arena.getTick());
+        server.close();
+    }
+
+    private static void read(final Player player, final SeededRandom random) throws IOException {
+        if (player.channel.read(player.input) < 0)
+            throw new IllegalStateException("Server closed the connection");
+        final ByteBuffer input = player.input;
+        input.flip();
+        while (input.remaining() >= 4) {
+            final int length = input.getInt(input.position());
+            if (input.remaining() < 4 + length)
+                break;
+            final int start = input.position() + 4;
+            final int limit = input.limit();
+            if (input.get(start) == ArenaProtocol.TICK) {
+                player.tickBytes += 4 + length;
+                player.ticks++;
+                if (random.nextInt(TURN_CHANCE) == 0) {
+                    player.turn.clear();
+                    player.turn.put((byte)random.nextInt(4)).flip();
+                    player.channel.write(player.turn);
+                }
+            }
+            if (player.mirror != null) {
+                input.position(start).limit(start + length);
+                player.mirror.apply(input);
+                input.limit(limit);
+            }
+            input.position(start + length);
+        }
+        input.compact();
+        if (!input.hasRemaining()) {
+            // A message larger than the buffer, e.g. a big welcome
+            final ByteBuffer grown = ByteBuffer.allocate(input.capacity() * 2);
+            input.flip();
+            grown.put(input);
+            player.input = grown;
+        }
+    }
+
+}
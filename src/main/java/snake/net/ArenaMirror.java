@@ -0,0 +1,198 @@
+package snake.net;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import snake.sim.IntRingBuffer;
+import snake.sim.OccupancyGrid;
+import snake.sim.Snake;
+
+/**
+ * A client's copy of an {@link snake.sim.Arena}, kept up to date from the
+ * server's {@link ArenaProtocol} messages.
+ * <p>
+ * Holds the bodies and food only; collisions are the server's business.
+ * Applying a tick message does not allocate once the bodies have grown to
+ * their working size.
+ */
+public final class ArenaMirror {
+
+    private static final Snake.Direction[] directions = Snake.Direction.values();
+
+    private int id = -1;
+    private int cols;
+    private int rows;
+    private long tick;
+    private IntRingBuffer[] bodies = new IntRingBuffer[0];
+    private byte[] direction = new byte[0];
+    private boolean[] present = new boolean[0];
+    private OccupancyGrid foodGrid;
+    private int foodCount;
+
+    /**
+     * Applies one message, read from the buffer's position, which must be
+     * just after its length, up to its limit, which must be its end.
+     *
+     * @throws IllegalStateException if the message is malformed or a tick
+     *         was missed
+     */
+    public void apply(final ByteBuffer message) {
+        final byte type = message.get();
+        if (type == ArenaProtocol.WELCOME)
+            applyWelcome(message);
+        else if (type == ArenaProtocol.TICK)
+            applyTick(message);
+        else
+            throw new IllegalStateException("Unknown message type: " + type);
+    }
+
+    /**
+     * The player's own snake id, or {@code -1} before the welcome.
+     */
+    public int getId() {
+        return this.id;
+    }
+
+    public int getCols() {
+        return this.cols;
+    }
+
+    public int getRows() {
+        return this.rows;
+    }
+
+    public long getTick() {
+        return this.tick;
+    }
+
+    /**
+     * One more than the highest snake id seen so far.
+     */
+    public int getSlots() {
+        return this.present.length;
+    }
+
+    public boolean isPresent(final int id) {
+        return id < this.present.length && this.present[id];
+    }
+
+    /**
+     * Body cells of snake {@code id}, tail end first and head last.
+     */
+    public IntRingBuffer getBody(final int id) {
+        return this.bodies[id];
+    }
+
+    public Snake.Direction getDirection(final int id) {
+        return directions[this.direction[id]];
+    }
+
+    public int getFoodCount() {
+        return this.foodCount;
+    }
+
+    public boolean isFood(final int cell) {
+        return this.foodGrid.get(cell);
+    }
+
+    private void applyWelcome(final ByteBuffer message) {
+        this.id = ArenaProtocol.getVarInt(message);
+        this.cols = ArenaProtocol.getVarInt(message);
+        this.rows = ArenaProtocol.getVarInt(message);
+        this.tick = ArenaProtocol.getVarLong(message);
+        Arrays.fill(this.present, false);
+        final int snakes = ArenaProtocol.getVarInt(message);
+        for (int i = 0; i < snakes; i++) {
+            final int snake = ArenaProtocol.getVarInt(message);
+            final IntRingBuffer body = claim(snake, ArenaProtocol.getVarInt(message));
+            final int length = ArenaProtocol.getVarInt(message);
+            for (int j = 0; j < length; j++)
+                body.addLast(ArenaProtocol.getVarInt(message));
+        }
+        this.foodGrid = new OccupancyGrid(this.cols, this.rows);
+        this.foodCount = ArenaProtocol.getVarInt(message);
+        for (int i = 0; i < this.foodCount; i++)
+            this.foodGrid.set(ArenaProtocol.getVarInt(message));
+    }
+
+    private void applyTick(final ByteBuffer message) {
+        if (this.id < 0)
+            throw new IllegalStateException("Tick before welcome");
+        final long tick = ArenaProtocol.getVarLong(message);
+        if (tick != this.tick + 1)
+            throw new IllegalStateException("Expected tick " + (this.tick + 1) + ", got " + tick);
+        this.tick = tick;
+        while (message.hasRemaining()) {
+            final long event = ArenaProtocol.getVarLong(message);
+            final int kind = (int)(event & 0xF);
+            final int arg = (int)(event >>> 4);
+            switch (kind) {
+                case ArenaProtocol.SPAWN:
+                    final long spawn = ArenaProtocol.getVarLong(message);
+                    claim(arg, (int)(spawn & 3)).addLast((int)(spawn >>> 2));
+                    break;
+                case ArenaProtocol.REMOVE:
+                    this.present[arg] = false;
+                    this.bodies[arg].clear();
+                    break;
+                case ArenaProtocol.FOOD_IN:
+                    this.foodGrid.set(arg);
+                    this.foodCount++;
+                    break;
+                case ArenaProtocol.FOOD_OUT:
+                    this.foodGrid.clear(arg);
+                    this.foodCount--;
+                    break;
+                default:
+                    if (kind >= ArenaProtocol.SPAWN)
+                        throw new IllegalStateException("Unknown event kind: " + kind);
+                    move(arg, kind & 3, kind < ArenaProtocol.GROW);
+            }
+        }
+    }
+
+    private void move(final int snake, final int move, final boolean tailOut) {
+        if (!isPresent(snake))
+            throw new IllegalStateException("Move for absent snake " + snake);
+        final IntRingBuffer body = this.bodies[snake];
+        final int head = neighbour(body.peekLast(), move);
+        if (tailOut)
+            body.removeFirst();
+        body.addLast(head);
+        this.direction[snake] = (byte)move;
+    }
+
+    private IntRingBuffer claim(final int snake, final int move) {
+        if (snake >= this.present.length) {
+            final int slots = Math.max(snake + 1, this.present.length * 2);
+            this.bodies = Arrays.copyOf(this.bodies, slots);
+            this.direction = Arrays.copyOf(this.direction, slots);
+            this.present = Arrays.copyOf(this.present, slots);
+        }
+        if (this.bodies[snake] == null)
+            this.bodies[snake] = new IntRingBuffer(16);
+        this.bodies[snake].clear();
+        this.present[snake] = true;
+        this.direction[snake] = (byte)move;
+        return this.bodies[snake];
+    }
+
+    /**
+     * The cell next to {@code cell} in direction {@code move}, wrapping
+     * around the edges the way the arena does.
+     */
+    private int neighbour(final int cell, final int move) {
+        final int col = cell % this.cols;
+        switch (directions[move]) {
+            case UP:
+                return cell < this.cols ? cell + (this.rows - 1) * this.cols : cell - this.cols;
+            case DOWN:
+                return cell >= (this.rows - 1) * this.cols ? col : cell + this.cols;
+            case LEFT:
+                return col == 0 ? cell + this.cols - 1 : cell - 1;
+            default:
+                return col == this.cols - 1 ? cell - col : cell + 1;
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package snake.net;
+
+import java.nio.ByteBuffer;
+
+import snake.sim.Arena;
+import snake.sim.IntRingBuffer;
+
+/**
+ * Wire format between an {@link ArenaServer} and its clients.
+ * <p>
+ * <pre>
+ * server   length (4 bytes, of what follows), type (1 byte), body
+ *   WELCOME  your id, cols, rows, tick, snake count,
+ *            per snake: id, direction, body length, cells tail end first,
+ *            food count, food cells
+ *   TICK     tick, then events to the end of the message, each
+ *            varint((arg &lt;&lt; 4) | kind):
+ *            MOVE + direction       arg = id, head in and tail end out
+ *            GROW + direction       arg = id, head in, tail end stays
+ *            SPAWN                  arg = id, then varint((cell &lt;&lt; 2) | direction)
+ *            REMOVE                 arg = id, every body cell freed
+ *            FOOD_IN, FOOD_OUT      arg = cell
+ * client   one byte per turn: the direction ordinal
+ * </pre>
+ * Numbers in bodies are unsigned varints. Events are in the order the arena
+ * made the changes, see {@link Arena.Listener}. A snake id below 2048 or a
+ * cell below 2<sup>24</sup> fits an event in two or four bytes.
+ */
+public final class ArenaProtocol {
+
+    public static final byte WELCOME = 1;
+    public static final byte TICK = 2;
+
+    static final int MOVE = 0;  // + direction ordinal
+    static final int GROW = 4;  // + direction ordinal
+    static final int SPAWN = 8;
+    static final int REMOVE = 9;
+    static final int FOOD_IN = 10;
+    static final int FOOD_OUT = 11;
+
+    static final int HEADER_SIZE = 4 + 1;
+    static final int MAX_VARINT_SIZE = 10;
+
+    private ArenaProtocol() {
+    }
+
+    /**
+     * Upper bound on the size of a tick message, whatever happens in it.
+     */
+    public static int maxTickSize(final Arena arena) {
+        // A snake moves, eats one food that is replaced, dies and spawns at
+        // most; on the first tick every food is placed
+        return HEADER_SIZE + MAX_VARINT_SIZE * (1 + 6 * arena.getMaxSnakes() + arena.getFoodTarget());
+    }
+
+    /**
+     * Writes a complete welcome message for player {@code id}.
+     */
+    public static ByteBuffer welcome(final Arena arena, final int id) {
+        int cells = 0;
+        for (int snake = 0; snake < arena.getMaxSnakes(); snake++)
+            if (arena.isAlive(snake))
+                cells += arena.getBody(snake).size();
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE
+                + MAX_VARINT_SIZE * (6 + 3 * arena.getMaxSnakes() + cells + arena.getFoodCount()));
+        buffer.position(4);
+        buffer.put(WELCOME);
+        putVarLong(buffer, id);
+        putVarLong(buffer, arena.getCols());
+        putVarLong(buffer, arena.getRows());
+        putVarLong(buffer, arena.getTick());
+        int alive = 0;
+        for (int snake = 0; snake < arena.getMaxSnakes(); snake++)
+            if (arena.isAlive(snake))
+                alive++;
+        putVarLong(buffer, alive);
+        for (int snake = 0; snake < arena.getMaxSnakes(); snake++) {
+            if (!arena.isAlive(snake))
+                continue;
+            final IntRingBuffer body = arena.getBody(snake);
+            putVarLong(buffer, snake);
+            putVarLong(buffer, arena.getDirection(snake).ordinal());
+            putVarLong(buffer, body.size());
+            for (int i = 0; i < body.size(); i++)
+                putVarLong(buffer, body.get(i));
+        }
+        putVarLong(buffer, arena.getFoodCount());
+        for (int i = 0; i < arena.getFoodCount(); i++)
+            putVarLong(buffer, arena.getFood(i));
+        buffer.putInt(0, buffer.position() - 4);
+        buffer.flip();
+        return buffer;
+    }
+
+    static void putVarLong(final ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte)value);
+    }
+
+    static long getVarLong(final ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = buffer.get();
+            value |= (long)(b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    static int getVarInt(final ByteBuffer buffer) {
+        final long value = getVarLong(buffer);
+        if (value > Integer.MAX_VALUE)
+            throw new IllegalStateException("Varint out of range: " + value);
+        return (int)value;
+    }
+
+}
@@ -0,0 +1,380 @@
+package snake.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import snake.metrics.Histogram;
+import snake.sim.Arena;
+import snake.sim.Snake;
+
+/**
+ * Runs an {@link Arena} and serves it to players over TCP, all on one thread.
+ * <p>
+ * A single selector accepts players, reads their turns and writes to them
+ * without blocking. Each tick is encoded once by a {@link TickEncoder} into a
+ * buffer from a {@link BufferPool} of direct buffers, which every player's
+ * queue then shares by reference; whatever a player's socket has not taken
+ * yet is sent later with one gathering write of all their queued messages. A
+ * player more than {@link #MAX_QUEUED} messages behind is disconnected, so a
+ * slow reader cannot hold on to the pool.
+ * <p>
+ * Usage: {@code ArenaServer [port] [cols] [rows] [maxPlayers] [ticksPerSecond]}.
+ */
+public final class ArenaServer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArenaServer.class);
+
+    /** Messages a player's queue holds before they are disconnected. */
+    public static final int MAX_QUEUED = 32;
+
+    private static final Snake.Direction[] directions = Snake.Direction.values();
+
+    /**
+     * A connected player and the messages still to be written to them.
+     */
+    private static final class Client {
+
+        final SocketChannel channel;
+        final SelectionKey key;
+        final int id;
+        final ByteBuffer input = ByteBuffer.allocate(64);
+        final ByteBuffer[] views;  // This player's view of each pool buffer
+        final ByteBuffer[] queue = new ByteBuffer[MAX_QUEUED];
+        final BufferPool.Slot[] slots = new BufferPool.Slot[MAX_QUEUED];  // null for the welcome
+        int first = 0;
+        int count = 0;
+
+        Client(final SocketChannel channel, final SelectionKey key, final int id, final BufferPool pool) {
+            this.channel = channel;
+            this.key = key;
+            this.id = id;
+            this.views = new ByteBuffer[pool.size()];
+            for (int i = 0; i < pool.size(); i++)
+                this.views[i] = pool.get(i).getBuffer().duplicate();
+        }
+
+    }
+
+    private final Arena arena;
+    private final long tickNanos;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    // One buffer per message a player may be behind, plus the one being sent
+    private final BufferPool pool;
+    private final TickEncoder encoder = new TickEncoder();
+    private final Client[] clients;
+    private int clientCount = 0;
+    private volatile boolean running = true;
+
+    private final Histogram tickTimes = new Histogram();
+    private long ticks = 0;
+    private long skippedTicks = 0;
+    private long bytesSent = 0;
+    private long dropped = 0;
+
+    public ArenaServer(final Arena arena, final InetSocketAddress address, final int ticksPerSecond) throws IOException {
+        this.arena = arena;
+        this.tickNanos = TimeUnit.SECONDS.toNanos(1) / ticksPerSecond;
+        this.pool = new BufferPool(MAX_QUEUED + 2, ArenaProtocol.maxTickSize(arena));
+        this.clients = new Client[arena.getMaxSnakes()];
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.configureBlocking(false);
+        this.serverChannel.bind(address, 256);
+        this.serverChannel.register(this.selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public static void main(String[] args) throws IOException {
+        final int port = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+        final int cols = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        final int rows = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        final int maxPlayers = args.length > 3 ? Integer.parseInt(args[3]) : 256;
+        final int ticksPerSecond = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+
+        final Arena arena = new Arena(cols, rows, maxPlayers, maxPlayers, System.nanoTime());
+        try (ArenaServer server = new ArenaServer(arena, new InetSocketAddress(port), ticksPerSecond)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+            logger.info("Serving a {}x{} arena for up to {} players on port {} at {} ticks per second",
+                    cols, rows, maxPlayers, server.getPort(), ticksPerSecond);
+            server.run();
+            logger.info("Ticks: {}, skipped {}, tick time mean {}us p99 {}us max {}us, {} bytes sent",
+                    server.getTicks(), server.getSkippedTicks(), (long)server.getTickTimes().getMean() / 1000,
+                    server.getTickTimes().getPercentile(99) / 1000, server.getTickTimes().getMax() / 1000,
+                    server.getBytesSent());
+        }
+    }
+
+    public int getPort() {
+        return this.serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Serves until {@link #stop} is called.
+     */
+    public void run() {
+        long nextTick = System.nanoTime() + this.tickNanos;
+        while (this.running) {
+            final long wait = nextTick - System.nanoTime();
+            try {
+                if (wait > 0)
+                    this.selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait)));
+                else
+                    this.selector.selectNow();
+            } catch (IOException e) {
+                logger.error("Unable to select - " + e.getMessage());
+                throw new RuntimeException(e);
+            }
+            final Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                final SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid())
+                    continue;
+                if (key.isAcceptable())
+                    accept();
+                else if (key.isReadable() || key.isWritable())
+                    service((Client)key.attachment(), key);
+            }
+
+            final long now = System.nanoTime();
+            if (now >= nextTick) {
+                tick();
+                nextTick += this.tickNanos;
+                if (now - nextTick > this.tickNanos) {
+                    // Too far behind - drop the missed ticks rather than burst
+                    final long behind = (now - nextTick) / this.tickNanos;
+                    this.skippedTicks += behind;
+                    nextTick += behind * this.tickNanos;
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes {@link #run} return; may be called from any thread.
+     */
+    public void stop() {
+        this.running = false;
+        this.selector.wakeup();
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Client client : this.clients)
+            if (client != null)
+                disconnect(client);
+        this.serverChannel.close();
+        this.selector.close();
+    }
+
+    /**
+     * Time taken by each tick, from stepping the arena to the last write,
+     * in nanoseconds. Read it after {@link #run} has returned.
+     */
+    public Histogram getTickTimes() {
+        return this.tickTimes;
+    }
+
+    public long getTicks() {
+        return this.ticks;
+    }
+
+    /**
+     * Ticks dropped because the server was more than one tick behind.
+     */
+    public long getSkippedTicks() {
+        return this.skippedTicks;
+    }
+
+    public long getBytesSent() {
+        return this.bytesSent;
+    }
+
+    /**
+     * Players disconnected for falling too far behind.
+     */
+    public long getDropped() {
+        return this.dropped;
+    }
+
+    public int getClientCount() {
+        return this.clientCount;
+    }
+
+    private void tick() {
+        final long start = System.nanoTime();
+        final BufferPool.Slot slot = this.pool.acquire();
+        if (slot == null) {
+            // Cannot happen while queues are capped below the pool size
+            logger.error("Buffer pool exhausted - " + this.pool.size() + " buffers in use");
+            throw new IllegalStateException("Buffer pool exhausted");
+        }
+        final ByteBuffer buffer = slot.getBuffer();
+        this.encoder.begin(buffer, this.arena.getTick() + 1);
+        this.arena.tick(this.encoder);
+        this.encoder.end();
+        buffer.flip();
+
+        for (Client client : this.clients) {
+            if (client == null)
+                continue;
+            if (client.count == MAX_QUEUED) {
+                logger.debug("Player {} is {} messages behind, disconnecting", client.id, MAX_QUEUED);
+                this.dropped++;
+                disconnect(client);
+                continue;
+            }
+            this.pool.retain(slot);
+            final ByteBuffer view = client.views[slot.getIndex()];
+            view.limit(buffer.limit()).position(0);
+            enqueue(client, view, slot);
+            if (client.count == 1)
+                flush(client);  // Otherwise the socket is full and a write is pending
+        }
+        this.pool.release(slot);
+        this.ticks++;
+        this.tickTimes.record(System.nanoTime() - start);
+    }
+
+    private void accept() {
+        final SocketChannel channel;
+        try {
+            channel = this.serverChannel.accept();
+            if (channel == null)
+                return;
+        } catch (IOException e) {
+            logger.debug("Unable to accept player - {}", e.getMessage());
+            return;
+        }
+        final int id = this.arena.join();
+        try {
+            if (id < 0) {
+                logger.debug("Arena full, turning away {}", channel.getRemoteAddress());
+                channel.close();
+                return;
+            }
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            final SelectionKey key = channel.register(this.selector, SelectionKey.OP_READ);
+            final Client client = new Client(channel, key, id, this.pool);
+            key.attach(client);
+            this.clients[id] = client;
+            this.clientCount++;
+            logger.debug("Player {} joined from {}", id, channel.getRemoteAddress());
+            enqueue(client, ArenaProtocol.welcome(this.arena, id), null);
+            flush(client);
+        } catch (IOException e) {
+            logger.debug("Unable to set up player - {}", e.getMessage());
+            if (id >= 0)
+                this.arena.leave(id);
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Already failed
+            }
+        }
+    }
+
+    private void service(final Client client, final SelectionKey key) {
+        if (key.isWritable())
+            flush(client);
+        if (key.isValid() && key.isReadable())
+            read(client);
+    }
+
+    private void read(final Client client) {
+        final ByteBuffer input = client.input;
+        try {
+            final int read = client.channel.read(input);
+            if (read < 0) {
+                logger.debug("Player {} left", client.id);
+                disconnect(client);
+                return;
+            }
+        } catch (IOException e) {
+            logger.debug("Player {} lost - {}", client.id, e.getMessage());
+            disconnect(client);
+            return;
+        }
+        input.flip();
+        while (input.hasRemaining()) {
+            final int turn = input.get();
+            if (turn < 0 || turn >= directions.length) {
+                logger.debug("Player {} sent an unknown turn {}, disconnecting", client.id, turn);
+                disconnect(client);
+                return;
+            }
+            this.arena.turn(client.id, directions[turn]);
+        }
+        input.clear();
+    }
+
+    private static void enqueue(final Client client, final ByteBuffer message, final BufferPool.Slot slot) {
+        final int index = (client.first + client.count) % MAX_QUEUED;
+        client.queue[index] = message;
+        client.slots[index] = slot;
+        client.count++;
+    }
+
+    /**
+     * Writes as much of the player's queue as their socket takes, and asks
+     * to be told when it takes more if some is left.
+     */
+    private void flush(final Client client) {
+        try {
+            while (client.count > 0) {
+                final int run = Math.min(client.count, MAX_QUEUED - client.first);
+                this.bytesSent += client.channel.write(client.queue, client.first, run);
+                int written = 0;
+                while (written < run && !client.queue[client.first].hasRemaining()) {
+                    dequeue(client);
+                    written++;
+                }
+                if (written < run)
+                    break;  // Socket full
+            }
+        } catch (IOException e) {
+            logger.debug("Player {} lost - {}", client.id, e.getMessage());
+            disconnect(client);
+            return;
+        }
+        client.key.interestOps(client.count > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    private void dequeue(final Client client) {
+        final BufferPool.Slot slot = client.slots[client.first];
+        if (slot != null)
+            this.pool.release(slot);
+        client.queue[client.first] = null;
+        client.slots[client.first] = null;
+        client.first = (client.first + 1) % MAX_QUEUED;
+        client.count--;
+    }
+
+    private void disconnect(final Client client) {
+        if (this.clients[client.id] != client)
+            return;
+        this.clients[client.id] = null;
+        this.clientCount--;
+        while (client.count > 0)
+            dequeue(client);
+        client.key.cancel();
+        try {
+            client.channel.close();
+        } catch (IOException e) {
+            logger.debug("Unable to close player {} - {}", client.id, e.getMessage());
+        }
+        this.arena.leave(client.id);
+    }
+
+}
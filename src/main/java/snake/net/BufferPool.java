@@ -0,0 +1,100 @@
+package snake.net;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A fixed set of equally sized direct buffers, each shared by reference
+ * count.
+ * <p>
+ * A buffer is taken with one reference by {@link #acquire}, handed to more
+ * users with {@link #retain}, and returns to the pool when every user has
+ * {@link #release}d it. Every buffer is allocated up front, so a server that
+ * sends from the pool does not allocate per message. Not thread-safe.
+ */
+public final class BufferPool {
+
+    /**
+     * One buffer of the pool.
+     */
+    public static final class Slot {
+
+        private final int index;
+        private final ByteBuffer buffer;
+        private int references = 0;
+
+        private Slot(final int index, final ByteBuffer buffer) {
+            this.index = index;
+            this.buffer = buffer;
+        }
+
+        /**
+         * Position of this slot in the pool, from {@code 0} to
+         * {@link #size()} {@code - 1}.
+         */
+        public int getIndex() {
+            return this.index;
+        }
+
+        public ByteBuffer getBuffer() {
+            return this.buffer;
+        }
+
+    }
+
+    private final Slot[] slots;
+    private final int[] free;
+    private int freeCount;
+
+    public BufferPool(final int count, final int bufferSize) {
+        this.slots = new Slot[count];
+        this.free = new int[count];
+        for (int i = 0; i < count; i++) {
+            this.slots[i] = new Slot(i, ByteBuffer.allocateDirect(bufferSize));
+            this.free[i] = count - 1 - i;
+        }
+        this.freeCount = count;
+    }
+
+    public int size() {
+        return this.slots.length;
+    }
+
+    public Slot get(final int index) {
+        return this.slots[index];
+    }
+
+    /**
+     * Takes a cleared buffer with one reference.
+     *
+     * @return the buffer, or {@code null} if all are in use
+     */
+    public Slot acquire() {
+        if (this.freeCount == 0)
+            return null;
+        final Slot slot = this.slots[this.free[--this.freeCount]];
+        slot.references = 1;
+        slot.buffer.clear();
+        return slot;
+    }
+
+    public void retain(final Slot slot) {
+        if (slot.references <= 0)
+            throw new IllegalStateException("Slot " + slot.index + " is not in use");
+        slot.references++;
+    }
+
+    public void release(final Slot slot) {
+        if (slot.references <= 0)
+            throw new IllegalStateException("Slot " + slot.index + " is not in use");
+        if (--slot.references == 0)
+            this.free[this.freeCount++] = slot.index;
+    }
+
+    /**
+     * Buffers not currently in use.
+     */
+    public int available() {
+        return this.freeCount;
+    }
+
+}
@@ -0,0 +1,72 @@
+package snake.net;
+
+import java.nio.ByteBuffer;
+
+import snake.sim.Arena;
+import snake.sim.Snake;
+
+/**
+ * Writes the changes made by one {@link Arena#tick} as a {@link ArenaProtocol}
+ * tick message. Does not allocate.
+ */
+public final class TickEncoder implements Arena.Listener {
+
+    private ByteBuffer buffer;
+    private int start;
+
+    /**
+     * Starts a message at the buffer's position. The buffer must have
+     * {@link ArenaProtocol#maxTickSize} bytes remaining.
+     */
+    public void begin(final ByteBuffer buffer, final long tick) {
+        this.buffer = buffer;
+        this.start = buffer.position();
+        buffer.position(buffer.position() + 4);
+        buffer.put(ArenaProtocol.TICK);
+        ArenaProtocol.putVarLong(buffer, tick);
+    }
+
+    /**
+     * Fills in the length of the message started by {@link #begin}, leaving
+     * the buffer's position after its end.
+     *
+     * @return the size of the message, including its length
+     */
+    public int end() {
+        final int size = this.buffer.position() - this.start;
+        this.buffer.putInt(this.start, size - 4);
+        this.buffer = null;
+        return size;
+    }
+
+    @Override
+    public void moved(final int id, final Snake.Direction direction, final boolean tailOut) {
+        event(id, (tailOut ? ArenaProtocol.MOVE : ArenaProtocol.GROW) + direction.ordinal());
+    }
+
+    @Override
+    public void spawned(final int id, final int cell, final Snake.Direction direction) {
+        event(id, ArenaProtocol.SPAWN);
+        ArenaProtocol.putVarLong(this.buffer, ((long)cell << 2) | direction.ordinal());
+    }
+
+    @Override
+    public void removed(final int id) {
+        event(id, ArenaProtocol.REMOVE);
+    }
+
+    @Override
+    public void foodAdded(final int cell) {
+        event(cell, ArenaProtocol.FOOD_IN);
+    }
+
+    @Override
+    public void foodRemoved(final int cell) {
+        event(cell, ArenaProtocol.FOOD_OUT);
+    }
+
+    private void event(final int arg, final int kind) {
+        ArenaProtocol.putVarLong(this.buffer, ((long)arg << 4) | kind);
+    }
+
+}
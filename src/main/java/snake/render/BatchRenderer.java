@@ -0,0 +1,113 @@
+package snake.render;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
+import org.joml.Vector3fc;
+
+/**
+ * Renderer that collects every block of a frame into one instance buffer and
+ * submits it with a single draw call.
+ * <p>
+ * Each instance is its grid position followed by its color. The buffer only
+ * grows, so a frame no larger than a previous one does not allocate. Draw
+ * calls and bytes submitted are counted here so that every backend reports
+ * them the same way.
+ */
+public abstract class BatchRenderer implements Renderer {
+
+    /** Floats per instance: col, row, red, green, blue. */
+    public static final int FLOATS_PER_INSTANCE = 5;
+    public static final int BYTES_PER_INSTANCE = FLOATS_PER_INSTANCE * Float.BYTES;
+
+    private final Matrix4f projection = new Matrix4f();
+    private FloatBuffer instances;
+    private int instanceCount = 0;
+
+    private int frameDrawCalls = 0;
+    private long frameBytesUploaded = 0;
+    private long frames = 0;
+    private long drawCalls = 0;
+    private long bytesUploaded = 0;
+
+    protected BatchRenderer(final int initialInstances) {
+        this.instances = allocate(Math.max(initialInstances, 16));
+    }
+
+    @Override
+    public void begin(final Matrix4fc projection) {
+        this.projection.set(projection);
+        this.instances.clear();
+        this.instanceCount = 0;
+        this.frameDrawCalls = 0;
+        this.frameBytesUploaded = 0;
+    }
+
+    @Override
+    public void drawBlock(final float col, final float row, final Vector3fc color) {
+        if (this.instances.remaining() < FLOATS_PER_INSTANCE)
+            grow();
+        this.instances.put(col).put(row).put(color.x()).put(color.y()).put(color.z());
+        this.instanceCount++;
+    }
+
+    @Override
+    public void end() {
+        if (this.instanceCount > 0) {
+            this.instances.flip();
+            submit(this.projection, this.instances, this.instanceCount);
+            this.frameDrawCalls++;
+            this.frameBytesUploaded += (long)this.instanceCount * BYTES_PER_INSTANCE;
+        }
+        this.frames++;
+        this.drawCalls += this.frameDrawCalls;
+        this.bytesUploaded += this.frameBytesUploaded;
+    }
+
+    /**
+     * Draws {@code count} instances. {@code instances} is positioned at the
+     * first instance with its limit after the last one.
+     */
+    protected abstract void submit(Matrix4fc projection, FloatBuffer instances, int count);
+
+    public int getFrameInstances() {
+        return this.instanceCount;
+    }
+
+    public int getFrameDrawCalls() {
+        return this.frameDrawCalls;
+    }
+
+    public long getFrameBytesUploaded() {
+        return this.frameBytesUploaded;
+    }
+
+    public long getFrames() {
+        return this.frames;
+    }
+
+    public long getDrawCalls() {
+        return this.drawCalls;
+    }
+
+    public long getBytesUploaded() {
+        return this.bytesUploaded;
+    }
+
+    private void grow() {
+        final FloatBuffer grown = allocate(this.instances.capacity() / FLOATS_PER_INSTANCE * 2);
+        this.instances.flip();
+        grown.put(this.instances);
+        this.instances = grown;
+    }
+
+    private static FloatBuffer allocate(final int instances) {
+        return ByteBuffer.allocateDirect(instances * BYTES_PER_INSTANCE)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+    }
+
+}
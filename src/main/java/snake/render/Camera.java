@@ -0,0 +1,118 @@
+package snake.render;
+
+import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
+import snake.sim.GameView;
+
+/**
+ * The part of the board on screen, in cells.
+ * <p>
+ * On a board no bigger than the view the camera shows all of it, as before.
+ * On a larger one it keeps the head in the middle of the view; as the board
+ * wraps, the view may run over an edge, and cells beyond it are drawn where
+ * they continue from the other side. The position is not wrapped back on to
+ * the board, so it stays continuous as the head crosses an edge.
+ */
+public final class Camera {
+
+    private int viewCols;
+    private int viewRows;
+    private int worldCols;
+    private int worldRows;
+    private float x = 0;
+    private float y = 0;
+
+    public Camera(final int viewCols, final int viewRows) {
+        setViewSize(viewCols, viewRows);
+    }
+
+    /**
+     * Sets how many cells fit on screen, e.g. after the window was resized.
+     */
+    public void setViewSize(final int viewCols, final int viewRows) {
+        if (viewCols < 1 || viewRows < 1)
+            throw new IllegalArgumentException("View must be at least one cell: " + viewCols + "x" + viewRows);
+        this.viewCols = viewCols;
+        this.viewRows = viewRows;
+    }
+
+    /**
+     * Centres the view on the head, drawn {@code alpha} of the way from its
+     * previous position to its current one.
+     */
+    public void follow(final GameView game, final float alpha) {
+        this.worldCols = game.getGridCols();
+        this.worldRows = game.getGridRows();
+        if (this.viewCols < this.worldCols)
+            this.x = GameScene.interpolate(game.getPreviousHeadX(), game.getHeadX(), alpha) + 0.5f - this.viewCols * 0.5f;
+        else
+            this.x = 0;
+        if (this.viewRows < this.worldRows)
+            this.y = GameScene.interpolate(game.getPreviousHeadY(), game.getHeadY(), alpha) + 0.5f - this.viewRows * 0.5f;
+        else
+            this.y = 0;
+    }
+
+    /**
+     * Whether the whole board fits in the view, so nothing needs to move.
+     */
+    public boolean showsWorld() {
+        return this.viewCols >= this.worldCols && this.viewRows >= this.worldRows;
+    }
+
+    /**
+     * Column at the left edge of the view; may be fractional, negative or
+     * past the right edge of the board.
+     */
+    public float getX() {
+        return this.x;
+    }
+
+    /**
+     * Row at the top edge of the view.
+     */
+    public float getY() {
+        return this.y;
+    }
+
+    public int getViewCols() {
+        return this.viewCols;
+    }
+
+    public int getViewRows() {
+        return this.viewRows;
+    }
+
+    /**
+     * First column that is at least partly visible.
+     */
+    int getFirstCol() {
+        return (int)Math.floor(this.x);
+    }
+
+    /**
+     * One past the last column that is at least partly visible, never more
+     * than a board's width after {@link #getFirstCol()}.
+     */
+    int getEndCol() {
+        return Math.min((int)Math.ceil(this.x + this.viewCols), getFirstCol() + this.worldCols);
+    }
+
+    int getFirstRow() {
+        return (int)Math.floor(this.y);
+    }
+
+    int getEndRow() {
+        return Math.min((int)Math.ceil(this.y + this.viewRows), getFirstRow() + this.worldRows);
+    }
+
+    /**
+     * Sets {@code dest} to map grid space to clip space for this view.
+     *
+     * @param projection maps pixels to clip space
+     */
+    public Matrix4f apply(final Matrix4fc projection, final float cellWidth, final float cellHeight, final Matrix4f dest) {
+        return dest.set(projection).scale(cellWidth, cellHeight, 1.0f).translate(-this.x, -this.y, 0.0f);
+    }
+
+}
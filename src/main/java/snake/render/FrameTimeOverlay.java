@@ -0,0 +1,71 @@
+package snake.render;
+
+import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
+
+/**
+ * On-screen graph of recent frame times, one bar per frame with one block per
+ * millisecond, drawn in the bottom-left corner over the game.
+ * <p>
+ * Frame times are kept in a fixed ring, so recording and drawing do not
+ * allocate.
+ */
+public final class FrameTimeOverlay {
+
+    private static final Vector3fc fastColor = new Vector3f(0.0f, 0.8f, 0.0f);  // Green
+    private static final Vector3fc slowColor = new Vector3f(1.0f, 0.8f, 0.0f);  // Amber
+    private static final Vector3fc missedColor = new Vector3f(1.0f, 0.0f, 1.0f);  // Magenta
+
+    private static final int BAR_WIDTH = 3;  // pixels
+    private static final int PIXELS_PER_MILLI = 2;
+    private static final int MAX_MILLIS = 50;
+    private static final int MARGIN = 8;  // pixels
+
+    private final float[] millis;
+    private final float targetMillis;
+    private final Matrix4f matrix = new Matrix4f();
+    private int next = 0;
+    private int count = 0;
+
+    /**
+     * @param frames how many recent frames to show
+     * @param targetMillis frame time budget; longer frames are highlighted
+     */
+    public FrameTimeOverlay(final int frames, final float targetMillis) {
+        this.millis = new float[frames];
+        this.targetMillis = targetMillis;
+    }
+
+    public void record(final long frameNanos) {
+        this.millis[this.next] = frameNanos / 1e6f;
+        this.next = (this.next + 1) % this.millis.length;
+        this.count = Math.min(this.count + 1, this.millis.length);
+    }
+
+    /**
+     * Submits the graph as its own renderer pass.
+     *
+     * @param pixelProjection maps framebuffer pixels, origin top left, to
+     *        clip space
+     */
+    public void draw(final Renderer renderer, final Matrix4fc pixelProjection, final int fbHeight) {
+        // Column = bar, row = millisecond, growing up from the bottom margin
+        this.matrix.set(pixelProjection)
+                .translate(MARGIN, fbHeight - MARGIN, 0.0f)
+                .scale(BAR_WIDTH, -PIXELS_PER_MILLI, 1.0f);
+        renderer.begin(this.matrix);
+        final int first = (this.next - this.count + this.millis.length) % this.millis.length;
+        for (int i = 0; i < this.count; i++) {
+            final float ms = this.millis[(first + i) % this.millis.length];
+            final Vector3fc color = ms > 2 * this.targetMillis ? missedColor
+                    : ms > this.targetMillis ? slowColor : fastColor;
+            final int blocks = Math.min((int)Math.ceil(ms), MAX_MILLIS);
+            for (int row = 0; row < blocks; row++)
+                renderer.drawBlock(i, row, color);
+        }
+        renderer.end();
+    }
+
+}
@@ -0,0 +1,101 @@
+package snake.render;
+
+import org.joml.Matrix4fc;
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
+import snake.sim.GameView;
+
+/**
+ * Turns the state of a game into renderer blocks.
+ */
+public final class GameScene {
+
+    private static final Vector3fc snakeHeadColor = new Vector3f(0.0f, 1.0f, 1.0f);  // Cyan
+    static final Vector3fc snakeTailColor = new Vector3f(1.0f, 1.0f, 1.0f);  // White
+    private static final Vector3fc deadSnakeColor = new Vector3f(1.0f, 0.0f, 0.0f);  // Red
+    static final Vector3fc foodColor = new Vector3f(1.0f, 0.9f, 0.0f);  // Yellow
+
+    // Shows the whole board, for callers without a camera
+    private final Camera worldCamera = new Camera(Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    /**
+     * Submits one frame of the whole board.
+     *
+     * @param alpha how far the frame is between the game's previous tick
+     *        ({@code 0}) and its current one ({@code 1}); the head is drawn
+     *        in between so that it moves smoothly at any refresh rate
+     * @param projection maps grid space to clip space
+     */
+    public void draw(final GameView game, final float alpha, final Renderer renderer, final Matrix4fc projection) {
+        this.worldCamera.follow(game, alpha);
+        draw(game, alpha, renderer, projection, this.worldCamera);
+    }
+
+    /**
+     * Submits one frame of what {@code camera} sees, which must already
+     * {@link Camera#follow follow} the game. Only visible cells are looked at,
+     * so the cost depends on the size of the view and not on the size of the
+     * board or the length of the snake.
+     *
+     * @param projection maps grid space to clip space, including the camera's
+     *        position, see {@link Camera#apply}
+     */
+    public void draw(final GameView game, final float alpha, final Renderer renderer, final Matrix4fc projection,
+                     final Camera camera) {
+        renderer.begin(projection);
+        drawBody(game, camera, renderer);
+        drawHead(game, alpha, renderer);
+        drawFood(game, camera, renderer);
+        renderer.end();
+    }
+
+    private void drawBody(final GameView game, final Camera camera, final Renderer renderer) {
+        final int cols = game.getGridCols();
+        final int rows = game.getGridRows();
+        final int firstCol = camera.getFirstCol();
+        final int endCol = camera.getEndCol();
+        for (int row = camera.getFirstRow(); row < camera.getEndRow(); row++) {
+            final int rowStart = Math.floorMod(row, rows) * cols;
+            int col = firstCol;
+            while (col < endCol) {
+                // A run of columns that does not cross the edge of the board
+                final int boardCol = Math.floorMod(col, cols);
+                final int runEnd = Math.min(endCol, col + cols - boardCol);
+                final int from = rowStart + boardCol;
+                final int to = from + (runEnd - col);
+                for (int cell = game.nextBodyCell(from, to); cell >= 0; cell = game.nextBodyCell(cell + 1, to))
+                    renderer.drawBlock(col + (cell - from), row, snakeTailColor);
+                col = runEnd;
+            }
+        }
+    }
+
+    static void drawHead(final GameView game, final float alpha, final Renderer renderer) {
+        renderer.drawBlock(
+                interpolate(game.getPreviousHeadX(), game.getHeadX(), alpha),
+                interpolate(game.getPreviousHeadY(), game.getHeadY(), alpha),
+                game.isAlive() ? snakeHeadColor : deadSnakeColor
+        );
+    }
+
+    static float interpolate(final float previous, final float current, final float alpha) {
+        // Wrapping across an edge jumps by nearly the whole grid; snap to it
+        if (Math.abs(current - previous) > 1.0f)
+            return current;
+        return previous + (current - previous) * alpha;
+    }
+
+    private void drawFood(final GameView game, final Camera camera, final Renderer renderer) {
+        final int food = game.getFood();
+        if (food < 0)
+            return;
+        final int cols = game.getGridCols();
+        final int rows = game.getGridRows();
+        // The copy of the food cell nearest the view, which may be past an edge
+        final int col = camera.getFirstCol() + Math.floorMod(food % cols - camera.getFirstCol(), cols);
+        final int row = camera.getFirstRow() + Math.floorMod(food / cols - camera.getFirstRow(), rows);
+        if (col < camera.getEndCol() && row < camera.getEndRow())
+            renderer.drawBlock(col, row, foodColor);
+    }
+
+}
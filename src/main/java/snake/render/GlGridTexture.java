@@ -0,0 +1,177 @@
+package snake.render;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import org.joml.Matrix4fc;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL30;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * OpenGL 3.3 grid texture: a single-channel 8-bit texture, updated with
+ * {@code glTexSubImage2D} and drawn as one quad whose fragment shader looks up
+ * each cell and colors it, leaving empty cells to the background.
+ * <p>
+ * The quad is given in grid space and the texture repeats, so a view that
+ * runs over an edge shows the board continuing from the other side.
+ */
+public final class GlGridTexture implements GridTexture {
+
+    private static final Logger logger = LoggerFactory.getLogger(GlGridTexture.class);
+
+    private static final CharSequence[] vertexShaderSource = {
+            "#version 330 core\n",
+            "layout (location = 0) in vec2 a_Position;\n",
+            "uniform mat4 u_Projection;\n",
+            "out vec2 v_Cell;\n",
+            "void main() {\n",
+            "  v_Cell = a_Position;\n",
+            "  gl_Position = u_Projection * vec4(a_Position, 0.0f, 1.0f);\n",
+            "}"
+    };
+
+    private static final CharSequence[] fragmentShaderSource = {
+            "#version 330 core\n",
+            "uniform sampler2D u_Cells;\n",
+            "uniform vec2 u_Size;\n",
+            "uniform vec3 u_BodyColor;\n",
+            "uniform vec3 u_FoodColor;\n",
+            "in vec2 v_Cell;\n",
+            "out vec4 fragColor;\n",
+            "void main() {\n",
+            "  int cell = int(texture(u_Cells, v_Cell / u_Size).r * 255.0f + 0.5f);\n",
+            "  if (cell == 0)\n",
+            "    discard;\n",
+            "  fragColor = vec4(cell == 1 ? u_BodyColor : u_FoodColor, 1.0f);\n",
+            "}"
+    };
+
+    private final int shaderProgram;
+    private final int projectionUniform;
+    private final int sizeUniform;
+    private final int quadVao;
+    private final int quadVbo;
+    private final FloatBuffer matrixBuffer = BufferUtils.createFloatBuffer(16);
+    private final FloatBuffer quad = BufferUtils.createFloatBuffer(8);
+    private int texture = 0;
+    private int cols;
+    private int rows;
+
+    public GlGridTexture() {
+        this.shaderProgram = createProgram();
+        this.projectionUniform = GL20.glGetUniformLocation(this.shaderProgram, "u_Projection");
+        this.sizeUniform = GL20.glGetUniformLocation(this.shaderProgram, "u_Size");
+        GL20.glUseProgram(this.shaderProgram);
+        GL20.glUniform1i(GL20.glGetUniformLocation(this.shaderProgram, "u_Cells"), 0);
+        GL20.glUniform3f(GL20.glGetUniformLocation(this.shaderProgram, "u_BodyColor"),
+                GameScene.snakeTailColor.x(), GameScene.snakeTailColor.y(), GameScene.snakeTailColor.z());
+        GL20.glUniform3f(GL20.glGetUniformLocation(this.shaderProgram, "u_FoodColor"),
+                GameScene.foodColor.x(), GameScene.foodColor.y(), GameScene.foodColor.z());
+        GL20.glUseProgram(0);
+
+        this.quadVao = GL30.glGenVertexArrays();
+        GL30.glBindVertexArray(this.quadVao);
+        this.quadVbo = GL15.glGenBuffers();
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, this.quadVbo);
+        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, 8L * Float.BYTES, GL15.GL_DYNAMIC_DRAW);
+        GL20.glVertexAttribPointer(0, 2, GL11.GL_FLOAT, false, 0, 0L);
+        GL20.glEnableVertexAttribArray(0);
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        GL30.glBindVertexArray(0);
+    }
+
+    @Override
+    public void create(final int cols, final int rows) {
+        final int maxSize = GL11.glGetInteger(GL11.GL_MAX_TEXTURE_SIZE);
+        if (cols > maxSize || rows > maxSize) {
+            logger.error("Board too large for a texture - " + cols + "x" + rows + ", limit " + maxSize);
+            throw new IllegalArgumentException("Board too large for a texture: " + cols + "x" + rows);
+        }
+        if (this.texture != 0)
+            GL11.glDeleteTextures(this.texture);
+        this.texture = GL11.glGenTextures();
+        this.cols = cols;
+        this.rows = rows;
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, this.texture);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_NEAREST);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_NEAREST);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL11.GL_REPEAT);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL11.GL_REPEAT);
+        GL11.glPixelStorei(GL11.GL_UNPACK_ALIGNMENT, 1);  // Rows of single bytes
+        GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL30.GL_R8, cols, rows, 0, GL11.GL_RED, GL11.GL_UNSIGNED_BYTE,
+                BufferUtils.createByteBuffer(cols * rows));
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
+    }
+
+    @Override
+    public void upload(final int col, final int row, final int width, final int height, final ByteBuffer texels) {
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, this.texture);
+        GL11.glPixelStorei(GL11.GL_UNPACK_ALIGNMENT, 1);
+        GL11.glTexSubImage2D(GL11.GL_TEXTURE_2D, 0, col, row, width, height, GL11.GL_RED, GL11.GL_UNSIGNED_BYTE, texels);
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
+    }
+
+    @Override
+    public void draw(final Matrix4fc projection, final int firstCol, final int firstRow, final int endCol, final int endRow) {
+        this.quad.clear();
+        this.quad.put(firstCol).put(endRow).put(endCol).put(endRow).put(firstCol).put(firstRow).put(endCol).put(firstRow);
+        this.quad.flip();
+
+        GL20.glUseProgram(this.shaderProgram);
+        GL20.glUniformMatrix4fv(this.projectionUniform, false, projection.get(this.matrixBuffer));
+        GL20.glUniform2f(this.sizeUniform, this.cols, this.rows);
+        GL13.glActiveTexture(GL13.GL_TEXTURE0);
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, this.texture);
+        GL30.glBindVertexArray(this.quadVao);
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, this.quadVbo);
+        GL15.glBufferSubData(GL15.GL_ARRAY_BUFFER, 0L, this.quad);
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        GL11.glDrawArrays(GL11.GL_TRIANGLE_STRIP, 0, 4);
+        GL30.glBindVertexArray(0);
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
+        GL20.glUseProgram(0);
+    }
+
+    @Override
+    public void dispose() {
+        if (this.texture != 0)
+            GL11.glDeleteTextures(this.texture);
+        GL15.glDeleteBuffers(this.quadVbo);
+        GL30.glDeleteVertexArrays(this.quadVao);
+        GL20.glDeleteProgram(this.shaderProgram);
+    }
+
+    private static int createProgram() {
+        final int vertexShader = createShader(GL20.GL_VERTEX_SHADER, vertexShaderSource);
+        final int fragmentShader = createShader(GL20.GL_FRAGMENT_SHADER, fragmentShaderSource);
+        final int program = GL20.glCreateProgram();
+        GL20.glAttachShader(program, vertexShader);
+        GL20.glAttachShader(program, fragmentShader);
+        GL20.glLinkProgram(program);
+        if (GL20.glGetProgrami(program, GL20.GL_LINK_STATUS) == GL11.GL_FALSE) {
+            logger.error("Error linking grid shader program - " + GL20.glGetProgramInfoLog(program));
+            throw new RuntimeException("Error linking grid shader program - " + GL20.glGetProgramInfoLog(program));
+        }
+        GL20.glDeleteShader(vertexShader);
+        GL20.glDeleteShader(fragmentShader);
+        return program;
+    }
+
+    private static int createShader(final int type, final CharSequence... source) {
+        final int shader = GL20.glCreateShader(type);
+        GL20.glShaderSource(shader, source);
+        GL20.glCompileShader(shader);
+        if (GL20.glGetShaderi(shader, GL20.GL_COMPILE_STATUS) == GL11.GL_FALSE) {
+            logger.error("Error compiling grid shader - " + GL20.glGetShaderInfoLog(shader));
+            throw new RuntimeException("Error compiling grid shader - " + GL20.glGetShaderInfoLog(shader));
+        }
+        return shader;
+    }
+
+}
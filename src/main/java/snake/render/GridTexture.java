@@ -0,0 +1,40 @@
+package snake.render;
+
+import java.nio.ByteBuffer;
+
+import org.joml.Matrix4fc;
+
+/**
+ * The board as a texture of one byte per cell, updated a rectangle at a time
+ * and drawn as a single quad; see {@link GridTextureScene} for the values.
+ */
+public interface GridTexture {
+
+    /**
+     * (Re)creates the texture for a {@code cols} by {@code rows} board, every
+     * cell {@code 0}.
+     */
+    void create(int cols, int rows);
+
+    /**
+     * Replaces the {@code width} by {@code height} cells with their top left
+     * at ({@code col}, {@code row}) by {@code texels}, read a row at a time
+     * from their position to their limit.
+     */
+    void upload(int col, int row, int width, int height, ByteBuffer texels);
+
+    /**
+     * Draws the cells in grid space from ({@code firstCol}, {@code firstRow})
+     * up to ({@code endCol}, {@code endRow}); past an edge of the board the
+     * texture repeats, as the board wraps.
+     *
+     * @param projection maps grid space to clip space
+     */
+    void draw(Matrix4fc projection, int firstCol, int firstRow, int endCol, int endRow);
+
+    /**
+     * Releases any resources held by the texture.
+     */
+    void dispose();
+
+}
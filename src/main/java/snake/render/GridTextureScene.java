@@ -0,0 +1,186 @@
+package snake.render;
+
+import java.nio.ByteBuffer;
+
+import org.joml.Matrix4fc;
+import snake.sim.DirtyCells;
+import snake.sim.GameView;
+
+/**
+ * Draws the game from a {@link GridTexture} holding the board, uploading only
+ * the cells that changed since the previous frame.
+ * <p>
+ * Each cell is one texel: {@link #EMPTY}, {@link #BODY} or {@link #FOOD}, with
+ * the head's cell counted as body so that the body reaches the head as it
+ * moves across. The
+ * simulation records the cells it changes in a {@link DirtyCells} list; every
+ * frame those are sorted, cells on the same row no more than
+ * {@link #MAX_GAP} apart are merged into one run, and each run is uploaded
+ * as a single row of texels. A normal tick therefore costs a few tiny uploads
+ * however long the snake is, and the whole board is only uploaded when the
+ * list says everything changed, e.g. after a reset or rewind. The board is
+ * then drawn as one quad and the head, which moves smoothly between cells,
+ * as a block on top.
+ * <p>
+ * Only for boards that fit in one texture.
+ */
+public final class GridTextureScene {
+
+    public static final byte EMPTY = 0;
+    public static final byte BODY = 1;
+    public static final byte FOOD = 2;
+
+    /** Unchanged cells uploaded rather than starting another run. */
+    public static final int MAX_GAP = 8;
+
+    private final GridTexture texture;
+    private final DirtyCells dirtyCells;
+    private ByteBuffer texels = ByteBuffer.allocateDirect(256);
+    private int cols = 0;
+    private int rows = 0;
+
+    private int frameUploads = 0;
+    private long frameBytesUploaded = 0;
+    private long frames = 0;
+    private long uploads = 0;
+    private long bytesUploaded = 0;
+    private long fullUploads = 0;
+
+    // Shows the whole board, for callers without a camera
+    private final Camera worldCamera = new Camera(Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    /**
+     * @param dirtyCells the list the simulation being drawn records its
+     *        changes in
+     */
+    public GridTextureScene(final GridTexture texture, final DirtyCells dirtyCells) {
+        this.texture = texture;
+        this.dirtyCells = dirtyCells;
+    }
+
+    /**
+     * Submits one frame of what {@code camera} sees, which must already
+     * {@link Camera#follow follow} the game.
+     *
+     * @param projection maps grid space to clip space, including the camera's
+     *        position
+     */
+    public void draw(final GameView game, final float alpha, final Renderer renderer, final Matrix4fc projection,
+                     final Camera camera) {
+        update(game);
+        this.texture.draw(projection, camera.getFirstCol(), camera.getFirstRow(), camera.getEndCol(), camera.getEndRow());
+        renderer.begin(projection);
+        GameScene.drawHead(game, alpha, renderer);
+        renderer.end();
+    }
+
+    /**
+     * Submits one frame of the whole board.
+     */
+    public void draw(final GameView game, final float alpha, final Renderer renderer, final Matrix4fc projection) {
+        this.worldCamera.follow(game, alpha);
+        draw(game, alpha, renderer, projection, this.worldCamera);
+    }
+
+    /**
+     * Uploads the cells changed since the last call and forgets them.
+     */
+    public void update(final GameView game) {
+        this.frameUploads = 0;
+        this.frameBytesUploaded = 0;
+        if (game.getGridCols() != this.cols || game.getGridRows() != this.rows) {
+            this.cols = game.getGridCols();
+            this.rows = game.getGridRows();
+            this.texture.create(this.cols, this.rows);
+            this.dirtyCells.markAll();
+        }
+        if (this.dirtyCells.isAll())
+            uploadAll(game);
+        else
+            uploadChanged(game);
+        this.dirtyCells.clear();
+        this.frames++;
+        this.uploads += this.frameUploads;
+        this.bytesUploaded += this.frameBytesUploaded;
+    }
+
+    private void uploadChanged(final GameView game) {
+        final DirtyCells dirty = this.dirtyCells;
+        dirty.sort();
+        int i = 0;
+        while (i < dirty.size()) {
+            final int start = dirty.get(i++);
+            final int rowEnd = (start / this.cols + 1) * this.cols;
+            int end = start + 1;
+            while (i < dirty.size() && dirty.get(i) < rowEnd && dirty.get(i) <= end + MAX_GAP)
+                end = Math.max(end, dirty.get(i++) + 1);
+
+            final ByteBuffer texels = texels(end - start);
+            final int food = game.getFood();
+            final int head = game.getHeadCell();
+            for (int cell = start; cell < end; cell++)
+                texels.put(cell == food ? FOOD : cell == head || game.nextBodyCell(cell, cell + 1) == cell ? BODY : EMPTY);
+            texels.flip();
+            upload(start % this.cols, start / this.cols, end - start, 1, texels);
+        }
+    }
+
+    private void uploadAll(final GameView game) {
+        final int cells = this.cols * this.rows;
+        final ByteBuffer texels = texels(cells);
+        for (int i = 0; i < cells; i++)
+            texels.put(i, EMPTY);
+        for (int cell = game.nextBodyCell(0, cells); cell >= 0; cell = game.nextBodyCell(cell + 1, cells))
+            texels.put(cell, BODY);
+        texels.put(game.getHeadCell(), BODY);
+        if (game.getFood() >= 0)
+            texels.put(game.getFood(), FOOD);
+        texels.limit(cells);
+        upload(0, 0, this.cols, this.rows, texels);
+        this.fullUploads++;
+    }
+
+    /**
+     * The staging buffer, cleared and large enough for {@code count} texels.
+     */
+    private ByteBuffer texels(final int count) {
+        if (this.texels.capacity() < count)
+            this.texels = ByteBuffer.allocateDirect(Math.max(count, this.texels.capacity() << 1));
+        this.texels.clear();
+        return this.texels;
+    }
+
+    private void upload(final int col, final int row, final int width, final int height, final ByteBuffer texels) {
+        this.texture.upload(col, row, width, height, texels);
+        this.frameUploads++;
+        this.frameBytesUploaded += (long)width * height;
+    }
+
+    public int getFrameUploads() {
+        return this.frameUploads;
+    }
+
+    public long getFrameBytesUploaded() {
+        return this.frameBytesUploaded;
+    }
+
+    public long getFrames() {
+        return this.frames;
+    }
+
+    public long getUploads() {
+        return this.uploads;
+    }
+
+    public long getBytesUploaded() {
+        return this.bytesUploaded;
+    }
+
+    /**
+     * Frames that uploaded the whole board.
+     */
+    public long getFullUploads() {
+        return this.fullUploads;
+    }
+
+}
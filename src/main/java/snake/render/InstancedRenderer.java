@@ -0,0 +1,72 @@
+package snake.render;
+
+import java.nio.FloatBuffer;
+
+import org.joml.Matrix4fc;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL30;
+import org.lwjgl.opengl.GL31;
+import org.lwjgl.opengl.GL33;
+
+/**
+ * OpenGL 3.3 backend drawing a whole frame with one
+ * {@code glDrawElementsInstanced} call.
+ * <p>
+ * Per-instance position and color are streamed into a buffer attached to the
+ * block mesh VAO as attributes 1 and 2. The shader program must declare
+ * {@code a_Offset} and {@code a_Color} at those locations and a
+ * {@code u_Projection} uniform.
+ */
+public final class InstancedRenderer extends BatchRenderer {
+
+    private static final int INDEX_COUNT = 6;
+
+    private final int shaderProgram;
+    private final int projectionUniform;
+    private final int blockVao;
+    private final int instanceVbo;
+    private final FloatBuffer matrixBuffer = BufferUtils.createFloatBuffer(16);
+
+    public InstancedRenderer(final int shaderProgram, final int blockVao) {
+        super(1024);
+        this.shaderProgram = shaderProgram;
+        this.projectionUniform = GL20.glGetUniformLocation(shaderProgram, "u_Projection");
+        this.blockVao = blockVao;
+
+        GL30.glBindVertexArray(blockVao);
+        this.instanceVbo = GL15.glGenBuffers();
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, this.instanceVbo);
+        // Offset
+        GL20.glVertexAttribPointer(1, 2, GL11.GL_FLOAT, false, BYTES_PER_INSTANCE, 0L);
+        GL20.glEnableVertexAttribArray(1);
+        GL33.glVertexAttribDivisor(1, 1);
+        // Color
+        GL20.glVertexAttribPointer(2, 3, GL11.GL_FLOAT, false, BYTES_PER_INSTANCE, 2L * Float.BYTES);
+        GL20.glEnableVertexAttribArray(2);
+        GL33.glVertexAttribDivisor(2, 1);
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        GL30.glBindVertexArray(0);
+    }
+
+    @Override
+    protected void submit(final Matrix4fc projection, final FloatBuffer instances, final int count) {
+        GL20.glUseProgram(this.shaderProgram);
+        GL20.glUniformMatrix4fv(this.projectionUniform, false, projection.get(this.matrixBuffer));
+        GL30.glBindVertexArray(this.blockVao);
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, this.instanceVbo);
+        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, instances, GL15.GL_STREAM_DRAW);  // Orphans last frame's data
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+        GL31.glDrawElementsInstanced(GL11.GL_TRIANGLES, INDEX_COUNT, GL11.GL_UNSIGNED_INT, 0L, count);
+        GL30.glBindVertexArray(0);
+        GL20.glUseProgram(0);
+    }
+
+    @Override
+    public void dispose() {
+        GL15.glDeleteBuffers(this.instanceVbo);
+    }
+
+}
@@ -0,0 +1,67 @@
+package snake.render;
+
+import java.nio.ByteBuffer;
+
+import org.joml.Matrix4fc;
+
+/**
+ * Grid texture with no graphics backend.
+ * <p>
+ * Uploads are applied to a copy of the texture in memory, so what the GPU
+ * would hold can be checked headless, and drawing is dropped; useful in
+ * tools and benchmarks.
+ */
+public final class RecordingGridTexture implements GridTexture {
+
+    private byte[] texels = new byte[0];
+    private int cols;
+    private int rows;
+    private long uploads = 0;
+    private long draws = 0;
+
+    @Override
+    public void create(final int cols, final int rows) {
+        this.texels = new byte[cols * rows];
+        this.cols = cols;
+        this.rows = rows;
+    }
+
+    @Override
+    public void upload(final int col, final int row, final int width, final int height, final ByteBuffer texels) {
+        if (col < 0 || row < 0 || col + width > this.cols || row + height > this.rows)
+            throw new IllegalArgumentException("Upload outside the texture: " + width + "x" + height + " at " + col + "," + row);
+        if (texels.remaining() != width * height)
+            throw new IllegalArgumentException("Expected " + width * height + " texels, got " + texels.remaining());
+        int at = texels.position();
+        for (int y = row; y < row + height; y++, at += width)
+            for (int x = 0; x < width; x++)
+                this.texels[y * this.cols + col + x] = texels.get(at + x);
+        this.uploads++;
+    }
+
+    @Override
+    public void draw(final Matrix4fc projection, final int firstCol, final int firstRow, final int endCol, final int endRow) {
+        this.draws++;
+    }
+
+    /**
+     * The value of a cell as last uploaded.
+     */
+    public int getTexel(final int col, final int row) {
+        return this.texels[row * this.cols + col];
+    }
+
+    public long getUploads() {
+        return this.uploads;
+    }
+
+    public long getDraws() {
+        return this.draws;
+    }
+
+    @Override
+    public void dispose() {
+        // Nothing to release
+    }
+
+}
@@ -0,0 +1,29 @@
+package snake.render;
+
+import java.nio.FloatBuffer;
+
+import org.joml.Matrix4fc;
+
+/**
+ * Batch renderer with no graphics backend.
+ * <p>
+ * Frames are batched exactly as they would be for the GPU but the submit is
+ * dropped, leaving only the counters; useful headless and in benchmarks.
+ */
+public final class RecordingRenderer extends BatchRenderer {
+
+    public RecordingRenderer() {
+        super(1024);
+    }
+
+    @Override
+    protected void submit(final Matrix4fc projection, final FloatBuffer instances, final int count) {
+        // No backend
+    }
+
+    @Override
+    public void dispose() {
+        // Nothing to release
+    }
+
+}
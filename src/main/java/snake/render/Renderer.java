@@ -0,0 +1,34 @@
+package snake.render;
+
+import org.joml.Matrix4fc;
+import org.joml.Vector3fc;
+
+/**
+ * Draws the game as a set of unit blocks in grid space.
+ * <p>
+ * A frame is submitted as {@link #begin}, any number of {@link #drawBlock}
+ * calls and {@link #end}; implementations are free to batch everything until
+ * {@code end}.
+ */
+public interface Renderer {
+
+    /**
+     * Starts a frame.
+     *
+     * @param projection maps grid space (one unit per cell) to clip space
+     */
+    void begin(Matrix4fc projection);
+
+    /**
+     * Draws a block whose top left corner is at ({@code col}, {@code row}).
+     */
+    void drawBlock(float col, float row, Vector3fc color);
+
+    void end();
+
+    /**
+     * Releases any resources held by the renderer.
+     */
+    void dispose();
+
+}
@@ -0,0 +1,117 @@
+package snake.render;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import org.joml.Matrix4fc;
+import org.joml.Vector3fc;
+
+/**
+ * Batch renderer that rasterizes frames into memory on the CPU, so frames can
+ * be drawn and captured with no GPU or window.
+ * <p>
+ * Pixels are RGBA, one byte per channel, with the top row first. Each block is
+ * filled as an axis-aligned rectangle covering the pixels whose centres it
+ * contains, as the GPU would; only projections that scale and translate, such
+ * as the orthographic ones the game uses, are supported. Drawing does not
+ * allocate.
+ */
+public final class SoftwareRenderer extends BatchRenderer {
+
+    private final int width;
+    private final int height;
+    private final ByteBuffer pixels;
+    private final IntBuffer packed;
+
+    public SoftwareRenderer(final int width, final int height) {
+        super(1024);
+        if (width < 1 || height < 1)
+            throw new IllegalArgumentException("Invalid size: " + width + "x" + height);
+        this.width = width;
+        this.height = height;
+        this.pixels = ByteBuffer.allocateDirect(width * height * 4).order(ByteOrder.nativeOrder());
+        this.packed = this.pixels.asIntBuffer();
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * The frame, {@code width * height * 4} bytes from position {@code 0}.
+     */
+    public ByteBuffer getPixels() {
+        return this.pixels;
+    }
+
+    /**
+     * Fills the whole frame, like {@code glClear}.
+     */
+    public void clear(final Vector3fc color) {
+        final int pixel = pack(color.x(), color.y(), color.z());
+        final IntBuffer packed = this.packed;
+        for (int i = 0, n = this.width * this.height; i < n; i++)
+            packed.put(i, pixel);
+    }
+
+    @Override
+    protected void submit(final Matrix4fc projection, final FloatBuffer instances, final int count) {
+        // Grid space to pixels, with y down as in the frame
+        final float scaleX = projection.m00() * 0.5f * this.width;
+        final float offsetX = (projection.m30() + 1.0f) * 0.5f * this.width;
+        final float scaleY = -projection.m11() * 0.5f * this.height;
+        final float offsetY = (1.0f - projection.m31()) * 0.5f * this.height;
+        for (int i = 0, base = instances.position(); i < count; i++, base += FLOATS_PER_INSTANCE) {
+            final float col = instances.get(base);
+            final float row = instances.get(base + 1);
+            final float x0 = col * scaleX + offsetX;
+            final float x1 = x0 + scaleX;
+            final float y0 = row * scaleY + offsetY;
+            final float y1 = y0 + scaleY;
+            fill(Math.min(x0, x1), Math.max(x0, x1), Math.min(y0, y1), Math.max(y0, y1),
+                    pack(instances.get(base + 2), instances.get(base + 3), instances.get(base + 4)));
+        }
+    }
+
+    private void fill(final float left, final float right, final float top, final float bottom, final int pixel) {
+        final int x0 = Math.max(0, (int)Math.ceil(left - 0.5f));
+        final int x1 = Math.min(this.width, (int)Math.ceil(right - 0.5f));
+        final int y0 = Math.max(0, (int)Math.ceil(top - 0.5f));
+        final int y1 = Math.min(this.height, (int)Math.ceil(bottom - 0.5f));
+        final IntBuffer packed = this.packed;
+        for (int y = y0; y < y1; y++) {
+            final int rowStart = y * this.width;
+            for (int x = x0; x < x1; x++)
+                packed.put(rowStart + x, pixel);
+        }
+    }
+
+    /**
+     * One opaque RGBA pixel as an int that is laid out as bytes R, G, B, A in
+     * native order.
+     */
+    private static int pack(final float red, final float green, final float blue) {
+        final int r = channel(red);
+        final int g = channel(green);
+        final int b = channel(blue);
+        if (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN)
+            return 0xff000000 | b << 16 | g << 8 | r;
+        return r << 24 | g << 16 | b << 8 | 0xff;
+    }
+
+    private static int channel(final float value) {
+        return Math.round(Math.max(0.0f, Math.min(1.0f, value)) * 255.0f);
+    }
+
+    @Override
+    public void dispose() {
+        // Nothing to release
+    }
+
+}
@@ -0,0 +1,50 @@
+package snake.replay;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Layout of a replay file.
+ * <p>
+ * <pre>
+ * header   magic "SNKR", version (1 byte), cols (varint), rows (varint), seed (8 bytes)
+ * events   varint((tick delta &lt;&lt; 2) | direction ordinal), one per applied turn
+ * trailer  final tick (8), score (4), length (4), event count (4),
+ *          CRC-32 of everything before it (4), magic "SNKE"
+ * </pre>
+ * Multi-byte fields are big-endian. The trailer has a fixed size, so it can
+ * be read first from the end of the file.
+ */
+final class ReplayFormat {
+
+    static final int HEADER_MAGIC = 0x534E4B52;  // SNKR
+    static final int TRAILER_MAGIC = 0x534E4B45;  // SNKE
+    static final byte VERSION = 2;  // 2: integer movement; version 1 games no longer re-simulate
+
+    static final int TRAILER_SIZE = 8 + 4 + 4 + 4 + 4 + 4;
+    /** Bytes of the trailer covered by the checksum. */
+    static final int TRAILER_CHECKED = 8 + 4 + 4 + 4;
+    static final int MAX_VARINT_SIZE = 10;
+
+    private ReplayFormat() {
+    }
+
+    static void putVarLong(final ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte)value);
+    }
+
+    static long getVarLong(final ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = buffer.get();
+            value |= (long)(b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+}
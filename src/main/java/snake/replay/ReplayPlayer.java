@@ -0,0 +1,82 @@
+package snake.replay;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import snake.sim.SnakeSimulation;
+
+/**
+ * Re-simulates a replay headless at full speed and checks that it ends in the
+ * state recorded in its trailer.
+ * <p>
+ * A mismatch means the rules in {@link SnakeSimulation#step()} no longer
+ * behave the way they did when the replay was recorded.
+ */
+public final class ReplayPlayer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplayPlayer.class);
+
+    private ReplayPlayer() {
+    }
+
+    /**
+     * Plays the replay and returns the simulation in its final state.
+     *
+     * @throws IllegalStateException if the final tick, score or length differ
+     *         from the recorded ones
+     */
+    public static SnakeSimulation play(final ReplayReader replay) {
+        final SnakeSimulation simulation = new SnakeSimulation(replay.getCols(), replay.getRows(), replay.getSeed());
+        while (replay.nextTurn()) {
+            advanceTo(simulation, replay.getTurnTick());
+            simulation.turn(replay.getTurnDirection());
+        }
+        advanceTo(simulation, replay.getFinalTick());
+
+        final int length = simulation.getSnake().tail.size() + 1;
+        if (simulation.getTick() != replay.getFinalTick()
+                || simulation.getScore() != replay.getFinalScore()
+                || length != replay.getFinalLength()) {
+            throw new IllegalStateException(String.format(
+                    "Replay diverged - expected tick %d, score %d, length %d but got tick %d, score %d, length %d",
+                    replay.getFinalTick(), replay.getFinalScore(), replay.getFinalLength(),
+                    simulation.getTick(), simulation.getScore(), length
+            ));
+        }
+        return simulation;
+    }
+
+    private static void advanceTo(final SnakeSimulation simulation, final long tick) {
+        while (simulation.getTick() < tick && simulation.isAlive() && !simulation.isWon())
+            simulation.step();
+    }
+
+    /**
+     * Usage: {@code ReplayPlayer <replay>...}; exits with status 1 if any
+     * replay fails to verify.
+     */
+    public static void main(String[] args) {
+        boolean ok = true;
+        for (final String arg : args) {
+            final Path path = Paths.get(arg);
+            try {
+                final ReplayReader replay = new ReplayReader(path);
+                final long start = System.nanoTime();
+                final SnakeSimulation simulation = play(replay);
+                final long elapsed = Math.max(1, System.nanoTime() - start);
+                logger.info("{}: OK - {} ticks, score {}, {} turns ({} ticks/s)",
+                        path, simulation.getTick(), simulation.getScore(), replay.getEventCount(),
+                        simulation.getTick() * 1_000_000_000L / elapsed);
+            } catch (IOException | IllegalStateException e) {
+                logger.error(path + ": " + e.getMessage());
+                ok = false;
+            }
+        }
+        if (!ok)
+            System.exit(1);
+    }
+
+}
@@ -0,0 +1,132 @@
+package snake.replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import snake.sim.Snake;
+
+/**
+ * Reads a replay written by {@link ReplayWriter} through a memory-mapped view
+ * of the file.
+ * <p>
+ * The checksum is verified when the replay is opened. Turns are then decoded
+ * straight from the mapping with {@link #nextTurn()}.
+ */
+public final class ReplayReader {
+
+    private static final Snake.Direction[] directions = Snake.Direction.values();
+
+    private final MappedByteBuffer mapped;
+    private final ByteBuffer events;
+
+    private final int cols;
+    private final int rows;
+    private final long seed;
+    private final long finalTick;
+    private final int finalScore;
+    private final int finalLength;
+    private final int eventCount;
+
+    private int eventsRead = 0;
+    private long tick = 0;
+    private Snake.Direction direction;
+
+    public ReplayReader(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("Replay too large: " + path);
+            this.mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        final int size = this.mapped.capacity();
+        if (size < 4 + 1 + 2 + 8 + ReplayFormat.TRAILER_SIZE || this.mapped.getInt(0) != ReplayFormat.HEADER_MAGIC)
+            throw new IOException("Not a replay: " + path);
+        if (this.mapped.get(4) != ReplayFormat.VERSION)
+            throw new IOException("Unsupported replay version " + this.mapped.get(4) + ": " + path);
+
+        // Trailer
+        final int trailer = size - ReplayFormat.TRAILER_SIZE;
+        if (this.mapped.getInt(size - 4) != ReplayFormat.TRAILER_MAGIC)
+            throw new IOException("Replay is truncated: " + path);
+        final ByteBuffer checked = this.mapped.duplicate();
+        checked.limit(trailer + ReplayFormat.TRAILER_CHECKED);
+        final CRC32 crc = new CRC32();
+        crc.update(checked);
+        if ((int)crc.getValue() != this.mapped.getInt(trailer + ReplayFormat.TRAILER_CHECKED))
+            throw new IOException("Replay checksum mismatch: " + path);
+        this.finalTick = this.mapped.getLong(trailer);
+        this.finalScore = this.mapped.getInt(trailer + 8);
+        this.finalLength = this.mapped.getInt(trailer + 12);
+        this.eventCount = this.mapped.getInt(trailer + 16);
+
+        // Header
+        final ByteBuffer header = this.mapped.duplicate();
+        header.position(5);
+        this.cols = (int)ReplayFormat.getVarLong(header);
+        this.rows = (int)ReplayFormat.getVarLong(header);
+        this.seed = header.getLong();
+
+        header.limit(trailer);
+        this.events = header.slice();
+    }
+
+    /**
+     * Decodes the next turn.
+     *
+     * @return {@code false} once every turn has been read
+     */
+    public boolean nextTurn() {
+        if (this.eventsRead == this.eventCount)
+            return false;
+        final long event = ReplayFormat.getVarLong(this.events);
+        this.tick += event >>> 2;
+        this.direction = directions[(int)(event & 3)];
+        this.eventsRead++;
+        return true;
+    }
+
+    /**
+     * Steps taken before the current turn was applied.
+     */
+    public long getTurnTick() {
+        return this.tick;
+    }
+
+    public Snake.Direction getTurnDirection() {
+        return this.direction;
+    }
+
+    public int getCols() {
+        return this.cols;
+    }
+
+    public int getRows() {
+        return this.rows;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    public long getFinalTick() {
+        return this.finalTick;
+    }
+
+    public int getFinalScore() {
+        return this.finalScore;
+    }
+
+    public int getFinalLength() {
+        return this.finalLength;
+    }
+
+    public int getEventCount() {
+        return this.eventCount;
+    }
+
+}
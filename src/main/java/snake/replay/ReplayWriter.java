@@ -0,0 +1,148 @@
+package snake.replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import snake.sim.Snake;
+
+/**
+ * Records a game as its seed plus every applied turn.
+ * <p>
+ * Events are encoded into one of two buffers on the calling thread; when a
+ * buffer fills up it is handed to a background thread that checksums it and
+ * writes it to the file channel while the other buffer takes new events, so
+ * the frame loop never waits on the disk. A failed write disables recording
+ * rather than interrupting the game.
+ */
+public final class ReplayWriter implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplayWriter.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final CRC32 crc = new CRC32();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "replay-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<?> pending;
+    private ByteBuffer active = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private ByteBuffer spare = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    private long lastTick = 0;
+    private int events = 0;
+    private boolean failed = false;
+    private boolean closed = false;
+
+    public ReplayWriter(final Path path, final int cols, final int rows, final long seed) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.active.putInt(ReplayFormat.HEADER_MAGIC);
+        this.active.put(ReplayFormat.VERSION);
+        ReplayFormat.putVarLong(this.active, cols);
+        ReplayFormat.putVarLong(this.active, rows);
+        this.active.putLong(seed);
+    }
+
+    /**
+     * Records a turn applied before simulation step {@code tick + 1}.
+     */
+    public void recordTurn(final long tick, final Snake.Direction direction) {
+        if (this.failed || this.closed)
+            return;
+        if (tick < this.lastTick)
+            throw new IllegalArgumentException("Ticks must not go backwards: " + tick + " < " + this.lastTick);
+        if (this.active.remaining() < ReplayFormat.MAX_VARINT_SIZE) {
+            flush();
+            if (this.failed)
+                return;
+        }
+        ReplayFormat.putVarLong(this.active, ((tick - this.lastTick) << 2) | direction.ordinal());
+        this.lastTick = tick;
+        this.events++;
+    }
+
+    /**
+     * Writes the trailer with the final state of the game and closes the file.
+     */
+    public void finish(final long tick, final int score, final int length) throws IOException {
+        if (this.closed)
+            return;
+        try {
+            if (this.active.remaining() < ReplayFormat.TRAILER_SIZE)
+                flush();
+            awaitPending();
+            // A failed flush leaves the full buffer in place
+            if (this.failed)
+                throw new IOException("Replay recording failed earlier");
+            this.active.putLong(tick).putInt(score).putInt(length).putInt(this.events);
+            final ByteBuffer checked = this.active.duplicate();
+            checked.flip();
+            this.crc.update(checked);
+            this.active.putInt((int)this.crc.getValue()).putInt(ReplayFormat.TRAILER_MAGIC);
+            this.active.flip();
+            while (this.active.hasRemaining())
+                this.channel.write(this.active);
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Closes the file without a trailer if {@link #finish} was not called; such
+     * a replay cannot be played back.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed)
+            return;
+        this.closed = true;
+        awaitPending();
+        this.writer.shutdown();
+        this.channel.close();
+    }
+
+    private void flush() {
+        awaitPending();
+        if (this.failed)
+            return;
+        final ByteBuffer full = this.active;
+        this.active = this.spare;
+        this.spare = full;
+        full.flip();
+        this.pending = this.writer.submit(() -> {
+            this.crc.update(full.duplicate());
+            while (full.hasRemaining())
+                this.channel.write(full);
+            full.clear();
+            return null;
+        });
+    }
+
+    private void awaitPending() {
+        if (this.pending == null)
+            return;
+        try {
+            this.pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.failed = true;
+        } catch (ExecutionException e) {
+            logger.error("Error writing replay - " + e.getCause());
+            this.failed = true;
+        }
+        this.pending = null;
+    }
+
+}
@@ -0,0 +1,63 @@
+package snake.scores;
+
+/**
+ * One finished game as read back from a {@link ScoreLog}.
+ */
+public final class GameScore {
+
+    private final int record;
+    private final int score;
+    private final int length;
+    private final long ticks;
+    private final long seed;
+    private final long timestamp;
+
+    private GameScore(final int record, final int score, final int length, final long ticks, final long seed,
+                      final long timestamp) {
+        this.record = record;
+        this.score = score;
+        this.length = length;
+        this.ticks = ticks;
+        this.seed = seed;
+        this.timestamp = timestamp;
+    }
+
+    public static GameScore of(final ScoreLog log, final int record) {
+        return new GameScore(record, log.getScore(record), log.getLength(record), log.getTicks(record),
+                log.getSeed(record), log.getTimestamp(record));
+    }
+
+    public int getRecord() {
+        return this.record;
+    }
+
+    public int getScore() {
+        return this.score;
+    }
+
+    public int getLength() {
+        return this.length;
+    }
+
+    public long getTicks() {
+        return this.ticks;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * When the game finished, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + this.record + ": score " + this.score + ", length " + this.length + ", " + this.ticks
+                + " ticks, seed " + this.seed;
+    }
+
+}
@@ -0,0 +1,234 @@
+package snake.scores;
+
+import java.util.Arrays;
+
+/**
+ * In-memory indexes over a {@link ScoreLog}: the best games overall and the
+ * games played with each seed.
+ * <p>
+ * The best {@code topSize} games are kept in a heap with the worst at the
+ * root, so a new game costs at most a comparison and a few swaps and a query
+ * only touches the heap. Games are chained by seed through an array of
+ * record numbers, each pointing at the previous game with the same seed, from
+ * an open-addressing table holding each seed, its latest game and its best
+ * game, so indexing or looking up a game never reads back from the log at
+ * random and the best game for a seed is found without walking its chain.
+ * Ties go to the earlier game. Not thread safe.
+ */
+public final class Leaderboard {
+
+    private static final int NONE = -1;
+
+    private final ScoreLog log;
+    private final int topSize;
+    private final int[] heapRecords;
+    private final int[] heapScores;
+    private int heapSize = 0;
+    private final long[] ranked;
+
+    private int[] latest = new int[1 << 10];  // Latest record per seed, NONE if free
+    private long[] keys = new long[1 << 10];  // Seed of each game in latest
+    private int[] best = new int[1 << 10];  // Best record per seed
+    private int[] bestScores = new int[1 << 10];  // Score of each game in best
+    private int seeds = 0;
+    private int[] previous = new int[1 << 10];  // Previous record with the same seed
+    private int records = 0;
+
+    /**
+     * Indexes every game already in {@code log}.
+     *
+     * @param topSize how many of the best games to keep ranked
+     */
+    public Leaderboard(final ScoreLog log, final int topSize) {
+        if (topSize < 1)
+            throw new IllegalArgumentException("Top size must be at least 1: " + topSize);
+        this.log = log;
+        this.topSize = topSize;
+        this.heapRecords = new int[topSize];
+        this.heapScores = new int[topSize];
+        this.ranked = new long[topSize];
+        Arrays.fill(this.latest, NONE);
+        final int size = log.size();
+        if (size > this.previous.length)
+            this.previous = new int[size];
+        for (int record = 0; record < size; record++)
+            add(record);
+    }
+
+    /**
+     * Indexes the next game appended to the log.
+     */
+    public void add(final int record) {
+        if (record != this.records)
+            throw new IllegalArgumentException("Expected record #" + this.records + ", got #" + record);
+        final long seed = this.log.getSeed(record);
+        final int score = this.log.getScore(record);
+
+        if (this.heapSize < this.topSize) {
+            this.heapRecords[this.heapSize] = record;
+            this.heapScores[this.heapSize] = score;
+            siftUp(this.heapSize++);
+        } else if (score > this.heapScores[0]) {
+            this.heapRecords[0] = record;
+            this.heapScores[0] = score;
+            siftDown(0);
+        }
+
+        if (record == this.previous.length)
+            this.previous = Arrays.copyOf(this.previous, this.previous.length << 1);
+        final int slot = find(seed);
+        if (this.latest[slot] == NONE) {
+            this.keys[slot] = seed;
+            this.seeds++;
+            this.previous[record] = NONE;
+            this.best[slot] = record;
+            this.bestScores[slot] = score;
+        } else {
+            this.previous[record] = this.latest[slot];
+            if (score > this.bestScores[slot]) {
+                this.best[slot] = record;
+                this.bestScores[slot] = score;
+            }
+        }
+        this.latest[slot] = record;
+        this.records++;
+        if (this.seeds << 1 > this.latest.length)
+            resize(this.latest.length << 1);
+    }
+
+    /**
+     * Fills {@code records} with the best games, best first.
+     *
+     * @return how many were filled in
+     */
+    public int getTop(final int[] records) {
+        final int count = Math.min(records.length, this.heapSize);
+        if (count == 0)
+            return 0;
+        // Sort the heap by rank: score descending, then record ascending
+        final long[] ranked = this.ranked;
+        for (int i = 0; i < this.heapSize; i++)
+            ranked[i] = ((long)~this.heapScores[i] << 32) | this.heapRecords[i];
+        Arrays.sort(ranked, 0, this.heapSize);
+        for (int i = 0; i < count; i++)
+            records[i] = (int)ranked[i];
+        return count;
+    }
+
+    /**
+     * The best game played with {@code seed}, or {@code -1} if none.
+     */
+    public int getBest(final long seed) {
+        final int slot = find(seed);
+        return this.latest[slot] == NONE ? NONE : this.best[slot];
+    }
+
+    /**
+     * Fills {@code records} with the games played with {@code seed}, latest
+     * first.
+     *
+     * @return how many were filled in
+     */
+    public int getGames(final long seed, final int[] records) {
+        int count = 0;
+        for (int record = this.latest[find(seed)]; record != NONE && count < records.length; record = this.previous[record])
+            records[count++] = record;
+        return count;
+    }
+
+    /**
+     * Number of games indexed.
+     */
+    public int size() {
+        return this.records;
+    }
+
+    /**
+     * Number of different seeds played.
+     */
+    public int getSeeds() {
+        return this.seeds;
+    }
+
+    /**
+     * The slot holding {@code seed}, or the free slot it would go in.
+     */
+    private int find(final long seed) {
+        final int mask = this.latest.length - 1;
+        int slot = hash(seed) & mask;
+        while (this.latest[slot] != NONE && this.keys[slot] != seed)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private void resize(final int capacity) {
+        final int[] oldLatest = this.latest;
+        final long[] oldKeys = this.keys;
+        final int[] oldBest = this.best;
+        final int[] oldBestScores = this.bestScores;
+        this.latest = new int[capacity];
+        this.keys = new long[capacity];
+        this.best = new int[capacity];
+        this.bestScores = new int[capacity];
+        Arrays.fill(this.latest, NONE);
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldLatest.length; i++) {
+            if (oldLatest[i] == NONE)
+                continue;
+            int slot = hash(oldKeys[i]) & mask;
+            while (this.latest[slot] != NONE)
+                slot = (slot + 1) & mask;
+            this.latest[slot] = oldLatest[i];
+            this.keys[slot] = oldKeys[i];
+            this.best[slot] = oldBest[i];
+            this.bestScores[slot] = oldBestScores[i];
+        }
+    }
+
+    private static int hash(final long seed) {
+        final long h = seed * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32));
+    }
+
+    /**
+     * Whether heap entry {@code a} ranks below {@code b}.
+     */
+    private boolean below(final int a, final int b) {
+        return this.heapScores[a] < this.heapScores[b]
+                || this.heapScores[a] == this.heapScores[b] && this.heapRecords[a] > this.heapRecords[b];
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            final int parent = (i - 1) >> 1;
+            if (!below(i, parent))
+                return;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            final int left = (i << 1) + 1;
+            if (left >= this.heapSize)
+                return;
+            final int right = left + 1;
+            final int lowest = right < this.heapSize && below(right, left) ? right : left;
+            if (!below(lowest, i))
+                return;
+            swap(i, lowest);
+            i = lowest;
+        }
+    }
+
+    private void swap(final int a, final int b) {
+        final int record = this.heapRecords[a];
+        final int score = this.heapScores[a];
+        this.heapRecords[a] = this.heapRecords[b];
+        this.heapScores[a] = this.heapScores[b];
+        this.heapRecords[b] = record;
+        this.heapScores[b] = score;
+    }
+
+}
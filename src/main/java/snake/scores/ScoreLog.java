@@ -0,0 +1,229 @@
+package snake.scores;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only log of finished games in a memory-mapped file.
+ * <p>
+ * After a 16 byte header the file is mapped in regions of
+ * {@link #REGION_SIZE} bytes, each holding as many whole records as fit.
+ * A record is the score, length, ticks, seed and timestamp of one game
+ * followed by a CRC32 of those fields, so there is no record count to keep
+ * in step: opening the log scans the records in order and stops at the first
+ * that does not check out. Space past the end is zero, which never checks
+ * out. If that record is not all zeros the previous run died while writing
+ * it, and it and everything after it are zeroed before anything new is
+ * appended.
+ * <p>
+ * Appending writes straight into the mapping, so it costs no system call and
+ * survives the process dying; {@link #force} also makes it survive the
+ * machine going down. Not thread safe.
+ */
+public final class ScoreLog implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScoreLog.class);
+
+    public static final int RECORD_SIZE = 36;
+    public static final int REGION_SIZE = 1 << 23;
+
+    private static final int MAGIC = 0x534E4B4C;  // "SNKL"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORDS_PER_REGION = REGION_SIZE / RECORD_SIZE;
+    private static final int CHECKED_SIZE = RECORD_SIZE - 4;  // Everything but the checksum
+
+    private static final int SCORE_OFFSET = 0;
+    private static final int LENGTH_OFFSET = 4;
+    private static final int TICKS_OFFSET = 8;
+    private static final int SEED_OFFSET = 16;
+    private static final int TIMESTAMP_OFFSET = 24;
+    private static final int CRC_OFFSET = 32;
+
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> regions = new ArrayList<>();
+    // Per region, for checksumming without moving the mapping's position
+    private final List<ByteBuffer> views = new ArrayList<>();
+    private final CRC32 crc = new CRC32();
+    private int size = 0;
+    private int forced = 0;
+    private boolean recovered = false;
+
+    /**
+     * Opens the log at {@code path}, creating it if it does not exist, and
+     * recovers from a torn last record.
+     */
+    public ScoreLog(final Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            if (this.channel.size() == 0) {
+                header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).putInt(REGION_SIZE).flip();
+                while (header.hasRemaining())
+                    this.channel.write(header, header.position());
+            } else {
+                while (header.hasRemaining())
+                    if (this.channel.read(header, header.position()) < 0)
+                        break;
+                header.flip();
+                if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION
+                        || header.getInt() != RECORD_SIZE || header.getInt() != REGION_SIZE) {
+                    logger.error("Not a score log - " + path);
+                    throw new IOException("Not a score log: " + path);
+                }
+            }
+            final long regions = (this.channel.size() - HEADER_SIZE + REGION_SIZE - 1) / REGION_SIZE;
+            for (int region = 0; region < regions; region++)
+                map(region);
+            recover();
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends a game and returns its record number.
+     */
+    public int append(final int score, final int length, final long ticks, final long seed, final long timestamp)
+            throws IOException {
+        if (this.size == Integer.MAX_VALUE)
+            throw new IOException("Score log full");
+        final int region = this.size / RECORDS_PER_REGION;
+        if (region == this.regions.size())
+            map(region);
+        final MappedByteBuffer buffer = this.regions.get(region);
+        final int offset = (this.size % RECORDS_PER_REGION) * RECORD_SIZE;
+        buffer.putInt(offset + SCORE_OFFSET, score);
+        buffer.putInt(offset + LENGTH_OFFSET, length);
+        buffer.putLong(offset + TICKS_OFFSET, ticks);
+        buffer.putLong(offset + SEED_OFFSET, seed);
+        buffer.putLong(offset + TIMESTAMP_OFFSET, timestamp);
+        buffer.putInt(offset + CRC_OFFSET, checksum(region, offset));
+        return this.size++;
+    }
+
+    /**
+     * Flushes every record appended so far to the disk.
+     */
+    public void force() {
+        if (this.forced == this.size)
+            return;
+        final int last = (this.size - 1) / RECORDS_PER_REGION;
+        for (int region = this.forced / RECORDS_PER_REGION; region <= last; region++)
+            this.regions.get(region).force();
+        this.forced = this.size;
+    }
+
+    /**
+     * Number of records.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Whether opening the log dropped a torn record.
+     */
+    public boolean isRecovered() {
+        return this.recovered;
+    }
+
+    public int getScore(final int record) {
+        return region(record).getInt(offset(record) + SCORE_OFFSET);
+    }
+
+    public int getLength(final int record) {
+        return region(record).getInt(offset(record) + LENGTH_OFFSET);
+    }
+
+    public long getTicks(final int record) {
+        return region(record).getLong(offset(record) + TICKS_OFFSET);
+    }
+
+    public long getSeed(final int record) {
+        return region(record).getLong(offset(record) + SEED_OFFSET);
+    }
+
+    /**
+     * When the game finished, in milliseconds since the epoch.
+     */
+    public long getTimestamp(final int record) {
+        return region(record).getLong(offset(record) + TIMESTAMP_OFFSET);
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        this.channel.close();
+    }
+
+    private void recover() {
+        final int capacity = this.regions.size() * RECORDS_PER_REGION;
+        while (this.size < capacity) {
+            final int region = this.size / RECORDS_PER_REGION;
+            final int offset = (this.size % RECORDS_PER_REGION) * RECORD_SIZE;
+            if (this.regions.get(region).getInt(offset + CRC_OFFSET) != checksum(region, offset))
+                break;
+            this.size++;
+        }
+        this.forced = this.size;
+        if (this.size == capacity || isZero(this.size / RECORDS_PER_REGION, offset(this.size)))
+            return;
+
+        // Torn record - drop it and anything written after it
+        logger.warn("Dropping torn score record #{}", this.size);
+        for (int region = this.size / RECORDS_PER_REGION; region < this.regions.size(); region++) {
+            final MappedByteBuffer buffer = this.regions.get(region);
+            final int from = region == this.size / RECORDS_PER_REGION ? (this.size % RECORDS_PER_REGION) * RECORD_SIZE : 0;
+            for (int i = from; i < REGION_SIZE; i += 4)
+                buffer.putInt(i, 0);
+            buffer.force();
+        }
+        this.recovered = true;
+    }
+
+    private boolean isZero(final int region, final int offset) {
+        final MappedByteBuffer buffer = this.regions.get(region);
+        for (int i = 0; i < RECORD_SIZE; i += 4)
+            if (buffer.getInt(offset + i) != 0)
+                return false;
+        return true;
+    }
+
+    private int checksum(final int region, final int offset) {
+        final ByteBuffer view = this.views.get(region);
+        view.limit(offset + CHECKED_SIZE).position(offset);
+        this.crc.reset();
+        this.crc.update(view);
+        return (int)this.crc.getValue();
+    }
+
+    private void map(final int region) throws IOException {
+        final MappedByteBuffer buffer = this.channel.map(FileChannel.MapMode.READ_WRITE,
+                HEADER_SIZE + (long)region * REGION_SIZE, REGION_SIZE);
+        this.regions.add(buffer);
+        this.views.add(buffer.duplicate());
+    }
+
+    private MappedByteBuffer region(final int record) {
+        if (record < 0 || record >= this.size)
+            throw new IndexOutOfBoundsException("No score record #" + record);
+        return this.regions.get(record / RECORDS_PER_REGION);
+    }
+
+    private static int offset(final int record) {
+        return (record % RECORDS_PER_REGION) * RECORD_SIZE;
+    }
+
+}
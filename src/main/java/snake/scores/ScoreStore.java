@@ -0,0 +1,140 @@
+package snake.scores;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * High scores kept across runs: a {@link ScoreLog} and the
+ * {@link Leaderboard} over it.
+ * <p>
+ * Opening the store recovers the log and rebuilds the leaderboard from it.
+ * Games are recorded on a background thread, which appends them, indexes
+ * them and flushes the log to the disk, so the frame loop never waits on the
+ * file. Queries may come from any thread. A failed append disables
+ * recording rather than interrupting the game.
+ */
+public final class ScoreStore implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScoreStore.class);
+
+    private final ScoreLog log;
+    private final Leaderboard leaderboard;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "score-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean failed = false;
+    private boolean closed = false;
+
+    /**
+     * @param topSize how many of the best games to keep ranked
+     */
+    public ScoreStore(final Path path, final int topSize) throws IOException {
+        this.log = new ScoreLog(path);
+        this.leaderboard = new Leaderboard(this.log, topSize);
+    }
+
+    /**
+     * Queues a finished game to be recorded.
+     *
+     * @param timestamp when the game finished, in milliseconds since the epoch
+     */
+    public void record(final int score, final int length, final long ticks, final long seed, final long timestamp) {
+        if (this.failed)
+            return;
+        try {
+            this.writer.execute(() -> append(score, length, ticks, seed, timestamp));
+        } catch (RejectedExecutionException e) {
+            logger.debug("Score store closed, game not recorded");
+        }
+    }
+
+    private synchronized void append(final int score, final int length, final long ticks, final long seed,
+                                     final long timestamp) {
+        if (this.failed)
+            return;
+        try {
+            this.leaderboard.add(this.log.append(score, length, ticks, seed, timestamp));
+            this.log.force();
+        } catch (IOException e) {
+            logger.error("Error recording score - " + e.getMessage());
+            this.failed = true;
+        }
+    }
+
+    /**
+     * The best {@code count} games, best first.
+     */
+    public synchronized List<GameScore> getTop(final int count) {
+        final int[] records = new int[count];
+        return scores(records, this.leaderboard.getTop(records));
+    }
+
+    /**
+     * The best game played with {@code seed}, or {@code null} if none.
+     */
+    public synchronized GameScore getBest(final long seed) {
+        final int record = this.leaderboard.getBest(seed);
+        return record < 0 ? null : GameScore.of(this.log, record);
+    }
+
+    /**
+     * Up to {@code count} games played with {@code seed}, latest first.
+     */
+    public synchronized List<GameScore> getGames(final long seed, final int count) {
+        final int[] records = new int[count];
+        return scores(records, this.leaderboard.getGames(seed, records));
+    }
+
+    /**
+     * Number of games recorded.
+     */
+    public synchronized int size() {
+        return this.log.size();
+    }
+
+    /**
+     * Whether opening the store dropped a torn record.
+     */
+    public boolean isRecovered() {
+        return this.log.isRecovered();
+    }
+
+    /**
+     * Records any queued games and closes the log.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed)
+            return;
+        this.closed = true;
+        this.writer.shutdown();
+        try {
+            if (!this.writer.awaitTermination(5, TimeUnit.SECONDS))
+                logger.error("Timed out recording scores");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            this.log.close();
+        }
+    }
+
+    private List<GameScore> scores(final int[] records, final int count) {
+        final List<GameScore> scores = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            scores.add(GameScore.of(this.log, records[i]));
+        return scores;
+    }
+
+}
@@ -0,0 +1,343 @@
+package snake.sim;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Many snakes on one shared, wrapping grid, moving one cell per tick.
+ * <p>
+ * Snakes are numbered by slot, from {@code 0} to {@code maxSnakes - 1}. A
+ * player {@link #join}s to claim a slot and their snake appears on a later
+ * tick; a snake that runs into any body, its own included, is removed and
+ * comes back after {@link #RESPAWN_TICKS}. A fixed number of food cells is
+ * kept on the board, and each one eaten grows the snake by a cell.
+ * <p>
+ * Every change a tick makes is reported to a {@link Listener} in the order it
+ * is made, so a copy of the arena fed the same calls stays identical to it;
+ * joining, leaving and turning only take effect on the next tick. A tick does
+ * not allocate once the bodies have grown to their working size.
+ */
+public final class Arena {
+
+    /**
+     * Receives the changes made by a tick.
+     */
+    public interface Listener {
+
+        /**
+         * Snake {@code id} moved its head one cell in {@code direction}, and
+         * its tail end moved out of its cell unless it is growing.
+         */
+        void moved(int id, Snake.Direction direction, boolean tailOut);
+
+        /**
+         * Snake {@code id} appeared on {@code cell}, one cell long.
+         */
+        void spawned(int id, int cell, Snake.Direction direction);
+
+        /**
+         * Snake {@code id} died or left, freeing every cell of its body.
+         */
+        void removed(int id);
+
+        void foodAdded(int cell);
+
+        void foodRemoved(int cell);
+
+    }
+
+    /** Ticks a dead snake waits before it comes back. */
+    public static final int RESPAWN_TICKS = 20;
+    /** Cells a snake grows by after spawning. */
+    public static final int SPAWN_GROWTH = 2;
+
+    private static final Logger logger = LoggerFactory.getLogger(Arena.class);
+
+    private static final Snake.Direction[] directions = Snake.Direction.values();
+    private static final int SPAWN_ATTEMPTS = 64;
+
+    private static final byte FREE = 0;
+    private static final byte ALIVE = 1;
+    private static final byte WAITING = 2;  // Joined, to spawn at respawnAt
+    private static final byte LEAVING = 3;
+
+    private final int cols;
+    private final int rows;
+    private final int foodTarget;
+    private final OccupancyGrid occupancy;
+    private final OccupancyGrid foodGrid;
+    private final int[] food;
+    private int foodCount = 0;
+    private final SeededRandom random;
+    private long tick = 0;
+
+    private final byte[] state;
+    private final byte[] direction;  // Direction of the last move
+    private final byte[] heading;  // Direction of the next move
+    private final IntRingBuffer[] bodies;  // Tail end first, head last
+    private final int[] growth;
+    private final int[] score;
+    private final long[] respawnAt;
+    private final int[] next;
+    private final boolean[] tailOut;
+    private final boolean[] dying;
+
+    public Arena(final int cols, final int rows, final int maxSnakes, final int foodTarget, final long seed) {
+        if ((long)cols * rows > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Grid too large: " + cols + "x" + rows);
+        this.cols = cols;
+        this.rows = rows;
+        this.foodTarget = foodTarget;
+        this.occupancy = new OccupancyGrid(cols, rows);
+        this.foodGrid = new OccupancyGrid(cols, rows);
+        this.food = new int[foodTarget];
+        this.random = new SeededRandom(seed);
+        this.state = new byte[maxSnakes];
+        this.direction = new byte[maxSnakes];
+        this.heading = new byte[maxSnakes];
+        this.bodies = new IntRingBuffer[maxSnakes];
+        this.growth = new int[maxSnakes];
+        this.score = new int[maxSnakes];
+        this.respawnAt = new long[maxSnakes];
+        this.next = new int[maxSnakes];
+        this.tailOut = new boolean[maxSnakes];
+        this.dying = new boolean[maxSnakes];
+    }
+
+    /**
+     * Claims a free slot; its snake spawns on the next tick if there is room.
+     *
+     * @return the snake's id, or {@code -1} if every slot is taken
+     */
+    public int join() {
+        for (int id = 0; id < this.state.length; id++) {
+            if (this.state[id] == FREE) {
+                this.state[id] = WAITING;
+                this.respawnAt[id] = this.tick;
+                this.score[id] = 0;
+                if (this.bodies[id] == null)
+                    this.bodies[id] = new IntRingBuffer(16);
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gives up a slot; the snake is removed on the next tick.
+     */
+    public void leave(final int id) {
+        if (this.state[id] != FREE)
+            this.state[id] = LEAVING;
+    }
+
+    /**
+     * Sets the direction of the snake's next move. Turning back on to the
+     * axis it last moved along is ignored.
+     *
+     * @return {@code true} if the direction changed
+     */
+    public boolean turn(final int id, final Snake.Direction direction) {
+        if (this.state[id] != ALIVE || (direction.ordinal() >> 1) == (this.direction[id] >> 1))
+            return false;
+        this.heading[id] = (byte)direction.ordinal();
+        return true;
+    }
+
+    /**
+     * Advances every snake by one cell: tails move out first, so a snake can
+     * follow a tail, then heads move in order of id, then dead and departed
+     * snakes are removed, waiting ones spawn and eaten food is replaced.
+     */
+    public void tick(final Listener listener) {
+        this.tick++;
+        final int snakes = this.state.length;
+
+        // Tails out
+        for (int id = 0; id < snakes; id++) {
+            if (this.state[id] != ALIVE)
+                continue;
+            this.next[id] = neighbour(this.bodies[id].peekLast(), this.heading[id]);
+            this.tailOut[id] = this.growth[id] == 0;
+            if (this.tailOut[id])
+                this.occupancy.clear(this.bodies[id].removeFirst());
+            else
+                this.growth[id]--;
+        }
+
+        // Heads in
+        for (int id = 0; id < snakes; id++) {
+            if (this.state[id] != ALIVE)
+                continue;
+            final int cell = this.next[id];
+            if (this.occupancy.get(cell)) {
+                this.dying[id] = true;
+                continue;
+            }
+            this.occupancy.set(cell);
+            this.bodies[id].addLast(cell);
+            this.direction[id] = this.heading[id];
+            listener.moved(id, directions[this.heading[id]], this.tailOut[id]);
+            if (this.foodGrid.get(cell)) {
+                removeFood(cell);
+                listener.foodRemoved(cell);
+                this.growth[id]++;
+                this.score[id]++;
+            }
+        }
+
+        // Deaths and departures
+        for (int id = 0; id < snakes; id++) {
+            if (this.dying[id] || this.state[id] == LEAVING) {
+                if (logger.isTraceEnabled())
+                    logger.trace("Arena: Snake {} {} at tick {}", id, this.dying[id] ? "died" : "left", this.tick);
+                final boolean present = this.dying[id] || this.bodies[id].size() > 0;
+                clearBody(id);
+                this.state[id] = this.dying[id] ? WAITING : FREE;
+                this.respawnAt[id] = this.tick + RESPAWN_TICKS;
+                this.dying[id] = false;
+                if (present)
+                    listener.removed(id);
+            }
+        }
+
+        // Spawns
+        for (int id = 0; id < snakes; id++) {
+            if (this.state[id] == WAITING && this.respawnAt[id] <= this.tick)
+                spawn(id, listener);
+        }
+
+        // Food
+        while (this.foodCount < this.foodTarget) {
+            final int cell = freeCell();
+            if (cell < 0)
+                break;
+            this.foodGrid.set(cell);
+            this.food[this.foodCount++] = cell;
+            listener.foodAdded(cell);
+        }
+    }
+
+    public int getCols() {
+        return this.cols;
+    }
+
+    public int getRows() {
+        return this.rows;
+    }
+
+    public long getTick() {
+        return this.tick;
+    }
+
+    public int getMaxSnakes() {
+        return this.state.length;
+    }
+
+    /**
+     * Whether snake {@code id} is on the board.
+     */
+    public boolean isAlive(final int id) {
+        return this.state[id] == ALIVE;
+    }
+
+    public Snake.Direction getDirection(final int id) {
+        return directions[this.direction[id]];
+    }
+
+    /**
+     * Body cells of snake {@code id}, tail end first and head last; empty if
+     * it is not on the board.
+     */
+    public IntRingBuffer getBody(final int id) {
+        return this.bodies[id];
+    }
+
+    public int getScore(final int id) {
+        return this.score[id];
+    }
+
+    /**
+     * Number of food cells kept on the board while there is room.
+     */
+    public int getFoodTarget() {
+        return this.foodTarget;
+    }
+
+    public int getFoodCount() {
+        return this.foodCount;
+    }
+
+    public int getFood(final int index) {
+        return this.food[index];
+    }
+
+    public OccupancyGrid getOccupancy() {
+        return this.occupancy;
+    }
+
+    private void spawn(final int id, final Listener listener) {
+        for (int attempt = 0; attempt < SPAWN_ATTEMPTS; attempt++) {
+            final int cell = this.random.nextInt(this.cols * this.rows);
+            final int heading = this.random.nextInt(4);
+            // Leave the cell ahead free so it does not die straight away
+            if (this.occupancy.get(cell) || this.foodGrid.get(cell) || this.occupancy.get(neighbour(cell, heading)))
+                continue;
+            this.occupancy.set(cell);
+            this.bodies[id].addLast(cell);
+            this.direction[id] = (byte)heading;
+            this.heading[id] = (byte)heading;
+            this.growth[id] = SPAWN_GROWTH;
+            this.state[id] = ALIVE;
+            listener.spawned(id, cell, directions[heading]);
+            return;
+        }
+        // Crowded - try again next tick
+    }
+
+    private void clearBody(final int id) {
+        final IntRingBuffer body = this.bodies[id];
+        for (int i = 0; i < body.size(); i++)
+            this.occupancy.clear(body.get(i));
+        body.clear();
+        this.growth[id] = 0;
+    }
+
+    private void removeFood(final int cell) {
+        this.foodGrid.clear(cell);
+        for (int i = 0; i < this.foodCount; i++) {
+            if (this.food[i] == cell) {
+                this.food[i] = this.food[--this.foodCount];
+                return;
+            }
+        }
+    }
+
+    private int freeCell() {
+        for (int attempt = 0; attempt < SPAWN_ATTEMPTS; attempt++) {
+            final int cell = this.random.nextInt(this.cols * this.rows);
+            if (!this.occupancy.get(cell) && !this.foodGrid.get(cell))
+                return cell;
+        }
+        return -1;
+    }
+
+    /**
+     * The cell next to {@code cell} in direction {@code move}, wrapping
+     * around the edges.
+     */
+    private int neighbour(final int cell, final int move) {
+        final int col = cell % this.cols;
+        switch (directions[move]) {
+            case UP:
+                return cell < this.cols ? cell + (this.rows - 1) * this.cols : cell - this.cols;
+            case DOWN:
+                return cell >= (this.rows - 1) * this.cols ? col : cell + this.cols;
+            case LEFT:
+                return col == 0 ? cell + this.cols - 1 : cell - 1;
+            default:
+                return col == this.cols - 1 ? cell - col : cell + 1;
+        }
+    }
+
+}
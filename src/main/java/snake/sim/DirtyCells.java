@@ -0,0 +1,74 @@
+package snake.sim;
+
+import java.util.Arrays;
+
+/**
+ * Cells whose contents changed since a renderer last caught up, filled in by
+ * a {@link SnakeSimulation} as it steps.
+ * <p>
+ * A normal step changes two or three cells, so a small fixed list suffices;
+ * once it is full, or when the whole board changes at once as on a reset,
+ * only the fact that everything changed is kept. A new list starts out that
+ * way, so the first frame draws the whole board. Does not allocate. Not
+ * thread-safe.
+ */
+public final class DirtyCells {
+
+    private final int[] cells;
+    private int count = 0;
+    private boolean all = true;
+
+    /**
+     * @param capacity changed cells kept before giving up and treating the
+     *        whole board as changed
+     */
+    public DirtyCells(final int capacity) {
+        this.cells = new int[capacity];
+    }
+
+    public void add(final int cell) {
+        if (this.all)
+            return;
+        if (this.count == this.cells.length) {
+            markAll();
+            return;
+        }
+        this.cells[this.count++] = cell;
+    }
+
+    /**
+     * Records that every cell may have changed.
+     */
+    public void markAll() {
+        this.all = true;
+        this.count = 0;
+    }
+
+    public boolean isAll() {
+        return this.all;
+    }
+
+    public int size() {
+        return this.count;
+    }
+
+    public int get(final int index) {
+        return this.cells[index];
+    }
+
+    /**
+     * Puts the cells in index order, which groups the ones on the same row.
+     */
+    public void sort() {
+        Arrays.sort(this.cells, 0, this.count);
+    }
+
+    /**
+     * Forgets every change, once they have been drawn.
+     */
+    public void clear() {
+        this.count = 0;
+        this.all = false;
+    }
+
+}
@@ -0,0 +1,93 @@
+package snake.sim;
+
+import java.util.Arrays;
+
+/**
+ * Set of free grid cells supporting constant time insert, remove and uniform
+ * random sampling.
+ * <p>
+ * The free cells are kept densely packed at the front of {@code cells}, with
+ * {@code positions} mapping each cell back to its slot (or {@code -1} when it
+ * is not free). Removing a cell moves the last free cell into its slot.
+ */
+public final class FreeCellIndex {
+
+    private final int[] cells;
+    private final int[] positions;
+    private int size = 0;
+
+    public FreeCellIndex(final int cellCount) {
+        this.cells = new int[cellCount];
+        this.positions = new int[cellCount];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Marks every cell as free.
+     */
+    public void fill() {
+        for (int i = 0; i < this.cells.length; i++) {
+            this.cells[i] = i;
+            this.positions[i] = i;
+        }
+        this.size = this.cells.length;
+    }
+
+    /**
+     * Marks every cell as occupied.
+     */
+    public void clear() {
+        Arrays.fill(this.positions, -1);
+        this.size = 0;
+    }
+
+    /**
+     * Returns the free cell in {@code slot}, {@code 0 <= slot < size()}. The
+     * order of the slots is what {@link #sample} draws from, so copying the
+     * cells slot by slot with {@link #add} reproduces the same samples.
+     */
+    public int get(final int slot) {
+        if (slot >= this.size)
+            throw new IndexOutOfBoundsException("Slot: " + slot + ", Size: " + this.size);
+        return this.cells[slot];
+    }
+
+    public boolean contains(final int cell) {
+        return this.positions[cell] >= 0;
+    }
+
+    public void add(final int cell) {
+        if (this.positions[cell] >= 0)
+            return;
+        this.cells[this.size] = cell;
+        this.positions[cell] = this.size;
+        this.size++;
+    }
+
+    public void remove(final int cell) {
+        final int slot = this.positions[cell];
+        if (slot < 0)
+            return;
+        final int last = this.cells[--this.size];
+        this.cells[slot] = last;
+        this.positions[last] = slot;
+        this.positions[cell] = -1;
+    }
+
+    /**
+     * Returns a uniformly chosen free cell, or {@code -1} when there is none.
+     */
+    public int sample(final SeededRandom random) {
+        if (this.size == 0)
+            return -1;
+        return this.cells[random.nextInt(this.size)];
+    }
+
+}
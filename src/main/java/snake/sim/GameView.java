@@ -0,0 +1,70 @@
+package snake.sim;
+
+/**
+ * Read-only view of what is on the board, enough to draw a frame.
+ */
+public interface GameView {
+
+    int getGridCols();
+
+    int getGridRows();
+
+    long getTick();
+
+    /**
+     * Packed {@code row * cols + col} index of the cell holding the head.
+     */
+    int getHeadCell();
+
+    /**
+     * Column of the head including its progress towards the next cell, for
+     * drawing. Lies within one cell of the head's cell, so it can be slightly
+     * outside the grid next to an edge.
+     */
+    float getHeadX();
+
+    /**
+     * Row of the head including its progress towards the next cell.
+     */
+    float getHeadY();
+
+    /**
+     * {@link #getHeadX()} one tick earlier, for interpolating between ticks.
+     */
+    float getPreviousHeadX();
+
+    /**
+     * {@link #getHeadY()} one tick earlier.
+     */
+    float getPreviousHeadY();
+
+    /**
+     * Number of body cells, not counting the head.
+     */
+    int getBodyLength();
+
+    /**
+     * Packed {@code row * cols + col} index of body cell {@code index}, tail
+     * end first.
+     */
+    int getBodyCell(int index);
+
+    /**
+     * First body cell in index order at or after {@code from} and before
+     * {@code to}, or {@code -1} if there is none. Lets a view of part of the
+     * board find what to draw without going through the whole body.
+     */
+    int nextBodyCell(int from, int to);
+
+    /**
+     * Packed cell index of the food, or {@code -1} if there is none.
+     */
+    int getFood();
+
+    int getScore();
+
+    boolean isAlive();
+
+    boolean isWon();
+
+}
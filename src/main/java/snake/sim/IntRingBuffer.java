@@ -0,0 +1,88 @@
+package snake.sim;
+
+/**
+ * Growable circular buffer of primitive {@code int}s.
+ * <p>
+ * Elements are appended at the back and removed from the front in constant
+ * time; the backing array doubles when full, so growth is amortized and a
+ * buffer that has reached its working size never allocates again. Index
+ * {@code 0} is the oldest element.
+ */
+public final class IntRingBuffer {
+
+    private int[] elements;
+    private int mask;
+    private int head = 0;  // index of the oldest element
+    private int size = 0;
+
+    public IntRingBuffer(final int initialCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(initialCapacity, 2) - 1) << 1;
+        this.elements = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public int capacity() {
+        return this.elements.length;
+    }
+
+    public void addLast(final int value) {
+        if (this.size == this.elements.length)
+            grow();
+        this.elements[(this.head + this.size) & this.mask] = value;
+        this.size++;
+    }
+
+    public int removeFirst() {
+        if (this.size == 0)
+            throw new IllegalStateException("Buffer is empty");
+        final int value = this.elements[this.head];
+        this.head = (this.head + 1) & this.mask;
+        this.size--;
+        return value;
+    }
+
+    public int peekFirst() {
+        if (this.size == 0)
+            throw new IllegalStateException("Buffer is empty");
+        return this.elements[this.head];
+    }
+
+    public int peekLast() {
+        if (this.size == 0)
+            throw new IllegalStateException("Buffer is empty");
+        return this.elements[(this.head + this.size - 1) & this.mask];
+    }
+
+    /**
+     * Returns the element {@code index} places from the front.
+     */
+    public int get(final int index) {
+        if (index < 0 || index >= this.size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        return this.elements[(this.head + index) & this.mask];
+    }
+
+    public void clear() {
+        this.head = 0;
+        this.size = 0;
+    }
+
+    private void grow() {
+        final int[] grown = new int[this.elements.length << 1];
+        final int firstPart = this.elements.length - this.head;
+        System.arraycopy(this.elements, this.head, grown, 0, firstPart);
+        System.arraycopy(this.elements, 0, grown, firstPart, this.head);
+        this.elements = grown;
+        this.mask = grown.length - 1;
+        this.head = 0;
+    }
+
+}
@@ -0,0 +1,145 @@
+package snake.sim;
+
+import java.util.Arrays;
+
+/**
+ * One bit per grid cell, stored in fixed-size chunks that are only allocated
+ * once a cell in them is set.
+ * <p>
+ * Cells are addressed by their packed index {@code row * cols + col}. A chunk
+ * holds {@link #CHUNK_CELLS} consecutive cells as a {@code long[]}, and chunks
+ * are found through a two-level directory whose second level is also
+ * allocated on demand, so memory follows the cells that have been used rather
+ * than the size of the grid. Every operation is constant time regardless of
+ * how many cells are set.
+ */
+public final class OccupancyGrid {
+
+    /** Cells per chunk. */
+    public static final int CHUNK_CELLS = 1 << 12;
+
+    private static final int CHUNK_SHIFT = 12;
+    private static final int BLOCK_SHIFT = 10;  // Chunks per directory block, as a power of two
+    private static final int BLOCK_MASK = (1 << BLOCK_SHIFT) - 1;
+    private static final int WORD_MASK = (CHUNK_CELLS >>> 6) - 1;
+
+    private final int cols;
+    private final int rows;
+    private final long[][][] directory;
+    private int chunkCount = 0;
+
+    public OccupancyGrid(final int cols, final int rows) {
+        if ((long)cols * rows > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Grid too large: " + cols + "x" + rows);
+        this.cols = cols;
+        this.rows = rows;
+        final long chunks = ((long)cols * rows + CHUNK_CELLS - 1) >>> CHUNK_SHIFT;
+        this.directory = new long[(int)((chunks + BLOCK_MASK) >>> BLOCK_SHIFT)][][];
+    }
+
+    public int getCols() {
+        return this.cols;
+    }
+
+    public int getRows() {
+        return this.rows;
+    }
+
+    public int index(final int col, final int row) {
+        return row * this.cols + col;
+    }
+
+    public boolean get(final int cell) {
+        final long[][] block = this.directory[cell >>> (CHUNK_SHIFT + BLOCK_SHIFT)];
+        if (block == null)
+            return false;
+        final long[] chunk = block[(cell >>> CHUNK_SHIFT) & BLOCK_MASK];
+        return chunk != null && (chunk[(cell >>> 6) & WORD_MASK] & (1L << cell)) != 0;
+    }
+
+    public void set(final int cell) {
+        long[][] block = this.directory[cell >>> (CHUNK_SHIFT + BLOCK_SHIFT)];
+        if (block == null)
+            block = this.directory[cell >>> (CHUNK_SHIFT + BLOCK_SHIFT)] = new long[1 << BLOCK_SHIFT][];
+        long[] chunk = block[(cell >>> CHUNK_SHIFT) & BLOCK_MASK];
+        if (chunk == null) {
+            chunk = block[(cell >>> CHUNK_SHIFT) & BLOCK_MASK] = new long[CHUNK_CELLS >>> 6];
+            this.chunkCount++;
+        }
+        chunk[(cell >>> 6) & WORD_MASK] |= 1L << cell;
+    }
+
+    public void clear(final int cell) {
+        final long[][] block = this.directory[cell >>> (CHUNK_SHIFT + BLOCK_SHIFT)];
+        if (block == null)
+            return;
+        final long[] chunk = block[(cell >>> CHUNK_SHIFT) & BLOCK_MASK];
+        if (chunk != null)
+            chunk[(cell >>> 6) & WORD_MASK] &= ~(1L << cell);
+    }
+
+    /**
+     * Clears every cell. Allocated chunks are kept for reuse, so this takes
+     * time proportional to the number of them.
+     */
+    public void clearAll() {
+        for (long[][] block : this.directory) {
+            if (block == null)
+                continue;
+            for (long[] chunk : block)
+                if (chunk != null)
+                    Arrays.fill(chunk, 0L);
+        }
+    }
+
+    /**
+     * Returns the first set cell at or after {@code from} and before
+     * {@code to}, or {@code -1} if there is none. Chunks never allocated are
+     * skipped whole and set chunks are scanned a word at a time, so a search
+     * along part of a row costs about one step per 64 cells.
+     */
+    public int nextSet(final int from, final int to) {
+        long cell = from;
+        while (cell < to) {
+            final int index = (int)cell;
+            final long chunkEnd = Math.min(to, ((cell >>> CHUNK_SHIFT) + 1) << CHUNK_SHIFT);
+            final long[][] block = this.directory[index >>> (CHUNK_SHIFT + BLOCK_SHIFT)];
+            final long[] chunk = block == null ? null : block[(index >>> CHUNK_SHIFT) & BLOCK_MASK];
+            if (chunk == null) {
+                cell = chunkEnd;
+                continue;
+            }
+            long bits = chunk[(index >>> 6) & WORD_MASK] & (-1L << index);
+            while (true) {
+                if (bits != 0) {
+                    final long found = (cell & ~63L) + Long.numberOfTrailingZeros(bits);
+                    return found < to ? (int)found : -1;
+                }
+                cell = (cell & ~63L) + 64;
+                if (cell >= chunkEnd)
+                    break;
+                bits = chunk[(int)(cell >>> 6) & WORD_MASK];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Number of chunks allocated so far.
+     */
+    public int getChunkCount() {
+        return this.chunkCount;
+    }
+
+    /**
+     * Approximate heap taken by the chunks and directory.
+     */
+    public long getMemoryFootprint() {
+        long bytes = 16 + 4L * this.directory.length;
+        for (long[][] block : this.directory)
+            if (block != null)
+                bytes += 16 + 4L * block.length;
+        return bytes + this.chunkCount * (16L + (CHUNK_CELLS >>> 3));
+    }
+
+}
@@ -0,0 +1,314 @@
+package snake.sim;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Rewind history for a {@link SnakeSimulation}.
+ * <p>
+ * After every step {@link #record()} appends the new state to a circular log
+ * of fixed size: a full keyframe every {@code keyframeInterval} ticks and
+ * otherwise a small delta, normally just the head's progress and, when it
+ * entered a new cell, that cell and whether the body lost its tail end. When
+ * the log is full the oldest ticks are dropped, always leaving a keyframe
+ * first, so memory use never exceeds the budget given to the constructor.
+ * <p>
+ * Seeking restores the nearest keyframe at or before the requested tick and
+ * re-applies at most {@code keyframeInterval - 1} deltas. Recording and
+ * seeking do not allocate.
+ */
+public final class RewindBuffer {
+
+    private static final int KEYFRAME = 0x80;
+    private static final int MOVE = 1;
+    private static final int POP = 1 << 1;
+    private static final int STATE = 1 << 2;
+
+    private static final Snake.Direction[] directions = Snake.Direction.values();
+
+    private final SnakeSimulation simulation;
+    private final int keyframeInterval;
+
+    private final ByteBuffer log;
+    private final ByteBuffer reader;
+    private final ByteBuffer scratch;
+    private final int[] offsets;
+    private final int[] lengths;
+
+    private long oldestTick = 0;
+    private long newestTick = -1;
+    private int writePos = 0;
+    private boolean wrapped = false;  // true when newer records sit before the oldest in the log
+
+    // State at the newest recorded tick, to diff the next step against
+    private int lastHead;
+    private int lastBodySize;
+    private Snake.Direction lastDirection;
+    private int lastFlags;
+    private int lastScore;
+    private int lastFood;
+    private int lastSpeed;
+    private long lastRandomState;
+
+    /**
+     * @param budgetBytes size of the record log; must hold at least two
+     *        keyframes
+     * @param maxTicks the most ticks kept, e.g. several minutes' worth
+     * @param keyframeInterval ticks between keyframes, bounding seek time
+     */
+    public RewindBuffer(final SnakeSimulation simulation, final int budgetBytes, final int maxTicks, final int keyframeInterval) {
+        if (budgetBytes < 2 * (simulation.getMaxStateSize() + 1))
+            throw new IllegalArgumentException("Budget too small for two keyframes: " + budgetBytes);
+        if (maxTicks < 1 || keyframeInterval < 1)
+            throw new IllegalArgumentException("maxTicks and keyframeInterval must be positive");
+        this.simulation = simulation;
+        this.keyframeInterval = keyframeInterval;
+        this.log = ByteBuffer.allocateDirect(budgetBytes);
+        this.reader = this.log.duplicate();
+        this.scratch = ByteBuffer.allocateDirect(simulation.getMaxStateSize() + 1);
+        this.offsets = new int[maxTicks];
+        this.lengths = new int[maxTicks];
+    }
+
+    /**
+     * Records the simulation's current tick. Call after every step; a tick that
+     * does not follow the newest recorded one (e.g. after a reset) starts a
+     * new history.
+     */
+    public void record() {
+        final long tick = this.simulation.getTick();
+        if (!isEmpty() && tick == this.newestTick)
+            return;  // Nothing stepped, e.g. the game is over
+        if (!isEmpty() && tick != this.newestTick + 1)
+            clear();
+
+        if (!isEmpty() && tick - this.oldestTick >= this.offsets.length)
+            evictOldest();
+
+        boolean keyframe = isEmpty() || tick % this.keyframeInterval == 0;
+        encode(keyframe);
+        int position = reserve(this.scratch.remaining());
+        if (isEmpty() && !keyframe) {
+            // Eviction dropped every keyframe this delta depended on
+            keyframe = true;
+            encode(true);
+            position = reserve(this.scratch.remaining());
+        }
+
+        final int length = this.scratch.remaining();
+        this.log.position(position);
+        this.log.put(this.scratch);
+        this.writePos = position + length;
+        if (isEmpty())
+            this.oldestTick = tick;
+        this.newestTick = tick;
+        this.offsets[slot(tick)] = position;
+        this.lengths[slot(tick)] = length;
+        remember();
+    }
+
+    /**
+     * Restores the state at {@code tick} into {@code target}, which must have
+     * the same grid size. The history is unchanged.
+     *
+     * @throws IllegalArgumentException if the tick is outside the window
+     */
+    public void seek(final long tick, final SnakeSimulation target) {
+        if (tick < this.oldestTick || tick > this.newestTick)
+            throw new IllegalArgumentException("Tick " + tick + " is outside [" + this.oldestTick + ", " + this.newestTick + "]");
+        long keyframe = tick;
+        while ((this.log.get(this.offsets[slot(keyframe)]) & KEYFRAME) == 0)
+            keyframe--;
+
+        this.reader.limit(this.reader.capacity()).position(this.offsets[slot(keyframe)] + 1);
+        target.readState(this.reader);
+        for (long t = keyframe + 1; t <= tick; t++) {
+            this.reader.position(this.offsets[slot(t)]);
+            applyDelta(target, this.reader);
+        }
+    }
+
+    /**
+     * Restores the recorded simulation to {@code tick} and drops the history
+     * after it, so that recording carries on from there.
+     */
+    public void rewind(final long tick) {
+        seek(tick, this.simulation);
+        this.newestTick = tick;
+        final int offset = this.offsets[slot(tick)];
+        this.writePos = offset + this.lengths[slot(tick)];
+        this.wrapped = offset < this.offsets[slot(this.oldestTick)];
+        remember();
+    }
+
+    public void clear() {
+        this.oldestTick = 0;
+        this.newestTick = -1;
+        this.writePos = 0;
+        this.wrapped = false;
+    }
+
+    public boolean isEmpty() {
+        return this.newestTick < this.oldestTick;
+    }
+
+    public long getOldestTick() {
+        return this.oldestTick;
+    }
+
+    public long getNewestTick() {
+        return this.newestTick;
+    }
+
+    /**
+     * Bytes of the log holding live records.
+     */
+    public long getRetainedBytes() {
+        if (isEmpty())
+            return 0;
+        final int oldest = this.offsets[slot(this.oldestTick)];
+        return this.wrapped
+                ? (long)this.log.capacity() - oldest + this.writePos
+                : this.writePos - oldest;
+    }
+
+    /**
+     * Total memory reserved by the buffer, independent of what it holds.
+     */
+    public long getMemoryFootprint() {
+        return (long)this.log.capacity() + this.scratch.capacity() + 8L * this.offsets.length;
+    }
+
+    private int slot(final long tick) {
+        return (int)(tick % this.offsets.length);
+    }
+
+    private void encode(final boolean keyframe) {
+        final ByteBuffer out = this.scratch;
+        out.clear();
+        if (keyframe) {
+            out.put((byte)KEYFRAME);
+            this.simulation.writeState(out);
+        } else {
+            final Snake snake = this.simulation.getSnake();
+            // Entering a new cell pushes the previous head cell on to the body
+            // and pops the tail end unless growing
+            final boolean moved = snake.head != this.lastHead;
+            final boolean popped = moved && snake.tail.size() == this.lastBodySize;
+            final int flags = this.simulation.getFlags();
+            final boolean changed = snake.direction != this.lastDirection
+                    || flags != this.lastFlags
+                    || this.simulation.getScore() != this.lastScore
+                    || this.simulation.getFood() != this.lastFood
+                    || snake.speed != this.lastSpeed
+                    || this.simulation.getRandomState() != this.lastRandomState;
+
+            out.put((byte)((moved ? MOVE : 0) | (popped ? POP : 0) | (changed ? STATE : 0)));
+            putVarInt(out, snake.progress);
+            if (moved)
+                putVarInt(out, snake.head);
+            if (changed) {
+                out.put((byte)snake.direction.ordinal()).put((byte)flags);
+                putVarInt(out, this.simulation.getScore());
+                putVarInt(out, this.simulation.getFood() + 1);
+                putVarInt(out, snake.speed);
+                out.putLong(this.simulation.getRandomState());
+            }
+        }
+        out.flip();
+    }
+
+    private static void applyDelta(final SnakeSimulation target, final ByteBuffer in) {
+        final int mask = in.get();
+        final int progress = getVarInt(in);
+        if ((mask & MOVE) != 0)
+            target.applyMove(getVarInt(in), progress, target.getHeadCell(), (mask & POP) != 0);
+        else
+            target.applyMove(target.getHeadCell(), progress, -1, false);
+        if ((mask & STATE) != 0) {
+            final Snake.Direction direction = directions[in.get()];
+            final int flags = in.get();
+            final int score = getVarInt(in);
+            final int food = getVarInt(in) - 1;
+            final int speed = getVarInt(in);
+            final long randomState = in.getLong();
+            target.applyState(direction, flags, score, food, speed, randomState);
+        }
+    }
+
+    private void remember() {
+        final Snake snake = this.simulation.getSnake();
+        this.lastHead = snake.head;
+        this.lastBodySize = snake.tail.size();
+        this.lastDirection = snake.direction;
+        this.lastFlags = this.simulation.getFlags();
+        this.lastScore = this.simulation.getScore();
+        this.lastFood = this.simulation.getFood();
+        this.lastSpeed = snake.speed;
+        this.lastRandomState = this.simulation.getRandomState();
+    }
+
+    /**
+     * Finds room for a record of {@code size} bytes, evicting the oldest ticks
+     * as needed, and returns its offset.
+     */
+    private int reserve(final int size) {
+        final int capacity = this.log.capacity();
+        while (true) {
+            if (isEmpty()) {
+                this.wrapped = false;
+                if (this.writePos + size > capacity)
+                    this.writePos = 0;
+                return this.writePos;
+            }
+            if (!this.wrapped) {
+                // Free space is [writePos, capacity) then [0, oldest)
+                if (this.writePos + size <= capacity)
+                    return this.writePos;
+                this.writePos = 0;
+                this.wrapped = true;
+            } else {
+                // Free space is [writePos, oldest)
+                if (this.writePos + size <= this.offsets[slot(this.oldestTick)])
+                    return this.writePos;
+                evictOldest();
+            }
+        }
+    }
+
+    /**
+     * Drops the oldest tick, then any following deltas, so that the history
+     * always starts with a keyframe.
+     */
+    private void evictOldest() {
+        do {
+            final int offset = this.offsets[slot(this.oldestTick)];
+            this.oldestTick++;
+            if (isEmpty()) {
+                this.wrapped = false;
+                return;
+            }
+            if (this.offsets[slot(this.oldestTick)] < offset)
+                this.wrapped = false;  // The oldest record is back at the start of the log
+        } while ((this.log.get(this.offsets[slot(this.oldestTick)]) & KEYFRAME) == 0);
+    }
+
+    private static void putVarInt(final ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte)value);
+    }
+
+    private static int getVarInt(final ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+}
@@ -0,0 +1,67 @@
+package snake.sim;
+
+/**
+ * Small, fast and seedable pseudo-random generator (SplitMix64).
+ * <p>
+ * Unlike {@link java.util.Random} it is unsynchronized and its whole state is
+ * a single {@code long}, so a game can be reproduced exactly from its seed.
+ */
+public final class SeededRandom {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    public SeededRandom(final long seed) {
+        this.state = seed;
+    }
+
+    public long getState() {
+        return this.state;
+    }
+
+    public void setState(final long state) {
+        this.state = state;
+    }
+
+    public long nextLong() {
+        final long value = nextLong(this.state);
+        this.state += GOLDEN_GAMMA;
+        return value;
+    }
+
+    /**
+     * What {@link #nextLong()} returns from state {@code state}, for deriving
+     * a value without a generator to allocate.
+     */
+    public static long nextLong(final long state) {
+        long z = state + GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public int nextInt() {
+        return (int)(nextLong() >>> 32);
+    }
+
+    /**
+     * Returns a uniformly distributed value in {@code [0, bound)}.
+     */
+    public int nextInt(final int bound) {
+        if (bound <= 0)
+            throw new IllegalArgumentException("bound must be positive");
+        // Lemire's multiply-shift with rejection to remove the bias
+        long m = (nextLong() >>> 32) * bound;
+        long l = m & 0xFFFFFFFFL;
+        if (l < bound) {
+            final long t = (0x100000000L - bound) % bound;
+            while (l < t) {
+                m = (nextLong() >>> 32) * bound;
+                l = m & 0xFFFFFFFFL;
+            }
+        }
+        return (int)(m >>> 32);
+    }
+
+}
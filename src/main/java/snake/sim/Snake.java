@@ -0,0 +1,22 @@
+package snake.sim;
+
+public final class Snake {
+    public static enum Direction { UP, DOWN, LEFT, RIGHT }
+    /** Fixed-point unit of {@link #progress} and {@link #speed}: one cell. */
+    public static final int CELL = 1000;
+    public static final int INITIAL_SPEED = CELL / 10;
+    public static final int SPEED_PER_FOOD = CELL / 50;
+    public Direction direction = Direction.UP;
+    /** Turn to take on entering the next cell, or {@code null}. */
+    public Direction nextDirection = null;
+    /** Cell of the head as a packed {@code row * cols + col} index. */
+    public int head;
+    /** Distance travelled towards the next cell, in {@code 1/CELL} cells. */
+    public int progress = 0;
+    /** Distance travelled per tick, in {@code 1/CELL} cells; at most one cell. */
+    public int speed = INITIAL_SPEED;
+    /** Body cells as packed {@code row * cols + col} indices, tail end first. */
+    public final IntRingBuffer tail = new IntRingBuffer(64);
+    public boolean growing = false;
+    public boolean alive = true;
+}
@@ -0,0 +1,590 @@
+package snake.sim;
+
+import java.nio.ByteBuffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Headless snake game rules.
+ * <p>
+ * Owns the snake, the food and the score and advances them one fixed step at
+ * a time. Movement is integer arithmetic: every step adds the snake's speed to
+ * a fixed-point progress counter and the head enters the next cell each time
+ * the counter passes {@link Snake#CELL}, so the cadence of cell steps is exact
+ * and the same in every direction. Turns are only taken as the head enters a
+ * cell, so it never changes direction part way across one. The game is won
+ * when the snake fills the board and there is no free cell left for food. It
+ * has no dependency on GLFW or OpenGL, so it can be driven by the windowed
+ * {@code SnakeGame}, by tools or by benchmarks at full CPU speed.
+ * <p>
+ * Boards of up to {@link #FREE_INDEX_LIMIT} cells keep an index of the free
+ * cells to place food in. Larger boards, up to {@link Integer#MAX_VALUE}
+ * cells, draw random cells until a free one turns up instead, since the index
+ * would take 8 bytes per cell; their occupancy is allocated in chunks as the
+ * snake reaches them, so memory follows the part of the board in use.
+ * <p>
+ * The complete state can be saved to and restored from a {@link ByteBuffer}
+ * with {@link #writeState} and {@link #readState}.
+ */
+public final class SnakeSimulation implements GameView {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnakeSimulation.class);
+
+    private static final Snake.Direction[] directions = Snake.Direction.values();
+
+    /** Bytes written by {@link #writeState} besides the body and free cells. */
+    private static final int STATE_HEADER_SIZE = 4 + 4 + 8 + 8 + 8 + 4 + 4 + 4 + 1 + 1 + 4 + 4 + 4 + 4;
+
+    /** Largest board, in cells, that keeps an index of its free cells. */
+    public static final int FREE_INDEX_LIMIT = 1 << 20;
+
+    static final int FLAG_GROWING = 1;
+    static final int FLAG_ALIVE = 1 << 1;
+    static final int FLAG_WON = 1 << 2;
+    static final int FLAG_TURNING = 1 << 3;  // Next direction in the two bits above
+    static final int NEXT_DIRECTION_SHIFT = 4;
+
+    private final int gridCols;
+    private final int gridRows;
+
+    private final SeededRandom random;
+    private long seed;
+
+    private final Snake snake = new Snake();
+    private final OccupancyGrid occupancy;
+    private final FreeCellIndex freeCells;  // null above FREE_INDEX_LIMIT
+    private DirtyCells dirtyCells;
+    private int food = -1;
+    private int score = 0;
+    private boolean won = false;
+    private long tick = 0;
+
+    // Head position before the last step, for interpolated drawing only
+    private float previousHeadX;
+    private float previousHeadY;
+
+    public SnakeSimulation(final int gridCols, final int gridRows, final long seed) {
+        if (gridCols < 2 || gridRows < 2)
+            throw new IllegalArgumentException("Grid must be at least 2x2: " + gridCols + "x" + gridRows);
+        this.gridCols = gridCols;
+        this.gridRows = gridRows;
+        this.random = new SeededRandom(seed);
+        this.occupancy = new OccupancyGrid(gridCols, gridRows);
+        this.freeCells = gridCols * gridRows <= FREE_INDEX_LIMIT ? new FreeCellIndex(gridCols * gridRows) : null;
+        reset(seed);
+    }
+
+    /**
+     * Restarts the game with the same seed it was last reset with.
+     */
+    public void reset() {
+        reset(this.seed);
+    }
+
+    /**
+     * Restarts the game; two simulations reset with the same seed and fed the
+     * same turns produce identical games.
+     */
+    public void reset(final long seed) {
+        this.seed = seed;
+        this.random.setState(seed);
+        this.snake.direction = Snake.Direction.UP;
+        this.snake.nextDirection = null;
+        this.snake.head = this.occupancy.index(this.gridCols / 2, this.gridRows / 2);
+        this.snake.progress = 0;
+        this.snake.tail.clear();
+        this.occupancy.clearAll();
+        if (this.freeCells != null) {
+            this.freeCells.fill();
+            this.freeCells.remove(this.snake.head);
+        }
+        this.snake.growing = false;
+        this.snake.alive = true;
+        this.snake.speed = Snake.INITIAL_SPEED;
+        this.score = 0;
+        this.won = false;
+        this.tick = 0;
+        placeFood();
+        rememberHead();
+        if (this.dirtyCells != null)
+            this.dirtyCells.markAll();
+    }
+
+    /**
+     * Sets where to record the cells whose body or food changes from now
+     * on, or {@code null} to stop.
+     */
+    public void setDirtyCells(final DirtyCells dirtyCells) {
+        this.dirtyCells = dirtyCells;
+        if (dirtyCells != null)
+            dirtyCells.markAll();
+    }
+
+    /**
+     * Requests a change of direction, taken at once if the head has only just
+     * entered its cell and otherwise on entering the next one, replacing any
+     * turn still waiting. Turning back on to the current axis is ignored. A
+     * turn that would lead straight back into the cell the head came from,
+     * as when a waiting turn was only just taken, also waits for the next
+     * cell.
+     *
+     * @return {@code true} if the turn was taken or will be
+     */
+    public boolean turn(final Snake.Direction direction) {
+        final Snake.Direction current = this.snake.direction;
+        switch (direction) {
+            case UP:
+            case DOWN:
+                if (current == Snake.Direction.UP || current == Snake.Direction.DOWN)
+                    return false;
+                break;
+            case LEFT:
+            case RIGHT:
+                if (current == Snake.Direction.LEFT || current == Snake.Direction.RIGHT)
+                    return false;
+                break;
+        }
+        if (logger.isTraceEnabled())
+            logger.trace("Snake: Direction changed - {}", direction);
+        // Less than a step into the cell, which the interpolated head
+        // smooths over
+        if (this.snake.progress < this.snake.speed && !isBehind(direction)) {
+            this.snake.direction = direction;
+            this.snake.nextDirection = null;
+        } else {
+            this.snake.nextDirection = direction;
+        }
+        return true;
+    }
+
+    /**
+     * Advances the game by one fixed step. Does nothing once the snake is dead
+     * or the game has been won.
+     */
+    public void step() {
+        rememberHead();
+        if (!this.snake.alive || this.won)
+            return;
+
+        this.tick++;
+        updateSnake();
+
+        // Collision detection
+        if (this.snake.alive && this.snake.head == this.food) {
+            if (logger.isTraceEnabled())
+                logger.trace("Snake: Collision with food! Snake #{}, Food #{}", this.snake.head, this.food);
+            this.snake.growing = true;  // Set snake to growing
+            this.snake.speed = Math.min(this.snake.speed + Snake.SPEED_PER_FOOD, Snake.CELL);
+            placeFood();  // Move food
+        }
+    }
+
+    private void updateSnake() {
+        // Body and collisions only change when the head enters a new cell
+        this.snake.progress += this.snake.speed;
+        if (this.snake.progress < Snake.CELL)
+            return;
+        this.snake.progress -= Snake.CELL;
+
+        // Update head
+        final int previous = this.snake.head;
+        final int current = neighbour(previous, this.snake.direction);
+        this.snake.head = current;
+        if (this.snake.nextDirection != null) {
+            this.snake.direction = this.snake.nextDirection;
+            this.snake.nextDirection = null;
+        }
+
+        // Update body
+        // 1. Add previous position to end of tail
+        // 2. If not growing remove start of tail
+        // The cell left behind was the head's and stays covered, so only
+        // the new head's cell counts as changed
+        this.snake.tail.addLast(previous);
+        this.occupancy.set(previous);
+        changed(current);
+        if (!this.snake.growing) {
+            final int end = this.snake.tail.removeFirst();
+            this.occupancy.clear(end);
+            markFree(end);
+            changed(end);
+        } else {
+            this.snake.growing = false;
+            this.score++;
+        }
+
+        // Check for snake colliding with itself
+        if (this.occupancy.get(current)) {
+            if (logger.isTraceEnabled())
+                logger.trace("Snake: Dead!");
+            this.snake.alive = false;
+            return;
+        }
+        markTaken(current);
+    }
+
+    /**
+     * Whether moving in {@code direction} would take the head back into the
+     * body cell it just left.
+     */
+    private boolean isBehind(final Snake.Direction direction) {
+        final IntRingBuffer tail = this.snake.tail;
+        return !tail.isEmpty() && neighbour(this.snake.head, direction) == tail.peekLast();
+    }
+
+    /**
+     * The cell next to {@code cell} in {@code direction}, wrapping around the
+     * edges of the grid.
+     */
+    private int neighbour(final int cell, final Snake.Direction direction) {
+        final int col = cell % this.gridCols;
+        switch (direction) {
+            case UP:
+                return cell < this.gridCols ? cell + (this.gridRows - 1) * this.gridCols : cell - this.gridCols;
+            case DOWN:
+                return cell >= (this.gridRows - 1) * this.gridCols ? col : cell + this.gridCols;
+            case LEFT:
+                return col == 0 ? cell + this.gridCols - 1 : cell - 1;
+            default:
+                return col == this.gridCols - 1 ? cell - col : cell + 1;
+        }
+    }
+
+    private void rememberHead() {
+        this.previousHeadX = getHeadX();
+        this.previousHeadY = getHeadY();
+    }
+
+    private void markFree(final int cell) {
+        if (this.freeCells != null)
+            this.freeCells.add(cell);
+    }
+
+    private void markTaken(final int cell) {
+        if (this.freeCells != null)
+            this.freeCells.remove(cell);
+    }
+
+    private void changed(final int cell) {
+        if (this.dirtyCells != null && cell >= 0)
+            this.dirtyCells.add(cell);
+    }
+
+    private void placeFood() {
+        changed(this.food);
+        this.food = this.freeCells != null ? this.freeCells.sample(this.random) : sampleFreeCell();
+        changed(this.food);
+        if (this.food < 0) {
+            // Board full - the last piece of food still scores even though
+            // there is no room left to grow into
+            if (logger.isTraceEnabled())
+                logger.trace("Snake: Board full!");
+            this.snake.growing = false;
+            this.score++;
+            this.won = true;
+        }
+    }
+
+    /**
+     * A uniformly chosen cell that is neither body nor head, found by drawing
+     * cells until one is free, or {@code -1} when there is none.
+     */
+    private int sampleFreeCell() {
+        final int cells = this.gridCols * this.gridRows;
+        if (this.snake.tail.size() + 1 >= cells)
+            return -1;
+        while (true) {
+            final int cell = this.random.nextInt(cells);
+            if (cell != this.snake.head && !this.occupancy.get(cell))
+                return cell;
+        }
+    }
+
+    @Override
+    public int getGridCols() {
+        return this.gridCols;
+    }
+
+    @Override
+    public int getGridRows() {
+        return this.gridRows;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    public Snake getSnake() {
+        return this.snake;
+    }
+
+    /**
+     * Packed {@code row * cols + col} index of the food, or {@code -1} once the
+     * game has been won.
+     */
+    @Override
+    public int getFood() {
+        return this.food;
+    }
+
+    @Override
+    public int getScore() {
+        return this.score;
+    }
+
+    @Override
+    public long getTick() {
+        return this.tick;
+    }
+
+    /**
+     * Cells covered by the snake's body (the head's cell is not included).
+     */
+    public OccupancyGrid getOccupancy() {
+        return this.occupancy;
+    }
+
+    @Override
+    public boolean isAlive() {
+        return this.snake.alive;
+    }
+
+    @Override
+    public boolean isWon() {
+        return this.won;
+    }
+
+    @Override
+    public int getHeadCell() {
+        return this.snake.head;
+    }
+
+    @Override
+    public float getHeadX() {
+        final int col = this.snake.head % this.gridCols;
+        switch (this.snake.direction) {
+            case LEFT:
+                return col - (float)this.snake.progress / Snake.CELL;
+            case RIGHT:
+                return col + (float)this.snake.progress / Snake.CELL;
+            default:
+                return col;
+        }
+    }
+
+    @Override
+    public float getHeadY() {
+        final int row = this.snake.head / this.gridCols;
+        switch (this.snake.direction) {
+            case UP:
+                return row - (float)this.snake.progress / Snake.CELL;
+            case DOWN:
+                return row + (float)this.snake.progress / Snake.CELL;
+            default:
+                return row;
+        }
+    }
+
+    @Override
+    public float getPreviousHeadX() {
+        return this.previousHeadX;
+    }
+
+    @Override
+    public float getPreviousHeadY() {
+        return this.previousHeadY;
+    }
+
+    @Override
+    public int getBodyLength() {
+        return this.snake.tail.size();
+    }
+
+    @Override
+    public int getBodyCell(final int index) {
+        return this.snake.tail.get(index);
+    }
+
+    @Override
+    public int nextBodyCell(final int from, final int to) {
+        return this.occupancy.nextSet(from, to);
+    }
+
+    /**
+     * Upper bound on the number of bytes {@link #writeState} needs.
+     */
+    public int getMaxStateSize() {
+        // The body, the free cells and the head never cover more than the grid
+        return (int)Math.min(STATE_HEADER_SIZE + 4L * this.gridCols * this.gridRows, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Writes the complete state at the buffer's position, advancing it. Does not
+     * allocate.
+     *
+     * @throws java.nio.BufferOverflowException if the buffer has less than
+     *         {@link #getMaxStateSize()} bytes remaining and the state does not fit
+     */
+    public void writeState(final ByteBuffer buffer) {
+        final IntRingBuffer tail = this.snake.tail;
+        buffer.putInt(this.gridCols).putInt(this.gridRows)
+                .putLong(this.tick).putLong(this.seed).putLong(this.random.getState())
+                .putInt(this.snake.head).putInt(this.snake.progress).putInt(this.snake.speed)
+                .put((byte)this.snake.direction.ordinal()).put((byte)getFlags())
+                .putInt(this.score).putInt(this.food).putInt(tail.size());
+        for (int i = 0; i < tail.size(); i++)
+            buffer.putInt(tail.get(i));
+        // The order of the free cells decides where food goes next; boards
+        // too large to index them have none to write
+        final int free = this.freeCells != null ? this.freeCells.size() : 0;
+        buffer.putInt(free);
+        for (int i = 0; i < free; i++)
+            buffer.putInt(this.freeCells.get(i));
+    }
+
+    /**
+     * Replaces the complete state with one written by {@link #writeState},
+     * read from the buffer's position. Takes time proportional to the grid
+     * size, as the occupancy and free cell index are rebuilt.
+     *
+     * @throws IllegalArgumentException if the state was written for a
+     *         different grid size
+     */
+    public void readState(final ByteBuffer buffer) {
+        final int cols = buffer.getInt();
+        final int rows = buffer.getInt();
+        if (cols != this.gridCols || rows != this.gridRows)
+            throw new IllegalArgumentException("State is for a " + cols + "x" + rows + " grid, not " + this.gridCols + "x" + this.gridRows);
+        this.tick = buffer.getLong();
+        this.seed = buffer.getLong();
+        this.random.setState(buffer.getLong());
+        this.snake.head = buffer.getInt();
+        this.snake.progress = buffer.getInt();
+        this.snake.speed = buffer.getInt();
+        this.snake.direction = directions[buffer.get()];
+        setFlags(buffer.get());
+        this.score = buffer.getInt();
+        this.food = buffer.getInt();
+
+        final int length = buffer.getInt();
+        this.snake.tail.clear();
+        this.occupancy.clearAll();
+        for (int i = 0; i < length; i++) {
+            final int cell = buffer.getInt();
+            this.snake.tail.addLast(cell);
+            this.occupancy.set(cell);
+        }
+        final int free = buffer.getInt();
+        if (this.freeCells != null) {
+            this.freeCells.clear();
+            for (int i = 0; i < free; i++)
+                this.freeCells.add(buffer.getInt());
+        }
+        rememberHead();
+        if (this.dirtyCells != null)
+            this.dirtyCells.markAll();
+    }
+
+    /**
+     * Replaces the snake and the food, keeping the score, speed and random
+     * state; for tests that need a particular board. The head is at the start
+     * of its cell and {@code body} runs tail end first.
+     */
+    void place(final int head, final Snake.Direction direction, final int[] body, final int food) {
+        this.snake.head = head;
+        this.snake.direction = direction;
+        this.snake.nextDirection = null;
+        this.snake.progress = 0;
+        this.snake.growing = false;
+        this.snake.alive = true;
+        this.won = false;
+        this.snake.tail.clear();
+        this.occupancy.clearAll();
+        if (this.freeCells != null)
+            this.freeCells.fill();
+        markTaken(head);
+        for (int cell : body) {
+            this.snake.tail.addLast(cell);
+            this.occupancy.set(cell);
+            markTaken(cell);
+        }
+        this.food = food;
+        rememberHead();
+        if (this.dirtyCells != null)
+            this.dirtyCells.markAll();
+    }
+
+    int getFlags() {
+        return (this.snake.growing ? FLAG_GROWING : 0)
+                | (this.snake.alive ? FLAG_ALIVE : 0)
+                | (this.won ? FLAG_WON : 0)
+                | (this.snake.nextDirection != null
+                        ? FLAG_TURNING | this.snake.nextDirection.ordinal() << NEXT_DIRECTION_SHIFT : 0);
+    }
+
+    void setFlags(final int flags) {
+        this.snake.growing = (flags & FLAG_GROWING) != 0;
+        this.snake.alive = (flags & FLAG_ALIVE) != 0;
+        this.won = (flags & FLAG_WON) != 0;
+        this.snake.nextDirection = (flags & FLAG_TURNING) != 0 ? directions[(flags >> NEXT_DIRECTION_SHIFT) & 3] : null;
+    }
+
+    long getRandomState() {
+        return this.random.getState();
+    }
+
+    /**
+     * Re-applies a recorded step: the head moves to {@code head} with
+     * {@code progress} towards the next cell, {@code pushed} (if not
+     * {@code -1}) joins the back of the body and the front of the body is
+     * removed if {@code popped}. Keeps the occupancy and free cells in step the
+     * same way {@link #step()} does.
+     */
+    void applyMove(final int head, final int progress, final int pushed, final boolean popped) {
+        rememberHead();
+        final int previous = this.snake.head;
+        if (pushed >= 0) {
+            this.snake.tail.addLast(pushed);
+            this.occupancy.set(pushed);
+            markTaken(pushed);
+            changed(pushed);
+        }
+        if (popped) {
+            final int end = this.snake.tail.removeFirst();
+            this.occupancy.clear(end);
+            markFree(end);
+            changed(end);
+        }
+        this.snake.head = head;
+        this.snake.progress = progress;
+        final int current = head;
+        if (current != previous) {
+            if (!this.occupancy.get(previous)) {
+                markFree(previous);
+                changed(previous);
+            }
+            markTaken(current);
+            changed(current);
+        }
+        this.tick++;
+    }
+
+    /**
+     * Re-applies recorded values that change without the head moving.
+     */
+    void applyState(final Snake.Direction direction, final int flags, final int score, final int food,
+                    final int speed, final long randomState) {
+        this.snake.direction = direction;
+        setFlags(flags);
+        this.score = score;
+        if (food != this.food) {
+            changed(this.food);
+            changed(food);
+        }
+        this.food = food;
+        this.snake.speed = speed;
+        this.random.setState(randomState);
+    }
+
+}
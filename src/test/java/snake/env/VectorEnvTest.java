@@ -0,0 +1,62 @@
+package snake.env;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import org.junit.Test;
+import snake.batch.GameBatch;
+
+/**
+ * The reward for eating lands on the step whose move enters the food cell.
+ */
+public class VectorEnvTest {
+
+    private static final int COLS = 10;
+    private static final int ROWS = 10;
+    private static final int STEPS = 5000;
+
+    @Test
+    public void rewardOnTheStepThatEats() {
+        final FloatBuffer observations = ByteBuffer
+                .allocateDirect(VectorEnv.observationSize(COLS, ROWS) * Float.BYTES)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        final FloatBuffer rewards = ByteBuffer.allocateDirect(Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        final ByteBuffer dones = ByteBuffer.allocateDirect(1);
+        final VectorEnv env = new VectorEnv(1, COLS, ROWS, observations, rewards, dones);
+        final GameBatch batch = env.getBatch();
+        env.reset(new long[] { 42L });
+
+        final int[] actions = new int[1];
+        int eaten = 0;
+        for (int step = 0; step < STEPS; step++) {
+            final int head = batch.getHead(0);
+            final int food = batch.getFood(0);
+            actions[0] = towards(head, food);
+            // Turning back on to the current axis keeps going straight
+            final int direction = (actions[0] >>> 1) != (batch.getDirection(0) >>> 1) ? actions[0] : batch.getDirection(0);
+            final boolean eats = batch.neighbour(head, direction) == food;
+
+            env.step(actions);
+            if (dones.get(0) == VectorEnv.TERMINATED && rewards.get(0) < 0.0f)
+                continue;  // Died
+            assertEquals("Reward on step " + step, eats ? 1.0f : 0.0f, rewards.get(0), 0.0f);
+            if (eats)
+                eaten++;
+        }
+        assertTrue("Food eaten: " + eaten, eaten > 10);
+    }
+
+    /**
+     * Straight for the food, ignoring the body and the wrapping edges.
+     */
+    private static int towards(final int head, final int food) {
+        if (food % COLS != head % COLS)
+            return food % COLS < head % COLS ? GameBatch.LEFT : GameBatch.RIGHT;
+        return food / COLS < head / COLS ? GameBatch.UP : GameBatch.DOWN;
+    }
+
+}
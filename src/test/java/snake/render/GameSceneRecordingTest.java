@@ -0,0 +1,55 @@
+package snake.render;
+
+import static org.junit.Assert.assertEquals;
+
+import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
+import org.junit.Test;
+import snake.sim.Boards;
+import snake.sim.SnakeSimulation;
+
+/**
+ * A frame of the whole board is one draw call of one instance per block,
+ * however long the snake.
+ */
+public class GameSceneRecordingTest {
+
+    private static final int FRAMES = 50;
+
+    private final GameScene scene = new GameScene();
+    private final RecordingRenderer renderer = new RecordingRenderer();
+    private final Matrix4fc projection = new Matrix4f();
+
+    @Test
+    public void newGame() {
+        final SnakeSimulation simulation = new SnakeSimulation(40, 30, 42L);
+        for (int frame = 0; frame < FRAMES; frame++) {
+            drawAndCheck(simulation);
+            simulation.step();
+        }
+    }
+
+    @Test
+    public void longSnake() {
+        // More blocks than the renderer starts with room for, so it grows mid-frame
+        final SnakeSimulation simulation = new SnakeSimulation(100, 100, 42L);
+        Boards.lay(simulation, 4000);
+        assertEquals(4000, simulation.getBodyLength());
+        for (int frame = 0; frame < FRAMES; frame++) {
+            drawAndCheck(simulation);
+            simulation.step();
+        }
+        assertEquals(FRAMES, this.renderer.getFrames());
+        assertEquals(FRAMES, this.renderer.getDrawCalls());
+    }
+
+    private void drawAndCheck(final SnakeSimulation simulation) {
+        this.scene.draw(simulation, 1.0f, this.renderer, this.projection);
+        final int blocks = simulation.getBodyLength() + 1 + (simulation.getFood() >= 0 ? 1 : 0);
+        assertEquals("Instances", blocks, this.renderer.getFrameInstances());
+        assertEquals("Draw calls", 1, this.renderer.getFrameDrawCalls());
+        assertEquals("Bytes submitted", (long)blocks * BatchRenderer.FLOATS_PER_INSTANCE * 4,
+                this.renderer.getFrameBytesUploaded());
+    }
+
+}
@@ -0,0 +1,82 @@
+package snake.render;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import snake.sim.Boards;
+import snake.sim.DirtyCells;
+import snake.sim.SnakeSimulation;
+
+/**
+ * After the first frame, each tick uploads only the few cells it changed,
+ * eating included, whatever the length of the snake, and the texture always
+ * matches the board.
+ */
+public class GridTextureSceneTest {
+
+    private static final int COLS = 200;
+    // Short of going once round the head's row, where the body would be in the way
+    private static final int TICKS = 1500;
+    // A tick changes the new head's cell, the old tail end and, on eating,
+    // the new food's cell; runs may take in the unchanged cells between them
+    private static final int CHANGED_CELLS_PER_TICK = 3;
+    private static final int MAX_BYTES_PER_TICK =
+            CHANGED_CELLS_PER_TICK + (CHANGED_CELLS_PER_TICK - 1) * GridTextureScene.MAX_GAP;
+
+    @Test
+    public void shortSnake() {
+        play(10);
+    }
+
+    @Test
+    public void longSnake() {
+        play(1000);
+    }
+
+    @Test
+    public void veryLongSnake() {
+        play(10000);
+    }
+
+    private static void play(final int length) {
+        final SnakeSimulation simulation = new SnakeSimulation(COLS, 200, 42L);
+        final DirtyCells dirtyCells = new DirtyCells(64);
+        simulation.setDirtyCells(dirtyCells);
+        final RecordingGridTexture texture = new RecordingGridTexture();
+        final GridTextureScene scene = new GridTextureScene(texture, dirtyCells);
+        Boards.lay(simulation, length);
+        scene.update(simulation);
+        assertEquals(1, scene.getFullUploads());
+        assertTexels(simulation, texture);
+
+        long changed = 0;
+        for (int tick = 0; tick < TICKS; tick++) {
+            simulation.step();
+            assertTrue("Snake died", simulation.isAlive());
+            scene.update(simulation);
+            assertEquals("Full uploads", 1, scene.getFullUploads());
+            assertTrue("Bytes uploaded on tick " + tick + ": " + scene.getFrameBytesUploaded(),
+                    scene.getFrameBytesUploaded() <= MAX_BYTES_PER_TICK);
+            changed += scene.getFrameBytesUploaded();
+            if (tick % 10 == 0)
+                assertTexels(simulation, texture);
+        }
+        assertTexels(simulation, texture);
+        assertTrue("Nothing uploaded", changed > 0);
+        assertTrue("Food never eaten", simulation.getScore() > 0);
+    }
+
+    private static void assertTexels(final SnakeSimulation simulation, final RecordingGridTexture texture) {
+        final int cols = simulation.getGridCols();
+        final int cells = cols * simulation.getGridRows();
+        for (int cell = 0; cell < cells; cell++) {
+            final int expected = cell == simulation.getFood() ? GridTextureScene.FOOD
+                    : cell == simulation.getHeadCell() || simulation.getOccupancy().get(cell) ? GridTextureScene.BODY
+                    : GridTextureScene.EMPTY;
+            assertEquals("Texel at " + cell % cols + "," + cell / cols, expected,
+                    texture.getTexel(cell % cols, cell / cols));
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package snake.sim;
+
+/**
+ * Helpers shared by the tests.
+ */
+public final class Boards {
+
+    private static final int FOOD_AHEAD = 5;
+
+    private Boards() {
+    }
+
+    /**
+     * Restarts with a body of {@code length} cells filling the rows below
+     * the head, tail first from the start of the next row, with the head
+     * heading right along its own empty row towards the food, a few cells
+     * ahead.
+     */
+    public static void lay(final SnakeSimulation simulation, final int length) {
+        simulation.reset();
+        final int cols = simulation.getGridCols();
+        final int cells = cols * simulation.getGridRows();
+        final int head = simulation.getHeadCell();
+        if (length > cells - 2 * cols)
+            throw new IllegalArgumentException("Body of " + length + " does not fit below the head");
+        final int first = (head / cols + 1) * cols;
+        final int[] body = new int[length];
+        for (int i = 0; i < length; i++)
+            body[i] = (first + i) % cells;
+        simulation.place(head, Snake.Direction.RIGHT, body, head / cols * cols + (head + FOOD_AHEAD) % cols);
+    }
+
+}
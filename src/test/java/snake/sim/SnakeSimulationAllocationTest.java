@@ -0,0 +1,65 @@
+package snake.sim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Test;
+
+/**
+ * A tick must not allocate once the body buffer has grown to its working
+ * size.
+ */
+public class SnakeSimulationAllocationTest {
+
+    private static final int TICKS = 200_000;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+    @Test
+    public void stepDoesNotAllocate() {
+        assertTrue("Allocation counting is not supported", this.threads.isThreadAllocatedMemorySupported());
+        final SnakeSimulation simulation = new SnakeSimulation(40, 30, 42L);
+
+        // The same games are played every time, so any growth happens while warming up
+        int longest = 0;
+        for (int i = 0; i < 5; i++)
+            longest = Math.max(longest, play(simulation));
+        assertTrue("Snake never grew: " + longest, longest > 10);
+
+        final long id = Thread.currentThread().getId();
+        final long before = this.threads.getThreadAllocatedBytes(id);
+        final long calibrate = this.threads.getThreadAllocatedBytes(id);
+        play(simulation);
+        final long after = this.threads.getThreadAllocatedBytes(id);
+        assertEquals("Bytes allocated by " + TICKS + " ticks", 0L, (after - calibrate) - (calibrate - before));
+    }
+
+    /**
+     * Plays {@link #TICKS} ticks of games from the same seeds, steering
+     * straight for the food, and returns the longest snake seen.
+     */
+    private static int play(final SnakeSimulation simulation) {
+        simulation.reset(1L);
+        final int cols = simulation.getGridCols();
+        int longest = 0;
+        for (int tick = 0; tick < TICKS; tick++) {
+            if (!simulation.isAlive() || simulation.isWon())
+                simulation.reset(simulation.getSeed() + 1);
+            final int head = simulation.getHeadCell();
+            final int food = simulation.getFood();
+            if (food >= 0) {
+                if (food % cols != head % cols)
+                    simulation.turn(food % cols < head % cols ? Snake.Direction.LEFT : Snake.Direction.RIGHT);
+                else
+                    simulation.turn(food / cols < head / cols ? Snake.Direction.UP : Snake.Direction.DOWN);
+            }
+            simulation.step();
+            longest = Math.max(longest, simulation.getBodyLength());
+        }
+        return longest;
+    }
+
+}
@@ -0,0 +1,70 @@
+package snake.sim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import snake.loop.KeyEventQueue;
+import snake.loop.TurnInput;
+
+/**
+ * Two quick turns must never add up to a reversal onto the body, even when
+ * the first one waits for the next cell.
+ */
+public class SnakeSimulationTurnTest {
+
+    private static final int COLS = 40;
+    private static final int ROWS = 30;
+
+    @Test
+    public void upThenRightWhileMovingLeft() {
+        final SnakeSimulation simulation = new SnakeSimulation(COLS, ROWS, 42L);
+        final int head = 15 * COLS + 20;
+        simulation.place(head, Snake.Direction.LEFT, new int[] { head + 3, head + 2, head + 1 }, 0);
+        final KeyEventQueue keys = new KeyEventQueue(16);
+        final TurnInput input = new TurnInput(simulation, keys, () -> 0L);
+
+        // Halfway across the cell, so the first turn has to wait
+        while (simulation.getSnake().progress < Snake.CELL / 2) {
+            input.apply();
+            simulation.step();
+        }
+        keys.offer(Snake.Direction.UP.ordinal(), 0L);
+        keys.offer(Snake.Direction.RIGHT.ordinal(), 0L);
+
+        // Long enough to take both turns and cross a few more cells
+        for (int tick = 0; tick < 5 * Snake.CELL / Snake.INITIAL_SPEED; tick++) {
+            input.apply();
+            simulation.step();
+            assertTrue("Snake died on tick " + simulation.getTick(), simulation.isAlive());
+        }
+        // Left one cell, up one cell, then right
+        assertEquals(Snake.Direction.RIGHT, simulation.getSnake().direction);
+        assertEquals(14, simulation.getHeadCell() / COLS);
+        assertTrue(simulation.getHeadCell() % COLS > 19);
+    }
+
+    @Test
+    public void reversalRightAfterAWaitingTurnWaitsForTheNextCell() {
+        final SnakeSimulation simulation = new SnakeSimulation(COLS, ROWS, 42L);
+        final int head = 15 * COLS + 20;
+        simulation.place(head, Snake.Direction.LEFT, new int[] { head + 3, head + 2, head + 1 }, 0);
+        while (simulation.getSnake().progress < Snake.CELL / 2)
+            simulation.step();
+        assertTrue(simulation.turn(Snake.Direction.UP));
+        while (simulation.getHeadCell() == head)
+            simulation.step();
+        assertEquals(Snake.Direction.UP, simulation.getSnake().direction);
+
+        // Just entered, but right would lead back into the cell it came from
+        assertTrue(simulation.turn(Snake.Direction.RIGHT));
+        assertEquals(Snake.Direction.UP, simulation.getSnake().direction);
+        final int entered = simulation.getHeadCell();
+        while (simulation.getHeadCell() == entered)
+            simulation.step();
+        assertTrue(simulation.isAlive());
+        assertEquals(entered - COLS, simulation.getHeadCell());
+        assertEquals(Snake.Direction.RIGHT, simulation.getSnake().direction);
+    }
+
+}